@@ -0,0 +1,98 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package org.cadixdev.survey;
+
+import org.cadixdev.atlas.jar.JarFile;
+import org.cadixdev.bombe.jar.JarClassEntry;
+import org.cadixdev.lorenz.MappingSet;
+import org.cadixdev.survey.generator.JarGenerator;
+import org.cadixdev.survey.mapper.AbstractMapper;
+import org.cadixdev.survey.mapper.EnumConstantsMapper;
+import org.cadixdev.survey.mapper.FieldNameMapper;
+import org.cadixdev.survey.mapper.config.EnumConstantsMapperConfig;
+import org.cadixdev.survey.mapper.config.FieldNameMapperConfig;
+import org.cadixdev.survey.mapper.config.ModifierRequirement;
+import org.cadixdev.survey.mapper.intermediary.ClassIntermediaryMapper;
+import org.cadixdev.survey.mapper.intermediary.FieldIntemediaryMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks a single pass of each mapper, through
+ * {@link Survey#_runMapper(List, String, AbstractMapper)}.
+ *
+ * @author Jamie Mansfield
+ * @since 0.2.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class MapperBenchmark {
+
+    @Param({"1000", "10000", "50000"})
+    public int classes;
+
+    @Param({"field_name", "enum_constants", "class_intermediary", "field_intermediary"})
+    public String mapper;
+
+    private List<JarClassEntry> entries;
+    private Survey survey;
+    private AbstractMapper<?> instance;
+
+    @Setup(Level.Trial)
+    public void readJar() throws IOException {
+        try (final JarFile jar = new JarFile(new JarGenerator(0).classes(this.classes).writeTemporary())) {
+            this.entries = new Survey()._readClasses(jar);
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void createMapper() {
+        // Start from empty mappings, so each invocation does the same work
+        this.survey = new Survey();
+        this.instance = createMapper(this.survey, this.mapper);
+        this.instance.prepare(this.entries);
+    }
+
+    @Benchmark
+    public MappingSet runMapper() {
+        this.survey._runMapper(this.entries, this.mapper, this.instance);
+        return this.survey.mappings();
+    }
+
+    static AbstractMapper<?> createMapper(final Survey survey, final String type) {
+        switch (type) {
+            case "field_name": {
+                final FieldNameMapperConfig config = new FieldNameMapperConfig();
+                config.desc = "Ljava/lang/String;";
+                config.name = "str";
+                config.requirements.put(ModifierRequirement.STATIC, true);
+                return new FieldNameMapper(survey, config);
+            }
+            case "enum_constants":
+                return new EnumConstantsMapper(survey, new EnumConstantsMapperConfig());
+            case "class_intermediary":
+                return new ClassIntermediaryMapper(survey, new ClassIntermediaryMapper.Config("C_{id}_{obf}", "net/"));
+            case "field_intermediary":
+                return new FieldIntemediaryMapper(survey, new FieldIntemediaryMapper.Config("field_{id}_{obf}"));
+            default:
+                throw new IllegalArgumentException("Unknown mapper: " + type);
+        }
+    }
+
+}
@@ -0,0 +1,99 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package org.cadixdev.survey.benchmarks;
+
+import org.cadixdev.survey.Survey;
+import org.cadixdev.survey.context.CascadingSurveyContext;
+import org.cadixdev.survey.context.SimpleSurveyContext;
+import org.cadixdev.survey.context.SurveyContext;
+import org.cadixdev.survey.generator.JarGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks blacklist lookups, against both a simple context and a
+ * chain of cascading contexts (as produced by {@code extends}).
+ *
+ * @author Jamie Mansfield
+ * @since 0.2.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class BlacklistBenchmark {
+
+    private static final int LOOKUPS = 1024;
+
+    @Param({"10", "100", "1000"})
+    public int prefixes;
+
+    @Param({"1", "4"})
+    public int depth;
+
+    private SurveyContext simple;
+    private SurveyContext cascading;
+    private final String[] classes = new String[LOOKUPS];
+
+    @Setup
+    public void setup() {
+        final Random random = new Random(0);
+
+        final List<String> blacklist = new ArrayList<>();
+        for (int i = 0; i < this.prefixes; i++) {
+            blacklist.add("com/" + JarGenerator.obfuscatedName(random.nextInt(this.prefixes * 2)) + "/");
+        }
+
+        final Survey survey = new Survey();
+        this.simple = new SimpleSurveyContext(survey.mappings(), blacklist);
+
+        // Split the blacklist across a chain of contexts
+        SurveyContext parent = survey;
+        final int perContext = Math.max(1, blacklist.size() / this.depth);
+        for (int i = 0; i < this.depth; i++) {
+            final int end = i == this.depth - 1 ? blacklist.size() : Math.min(blacklist.size(), (i + 1) * perContext);
+            parent = new CascadingSurveyContext(survey.mappings())
+                    .install(new SimpleSurveyContext(survey.mappings(), blacklist.subList(i * perContext, end)))
+                    .install(parent);
+        }
+        this.cascading = parent;
+
+        for (int i = 0; i < LOOKUPS; i++) {
+            this.classes[i] = "com/" + JarGenerator.obfuscatedName(random.nextInt(this.prefixes * 2)) + "/"
+                    + JarGenerator.obfuscatedName(random.nextInt(1000));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public void simple(final Blackhole blackhole) {
+        for (final String klass : this.classes) {
+            blackhole.consume(this.simple.blacklisted(klass));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public void cascading(final Blackhole blackhole) {
+        for (final String klass : this.classes) {
+            blackhole.consume(this.cascading.blacklisted(klass));
+        }
+    }
+
+}
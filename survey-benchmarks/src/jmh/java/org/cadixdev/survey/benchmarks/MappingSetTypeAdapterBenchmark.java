@@ -0,0 +1,95 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package org.cadixdev.survey.benchmarks;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+import org.cadixdev.lorenz.MappingSet;
+import org.cadixdev.lorenz.model.ClassMapping;
+import org.cadixdev.lorenz.model.MethodMapping;
+import org.cadixdev.survey.config.mappings.MappingSetTypeAdapter;
+import org.cadixdev.survey.generator.JarGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks serialising and de-serialising mappings, with the
+ * {@link MappingSetTypeAdapter}, to and from JSON text - both streamed,
+ * and through the tree model.
+ *
+ * @author Jamie Mansfield
+ * @since 0.2.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class MappingSetTypeAdapterBenchmark {
+
+    @Param({"1000", "10000", "50000"})
+    public int classes;
+
+    private final Gson gson = new Gson();
+    private MappingSet mappings;
+    private String json;
+
+    @Setup
+    public void setup() {
+        this.mappings = MappingSet.create();
+        for (int i = 0; i < this.classes; i++) {
+            final String name = JarGenerator.obfuscatedName(i);
+            final ClassMapping<?, ?> klass = this.mappings.getOrCreateTopLevelClassMapping(name)
+                    .setDeobfuscatedName("net/Class" + i);
+            for (int j = 0; j < 4; j++) {
+                klass.getOrCreateFieldMapping(JarGenerator.obfuscatedName(j), "I")
+                        .setDeobfuscatedName("field" + j);
+            }
+            for (int j = 0; j < 4; j++) {
+                final MethodMapping method = klass.getOrCreateMethodMapping(JarGenerator.obfuscatedName(j), "(I)V")
+                        .setDeobfuscatedName("method" + j);
+                method.getOrCreateParameterMapping(0).setDeobfuscatedName("param");
+            }
+            if (i % 5 == 0) {
+                klass.getOrCreateInnerClassMapping("a").setDeobfuscatedName("Inner");
+            }
+        }
+        this.json = this.serialise();
+    }
+
+    @Benchmark
+    public String serialise() {
+        return new MappingSetTypeAdapter(this.mappings).toJson(this.mappings);
+    }
+
+    @Benchmark
+    public MappingSet deserialise() throws IOException {
+        final MappingSet mappings = MappingSet.create();
+        return new MappingSetTypeAdapter(mappings).fromJson(this.json);
+    }
+
+    @Benchmark
+    public String serialiseTree() {
+        final JsonElement element = new MappingSetTypeAdapter(this.mappings).serialize(this.mappings, MappingSet.class, null);
+        return this.gson.toJson(element);
+    }
+
+    @Benchmark
+    public MappingSet deserialiseTree() {
+        final MappingSet mappings = MappingSet.create();
+        return new MappingSetTypeAdapter(mappings).deserialize(JsonParser.parseString(this.json), MappingSet.class, null);
+    }
+
+}
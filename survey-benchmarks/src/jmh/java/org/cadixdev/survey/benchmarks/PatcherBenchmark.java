@@ -0,0 +1,72 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package org.cadixdev.survey.benchmarks;
+
+import org.cadixdev.atlas.jar.JarFile;
+import org.cadixdev.atlas.jar.JarVisitOption;
+import org.cadixdev.bombe.jar.JarClassEntry;
+import org.cadixdev.survey.Survey;
+import org.cadixdev.survey.generator.JarGenerator;
+import org.cadixdev.survey.patcher.InnerClassInitPatcher;
+import org.cadixdev.survey.patcher.JarEntryPatcherTransformer;
+import org.cadixdev.survey.patcher.proguard.ProguardSignaturePatcher;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Benchmarks {@link JarEntryPatcherTransformer#transform(JarClassEntry)},
+ * with every patcher, over a whole jar.
+ *
+ * @author Jamie Mansfield
+ * @since 0.2.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class PatcherBenchmark {
+
+    @Param({"1000", "10000", "50000"})
+    public int classes;
+
+    private List<JarClassEntry> entries;
+    private JarEntryPatcherTransformer transformer;
+
+    @Setup
+    public void setup() throws IOException {
+        try (final JarFile jar = new JarFile(new JarGenerator(0).classes(this.classes).writeTemporary())) {
+            this.entries = jar.walk(JarVisitOption.IGNORE_RESOURCES)
+                    .map(jar::getClass)
+                    .collect(Collectors.toList());
+        }
+
+        final Survey survey = new Survey();
+        this.transformer = JarEntryPatcherTransformer.from(
+                new InnerClassInitPatcher(survey),
+                new ProguardSignaturePatcher(survey)
+        );
+    }
+
+    @Benchmark
+    public void transform(final Blackhole blackhole) {
+        for (final JarClassEntry entry : this.entries) {
+            blackhole.consume(this.transformer.transform(entry));
+        }
+    }
+
+}
@@ -0,0 +1,43 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package org.cadixdev.survey.benchmarks;
+
+import org.cadixdev.survey.patcher.proguard.ProguardSignaturePatcher;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks {@link ProguardSignaturePatcher.Patcher#patch(String)}.
+ *
+ * @author Jamie Mansfield
+ * @since 0.2.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class SignaturePatcherBenchmark {
+
+    @Param({
+            "(TK;)Lzt<TK;TT;TR;>.a;",
+            "(TK;)Lzt<TK;TT;TR;>.zt$a;",
+            "<K:Ljava/lang/Object;V:Ljava/lang/Object;>(Ljava/util/Map<TK;TV;>;)Ljava/util/List<TV;>;"
+    })
+    public String signature;
+
+    @Benchmark
+    public String patch() {
+        return ProguardSignaturePatcher.Patcher.patch(this.signature);
+    }
+
+}
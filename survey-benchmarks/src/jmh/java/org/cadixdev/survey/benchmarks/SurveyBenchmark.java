@@ -0,0 +1,97 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package org.cadixdev.survey.benchmarks;
+
+import org.cadixdev.atlas.jar.JarFile;
+import org.cadixdev.lorenz.MappingSet;
+import org.cadixdev.survey.Survey;
+import org.cadixdev.survey.generator.JarGenerator;
+import org.cadixdev.survey.mapper.EnumConstantsMapper;
+import org.cadixdev.survey.mapper.FieldNameMapper;
+import org.cadixdev.survey.mapper.config.EnumConstantsMapperConfig;
+import org.cadixdev.survey.mapper.config.FieldNameMapperConfig;
+import org.cadixdev.survey.mapper.intermediary.ClassIntermediaryMapper;
+import org.cadixdev.survey.mapper.intermediary.FieldIntemediaryMapper;
+import org.cadixdev.survey.patcher.InnerClassInitPatcher;
+import org.cadixdev.survey.patcher.proguard.ProguardSignaturePatcher;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks {@link Survey#map(JarFile)} and {@link Survey#run(Path, Path)},
+ * with every mapper and patcher, over generated jars.
+ *
+ * @author Jamie Mansfield
+ * @since 0.2.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class SurveyBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int classes;
+
+    @Param({"1", "4"})
+    public int threads;
+
+    private Path input;
+    private Path output;
+
+    @Setup
+    public void setup() throws IOException {
+        this.input = new JarGenerator(0).classes(this.classes).writeTemporary();
+        this.output = Files.createTempFile("survey-benchmark", ".jar");
+        this.output.toFile().deleteOnExit();
+    }
+
+    @Benchmark
+    public MappingSet map() throws IOException {
+        final Survey survey = this.createSurvey();
+        try (final JarFile jar = new JarFile(this.input)) {
+            survey.map(jar);
+        }
+        return survey.mappings();
+    }
+
+    @Benchmark
+    public MappingSet run() {
+        final Survey survey = this.createSurvey();
+        survey.run(this.input, this.output);
+        return survey.mappings();
+    }
+
+    private Survey createSurvey() {
+        final Survey survey = new Survey().threads(this.threads);
+
+        final FieldNameMapperConfig loggers = new FieldNameMapperConfig();
+        loggers.desc = JarGenerator.LOGGER;
+        loggers.name = "LOGGER";
+
+        return survey
+                .mapper("enum_constants", EnumConstantsMapper::new, survey, new EnumConstantsMapperConfig())
+                .mapper("loggers", FieldNameMapper::new, survey, loggers)
+                .mapper("class_intermediary", ClassIntermediaryMapper::new, survey,
+                        new ClassIntermediaryMapper.Config("C_{id}_{obf}", "net/"))
+                .mapper("field_intermediary", FieldIntemediaryMapper::new, survey,
+                        new FieldIntemediaryMapper.Config("field_{id}_{obf}"))
+                .patcher("inner_class_init", InnerClassInitPatcher::create, null)
+                .patcher("proguard_signatures", ProguardSignaturePatcher::create, null);
+    }
+
+}
@@ -0,0 +1,123 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package org.cadixdev.survey.cli;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import org.cadixdev.survey.util.AtomicFiles;
+import org.cadixdev.survey.util.Digests;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * A record of a completed run - the fingerprint of its inputs, and the
+ * hash of each of its outputs - kept beside its first output, so running
+ * the same job again can be skipped.
+ *
+ * @author Jamie Mansfield
+ * @since 0.2.0
+ */
+public final class RunManifest {
+
+    private static final String EXTENSION = ".survey.json";
+
+    /**
+     * Gets the path of the manifest of a run with the given outputs.
+     *
+     * @param outputs The outputs of the run, any of which may be {@code null}
+     * @return The path of the manifest, or {@code null} should the run have
+     *         no outputs
+     */
+    public static Path getPath(final Path... outputs) {
+        for (final Path output : outputs) {
+            if (output != null) return output.resolveSibling(output.getFileName() + EXTENSION);
+        }
+        return null;
+    }
+
+    /**
+     * Establishes whether the manifest at the given path records a run
+     * with the given fingerprint, whose outputs haven't since changed.
+     *
+     * @param manifest The path to the manifest
+     * @param fingerprint The fingerprint of the run's inputs
+     * @return {@code true} if the run is up to date;
+     *         {@code false} otherwise
+     * @throws IOException Should an I/O issue occur
+     */
+    public static boolean isUpToDate(final Path manifest, final String fingerprint) throws IOException {
+        if (Files.notExists(manifest)) return false;
+
+        final JsonObject root;
+        try (final BufferedReader reader = Files.newBufferedReader(manifest)) {
+            final JsonElement element = JsonParser.parseReader(reader);
+            if (!element.isJsonObject()) return false;
+            root = element.getAsJsonObject();
+        }
+        catch (final JsonParseException ex) {
+            // A manifest that can't be read is as good as none
+            return false;
+        }
+
+        if (!isString(root.get("fingerprint")) || !root.get("fingerprint").getAsString().equals(fingerprint)) {
+            return false;
+        }
+        if (!root.has("outputs") || !root.get("outputs").isJsonObject()) return false;
+
+        for (final Map.Entry<String, JsonElement> output : root.getAsJsonObject("outputs").entrySet()) {
+            if (!isString(output.getValue())) return false;
+            final Path path = manifest.resolveSibling(output.getKey());
+            if (Files.notExists(path)) return false;
+            if (!Digests.sha256(path).equals(output.getValue().getAsString())) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Writes the manifest of a completed run.
+     *
+     * @param manifest The path to write the manifest to
+     * @param fingerprint The fingerprint of the run's inputs
+     * @param outputs The outputs of the run
+     * @throws IOException Should an I/O issue occur
+     */
+    public static void write(final Path manifest, final String fingerprint, final Collection<Path> outputs)
+            throws IOException {
+        final JsonObject hashes = new JsonObject();
+        for (final Path output : outputs) {
+            // Outputs are recorded relative to the manifest, so they can be moved together
+            hashes.addProperty(manifest.toAbsolutePath().getParent().relativize(output.toAbsolutePath()).toString(),
+                    Digests.sha256(output));
+        }
+
+        final JsonObject root = new JsonObject();
+        root.addProperty("fingerprint", fingerprint);
+        root.add("outputs", hashes);
+
+        AtomicFiles.write(manifest, temp -> {
+            try (final BufferedWriter writer = Files.newBufferedWriter(temp)) {
+                writer.write(root.toString());
+            }
+        });
+    }
+
+    private static boolean isString(final JsonElement element) {
+        return element != null && element.isJsonPrimitive() && element.getAsJsonPrimitive().isString();
+    }
+
+    private RunManifest() {
+    }
+
+}
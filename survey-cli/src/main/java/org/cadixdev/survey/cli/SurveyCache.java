@@ -0,0 +1,144 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package org.cadixdev.survey.cli;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+import org.cadixdev.lorenz.MappingSet;
+import org.cadixdev.lorenz.io.MappingFormat;
+import org.cadixdev.lorenz.model.TopLevelClassMapping;
+import org.cadixdev.survey.hierarchy.ClassHierarchyIndex;
+import org.cadixdev.survey.mappings.JarClassIndex;
+import org.cadixdev.survey.mappings.MappingCopier;
+import org.cadixdev.survey.util.Digests;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The state a {@link SurveyDaemon} keeps between jobs - parsed mappings,
+ * parsed configurations, and class hierarchies - keyed by the hash of the
+ * file they came from, so a file that changes is simply read again.
+ * <p>
+ * Mappers add to the mappings of the job they run in, so every job is
+ * given its own copy of the cached mappings.
+ *
+ * @author Jamie Mansfield
+ * @since 0.2.0
+ */
+public class SurveyCache {
+
+    private final Map<String, MappingSet> mappings;
+    private final Map<String, JsonElement> configs;
+    private final Map<String, ClassHierarchyIndex> hierarchies;
+
+    public SurveyCache(final int capacity) {
+        this.mappings = lru(capacity);
+        this.configs = lru(capacity);
+        this.hierarchies = lru(capacity);
+    }
+
+    /**
+     * Gets a copy of the mappings in the given file, reading them should
+     * they not be cached.
+     *
+     * @param format The format of the mappings
+     * @param path The path to the mappings
+     * @param index The classes to copy the mappings of, or {@code null}
+     *              to copy every class
+     * @return The mappings
+     * @throws IOException Should an I/O issue occur
+     */
+    public MappingSet mappings(final MappingFormat format, final Path path, final JarClassIndex index)
+            throws IOException {
+        final String key = format.getClass().getName() + ':' + Digests.sha256(path);
+
+        MappingSet cached;
+        synchronized (this.mappings) {
+            cached = this.mappings.get(key);
+        }
+        if (cached == null) {
+            cached = format.read(MappingSet.create(), path);
+            synchronized (this.mappings) {
+                this.mappings.put(key, cached);
+            }
+        }
+
+        final MappingSet copy = MappingSet.create();
+        for (final TopLevelClassMapping klass : cached.getTopLevelClassMappings()) {
+            if (index == null || index.contains(klass.getObfuscatedName())) {
+                MappingCopier.copy(klass, copy);
+            }
+        }
+        return copy;
+    }
+
+    /**
+     * Gets the configuration in the given file, parsing it should it not
+     * be cached.
+     *
+     * @param path The path to the configuration
+     * @return The configuration
+     * @throws IOException Should an I/O issue occur
+     */
+    public JsonElement config(final Path path) throws IOException {
+        final String key = Digests.sha256(path);
+        synchronized (this.configs) {
+            final JsonElement cached = this.configs.get(key);
+            if (cached != null) return cached;
+        }
+
+        final JsonElement config;
+        try (final BufferedReader reader = Files.newBufferedReader(path)) {
+            config = JsonParser.parseReader(reader);
+        }
+        synchronized (this.configs) {
+            this.configs.put(key, config);
+        }
+        return config;
+    }
+
+    /**
+     * Gets the class hierarchy of the jar of the given hash, should it be
+     * cached.
+     *
+     * @param jar The SHA-256 hash of the jar
+     * @return The class hierarchy, or {@code null}
+     * @see Digests#sha256(java.nio.file.Path)
+     */
+    public ClassHierarchyIndex hierarchy(final String jar) {
+        synchronized (this.hierarchies) {
+            return this.hierarchies.get(jar);
+        }
+    }
+
+    /**
+     * Caches the class hierarchy of the jar of the given hash.
+     *
+     * @param jar The SHA-256 hash of the jar
+     * @param hierarchy The class hierarchy
+     */
+    public void hierarchy(final String jar, final ClassHierarchyIndex hierarchy) {
+        synchronized (this.hierarchies) {
+            this.hierarchies.put(jar, hierarchy);
+        }
+    }
+
+    private static <V> Map<String, V> lru(final int capacity) {
+        return new LinkedHashMap<String, V>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<String, V> eldest) {
+                return this.size() > capacity;
+            }
+        };
+    }
+
+}
@@ -0,0 +1,268 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package org.cadixdev.survey.cli;
+
+import org.cadixdev.survey.util.AtomicFiles;
+import org.cadixdev.survey.util.Digests;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+
+/**
+ * A resident Survey process, that runs jobs submitted to it - so they
+ * needn't pay for starting the JVM, parsing the same mappings and
+ * configuration, or warming up the JIT, every time.
+ * <p>
+ * The daemon only listens on the loopback interface, and runs one job at
+ * a time. A job is a set of command line arguments, along with the
+ * working directory to resolve them against; its output is streamed back
+ * to the client as it's printed, followed by its exit status.
+ * <p>
+ * A job can have the daemon read and write files as the daemon's user, so
+ * the daemon only runs jobs that present its token. The token is generated
+ * afresh each time the daemon starts, and written to a file only the
+ * daemon's user can read - so only they can submit jobs.
+ *
+ * @author Jamie Mansfield
+ * @since 0.2.0
+ * @see SurveyCache
+ */
+public final class SurveyDaemon {
+
+    /**
+     * The port the daemon listens on, by default.
+     */
+    public static final int DEFAULT_PORT = 25590;
+
+    private static final int MAGIC = 0x53564A42; // SVJB
+    private static final int VERSION = 2;
+
+    private static final int CACHE_CAPACITY = 16;
+
+    private static final int EXIT = 0;
+    private static final int OUT = 1;
+    private static final int ERR = 2;
+
+    /**
+     * Gets the path of the token file of the daemon on the given port, by
+     * default.
+     *
+     * @param port The port the daemon listens on
+     * @return The path of the token file
+     */
+    public static Path getDefaultTokenPath(final int port) {
+        return Paths.get(System.getProperty("user.home"), ".survey", "daemon-" + port + ".token");
+    }
+
+    /**
+     * Runs the daemon, until it's killed.
+     *
+     * @param port The port to listen on
+     * @param tokenPath The path to write the daemon's token to
+     * @param out The stream to log to
+     * @param err The stream to log errors to
+     * @return The exit status, should the daemon fail
+     */
+    public static int serve(final int port, final Path tokenPath, final PrintStream out, final PrintStream err) {
+        final SurveyCache cache = new SurveyCache(CACHE_CAPACITY);
+        try (final ServerSocket server = new ServerSocket()) {
+            server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+            final String token = writeToken(tokenPath);
+            out.println("Survey daemon listening on port " + server.getLocalPort());
+
+            while (true) {
+                try (final Socket socket = server.accept()) {
+                    handle(socket, token, cache, err);
+                }
+                catch (final IOException ex) {
+                    // A misbehaving client mustn't take down the daemon
+                    err.println("Failed to run job!");
+                    ex.printStackTrace(err);
+                }
+            }
+        }
+        catch (final IOException ex) {
+            err.println("Failed to start daemon!");
+            ex.printStackTrace(err);
+            return -1;
+        }
+    }
+
+    private static String writeToken(final Path tokenPath) throws IOException {
+        final byte[] bytes = new byte[32];
+        new SecureRandom().nextBytes(bytes);
+        final String token = Digests.hex(bytes);
+
+        AtomicFiles.write(tokenPath, temp -> {
+            // Only the daemon's user may read the token
+            if (Files.getFileAttributeView(temp, PosixFileAttributeView.class) != null) {
+                Files.setPosixFilePermissions(temp, PosixFilePermissions.fromString("rw-------"));
+            }
+            Files.write(temp, token.getBytes(StandardCharsets.UTF_8));
+        });
+        return token;
+    }
+
+    private static void handle(final Socket socket, final String token, final SurveyCache cache, final PrintStream log)
+            throws IOException {
+        final DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        final DataOutputStream response = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+
+        if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+            throw new IOException("Not a Survey job!");
+        }
+        // Compared in constant time, so the token can't be guessed a byte at a time
+        if (!MessageDigest.isEqual(token.getBytes(StandardCharsets.UTF_8), in.readUTF().getBytes(StandardCharsets.UTF_8))) {
+            final byte[] message = "The daemon's token doesn't match - is this the user running the daemon?\n"
+                    .getBytes(StandardCharsets.UTF_8);
+            response.writeByte(ERR);
+            response.writeInt(message.length);
+            response.write(message);
+            response.writeByte(EXIT);
+            response.writeInt(-1);
+            response.flush();
+            throw new IOException("Rejected a job with the wrong token!");
+        }
+        final Path workingDirectory = Paths.get(in.readUTF());
+        final String[] args = new String[in.readInt()];
+        for (int i = 0; i < args.length; i++) {
+            args[i] = in.readUTF();
+        }
+
+        final PrintStream out = new PrintStream(new BufferedOutputStream(new FrameOutputStream(response, OUT)), true, "UTF-8");
+        final PrintStream err = new PrintStream(new BufferedOutputStream(new FrameOutputStream(response, ERR)), true, "UTF-8");
+        int status;
+        try {
+            status = SurveyMain.run(args, workingDirectory, out, err, cache);
+        }
+        catch (final Throwable ex) {
+            // As the JVM would, should the job have been run on its own
+            ex.printStackTrace(err);
+            log.println("Job failed: " + ex);
+            status = 1;
+        }
+        out.flush();
+        err.flush();
+
+        synchronized (response) {
+            response.writeByte(EXIT);
+            response.writeInt(status);
+            response.flush();
+        }
+    }
+
+    /**
+     * Submits a job to a running daemon, printing its output as it runs.
+     *
+     * @param port The port the daemon is listening on
+     * @param tokenPath The path of the daemon's token
+     * @param args The command line arguments of the job
+     * @param workingDirectory The directory to resolve relative paths against
+     * @param out The stream to print output to
+     * @param err The stream to print errors to
+     * @return The exit status of the job
+     */
+    public static int submit(final int port, final Path tokenPath, final String[] args, final Path workingDirectory,
+                             final PrintStream out, final PrintStream err) {
+        final String token;
+        try {
+            token = new String(Files.readAllBytes(tokenPath), StandardCharsets.UTF_8).trim();
+        }
+        catch (final IOException ex) {
+            err.println("Failed to read the daemon's token - is the daemon running?");
+            ex.printStackTrace(err);
+            return -1;
+        }
+
+        try (final Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+            final DataOutputStream request = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            request.writeInt(MAGIC);
+            request.writeInt(VERSION);
+            request.writeUTF(token);
+            request.writeUTF(workingDirectory.toAbsolutePath().toString());
+            request.writeInt(args.length);
+            for (final String arg : args) {
+                request.writeUTF(arg);
+            }
+            request.flush();
+
+            final DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            while (true) {
+                final int type = in.readUnsignedByte();
+                if (type == EXIT) return in.readInt();
+
+                final byte[] frame = new byte[in.readInt()];
+                in.readFully(frame);
+                (type == ERR ? err : out).write(frame, 0, frame.length);
+            }
+        }
+        catch (final IOException ex) {
+            err.println("Failed to submit job to the daemon on port " + port + "!");
+            ex.printStackTrace(err);
+            return -1;
+        }
+    }
+
+    /**
+     * An output stream that writes everything written to it as frames, on
+     * a stream shared with other frame streams.
+     */
+    private static final class FrameOutputStream extends OutputStream {
+
+        private final DataOutputStream out;
+        private final int type;
+
+        FrameOutputStream(final DataOutputStream out, final int type) {
+            this.out = out;
+            this.type = type;
+        }
+
+        @Override
+        public void write(final int b) throws IOException {
+            this.write(new byte[] { (byte) b }, 0, 1);
+        }
+
+        @Override
+        public void write(final byte[] b, final int off, final int len) throws IOException {
+            if (len == 0) return;
+            synchronized (this.out) {
+                this.out.writeByte(this.type);
+                this.out.writeInt(len);
+                this.out.write(b, off, len);
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            synchronized (this.out) {
+                this.out.flush();
+            }
+        }
+
+    }
+
+    private SurveyDaemon() {
+    }
+
+}
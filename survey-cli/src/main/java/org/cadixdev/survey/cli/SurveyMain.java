@@ -10,22 +10,48 @@ import static java.util.Arrays.asList;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
 import joptsimple.OptionException;
 import joptsimple.OptionParser;
 import joptsimple.OptionSet;
 import joptsimple.OptionSpec;
-import org.cadixdev.atlas.jar.JarFile;
+import org.cadixdev.lorenz.MappingSet;
 import org.cadixdev.lorenz.io.MappingFormat;
 import org.cadixdev.lorenz.io.MappingFormats;
 import org.cadixdev.survey.Survey;
+import org.cadixdev.survey.SurveyStats;
 import org.cadixdev.survey.cli.util.MappingFormatValueConverter;
 import org.cadixdev.survey.cli.util.PathValueConverter;
-import org.cadixdev.survey.config.SurveyDeserialiser;
+import org.cadixdev.survey.config.SurveyTypeAdapterFactory;
+import org.cadixdev.survey.hierarchy.ClassHierarchyCache;
+import org.cadixdev.survey.hierarchy.ClassHierarchyIndex;
+import org.cadixdev.survey.jar.MappedJar;
+import org.cadixdev.survey.jar.TransformCache;
+import org.cadixdev.survey.mappings.BinaryMappingFormat;
+import org.cadixdev.survey.mappings.FilteredMappings;
+import org.cadixdev.survey.mappings.JarClassIndex;
+import org.cadixdev.survey.util.Digests;
 
 import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.PrintStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 /**
  * The Main-Class behind Survey, a simple remapping tool.
@@ -39,12 +65,37 @@ public final class SurveyMain {
     private static final String VERSION = "${VERSION}";
 
     public static void main(final String[] args) {
+        final int status = run(args, Paths.get("").toAbsolutePath(), System.out, System.err, null);
+        if (status != 0) System.exit(status);
+    }
+
+    /**
+     * Runs Survey, as it would be from the command line.
+     *
+     * @param args The command line arguments
+     * @param workingDirectory The directory to resolve relative paths against
+     * @param out The stream to print output to
+     * @param err The stream to print errors to
+     * @param cache The cache to reuse mappings, configurations, and class
+     *              hierarchies from, or {@code null} to read them afresh
+     * @return The exit status
+     */
+    public static int run(final String[] args, final Path workingDirectory, final PrintStream out, final PrintStream err,
+                          final SurveyCache cache) {
         final OptionParser parser = new OptionParser();
 
         // Modes
         final OptionSpec<Void> helpSpec = parser.acceptsAll(asList("?", "help"), "Show the help").forHelp();
         final OptionSpec<Void> versionSpec = parser.accepts("version", "Shows the version");
         final OptionSpec<Void> noMapSpec = parser.accepts("no-map", "Do not map the jar");
+        final OptionSpec<Void> fusedSpec = parser.accepts("fused", "Run all of the mappers in a single pass over the jar");
+        final OptionSpec<Void> filterMappingsSpec = parser.accepts("filter-mappings",
+                "Only load the mappings needed by the input jar (and so only write those)");
+        final OptionSpec<Void> daemonSpec = parser.accepts("daemon",
+                "Run as a daemon, keeping mappings, configurations, and class hierarchies in memory between jobs");
+        final OptionSpec<Void> forceSpec = parser.accepts("force",
+                "Run, even should the inputs be unchanged since the last run, and its outputs intact");
+        final OptionSpec<Void> submitSpec = parser.accepts("submit", "Submit the job to a running daemon");
 
         // Options
         final OptionSpec<MappingFormat> mappingFormatSpec = parser.acceptsAll(asList("mapping-format", "f"), "The mapping format")
@@ -63,28 +114,91 @@ public final class SurveyMain {
         final OptionSpec<Path> mappingsOutSpec = parser.acceptsAll(asList("mappings-out", "s"), "The output mappings")
                 .withRequiredArg()
                 .withValuesConvertedBy(PathValueConverter.INSTANCE);
+        final OptionSpec<MappingFormat> mappingsOutFormatSpec = parser.accepts("mappings-out-format", "The output mapping format, if not the same as the input")
+                .withRequiredArg()
+                .withValuesConvertedBy(MappingFormatValueConverter.INSTANCE);
         final OptionSpec<Path> configSpec = parser.acceptsAll(asList("config", "c"), "The Survey configuration")
                 .withRequiredArg()
                 .withValuesConvertedBy(PathValueConverter.INSTANCE);
+        final OptionSpec<Path> batchSpec = parser.accepts("batch",
+                "A JSON manifest of jars to remap together, as [{\"in\": ..., \"out\": ...}] - relative to the manifest" +
+                        " (not with --filter-mappings, or --hierarchy-cache)")
+                .withRequiredArg()
+                .withValuesConvertedBy(PathValueConverter.INSTANCE);
+        final OptionSpec<Path> incrementalSpec = parser.accepts("incremental",
+                "A file to cache the mappings of each class in, so later runs only map the classes that changed")
+                .withRequiredArg()
+                .withValuesConvertedBy(PathValueConverter.INSTANCE);
+        final OptionSpec<Path> transformCacheSpec = parser.accepts("transform-cache",
+                "A directory to cache remapped classes in, so later runs needn't remap those that haven't changed")
+                .withRequiredArg()
+                .withValuesConvertedBy(PathValueConverter.INSTANCE);
+        final OptionSpec<Long> transformCacheSizeSpec = parser.accepts("transform-cache-size",
+                "The size, in MiB, past which the least recently used classes are evicted from the transform cache")
+                .withRequiredArg()
+                .ofType(Long.class)
+                .defaultsTo(1024L);
+        final OptionSpec<Path> hierarchyCacheSpec = parser.accepts("hierarchy-cache", "A directory to cache the class hierarchies of jars in")
+                .withRequiredArg()
+                .withValuesConvertedBy(PathValueConverter.INSTANCE);
+        final OptionSpec<Path> statsSpec = parser.accepts("stats",
+                "A file to write a JSON report of the timings, and throughput, of each phase of the run to")
+                .withRequiredArg()
+                .withValuesConvertedBy(PathValueConverter.INSTANCE);
+        final OptionSpec<Integer> threadsSpec = parser.acceptsAll(asList("threads", "t"), "The number of threads to map with")
+                .withRequiredArg()
+                .ofType(Integer.class)
+                .defaultsTo(1);
+        final OptionSpec<Integer> daemonPortSpec = parser.accepts("daemon-port", "The (loopback) port of the daemon")
+                .withRequiredArg()
+                .ofType(Integer.class)
+                .defaultsTo(SurveyDaemon.DEFAULT_PORT);
+        final OptionSpec<Path> daemonTokenSpec = parser.accepts("daemon-token",
+                "The file the daemon keeps its token in, which jobs must present (by default, in ~/.survey)")
+                .withRequiredArg()
+                .withValuesConvertedBy(PathValueConverter.INSTANCE);
 
         final OptionSet options;
         try {
             options = parser.parse(args);
         }
         catch (final OptionException ex) {
-            System.err.println("Failed to parse OptionSet! Exiting...");
-            ex.printStackTrace(System.err);
-            System.exit(-1);
-            return;
+            err.println("Failed to parse OptionSet! Exiting...");
+            ex.printStackTrace(err);
+            return -1;
         }
 
+        // Paths are relative to whoever is running Survey - which, for the
+        // daemon, isn't the daemon itself
+        final Function<OptionSpec<Path>, Path> path = spec ->
+                options.has(spec) ? workingDirectory.resolve(options.valueOf(spec)) : null;
+        final Supplier<Path> daemonToken = () -> options.has(daemonTokenSpec) ?
+                path.apply(daemonTokenSpec) :
+                SurveyDaemon.getDefaultTokenPath(options.valueOf(daemonPortSpec));
+        final SurveyStats stats = options.has(statsSpec) ? new SurveyStats() : null;
+        final Path statsPath = path.apply(statsSpec);
+
+        final MappingFormat mappingFormat = options.valueOf(mappingFormatSpec);
+        final MappingFormat mappingsOutFormat = options.has(mappingsOutFormatSpec) ?
+                options.valueOf(mappingsOutFormatSpec) :
+                mappingFormat;
+        final Path mappingsInPath = path.apply(mappingsInSpec);
+        final Path mappingsOutPath = path.apply(mappingsOutSpec);
+        final Path configPath = path.apply(configSpec);
+
+        // Everything the outputs of a run depend on, besides its inputs
+        final String runOptions = ":no-map=" + options.has(noMapSpec) +
+                ":filter-mappings=" + options.has(filterMappingsSpec) +
+                ":mappings-out=" + mappingsOutPath +
+                ":mappings-out-format=" + mappingsOutFormat.getClass().getName();
+
         if (options.has(helpSpec)) {
             try {
-                parser.printHelpOn(System.out);
+                parser.printHelpOn(out);
             } catch (final IOException ex) {
-                System.err.println("Failed to print help information!");
-                ex.printStackTrace(System.err);
-                System.exit(-1);
+                err.println("Failed to print help information!");
+                ex.printStackTrace(err);
+                return -1;
             }
         }
         // see https://www.gnu.org/prep/standards/standards.html#g_t_002d_002dversion
@@ -97,57 +211,169 @@ public final class SurveyMain {
                     "Survey is made available under the terms of the Mozilla Public License, giving",
                     "you the freedom to use, copy, and distribute Survey to others, in addition to",
                     "the right to distribute modified versions."
-            ).forEach(System.out::println);
+            ).forEach(out::println);
         }
-        else if (options.has(jarInSpec)) {
-            final Path jarInPath = options.valueOf(jarInSpec);
-            final Path jarOutPath = options.valueOf(jarOutSpec);
-            if (Files.notExists(jarInPath)) {
-                throw new RuntimeException("Input jar does not exist!");
+        else if (options.has(daemonSpec)) {
+            if (cache != null) {
+                err.println("The daemon can't start another daemon!");
+                return -1;
+            }
+            return SurveyDaemon.serve(options.valueOf(daemonPortSpec), daemonToken.get(), out, err);
+        }
+        else if (options.has(submitSpec)) {
+            final String[] job = Arrays.stream(args)
+                    .filter(arg -> !arg.equals("--submit"))
+                    .toArray(String[]::new);
+            return SurveyDaemon.submit(options.valueOf(daemonPortSpec), daemonToken.get(), job, workingDirectory,
+                    out, err);
+        }
+        // Remap many jars at once, sharing everything between them
+        else if (options.has(batchSpec)) {
+            // The jars share one set of mappings, and one class hierarchy - neither
+            // of which belong to any one jar
+            if (options.has(filterMappingsSpec) || options.has(hierarchyCacheSpec)) {
+                err.println("--filter-mappings and --hierarchy-cache can't be used with --batch!");
+                return -1;
             }
 
-            final MappingFormat mappingFormat = options.valueOf(mappingFormatSpec);
-            final Path mappingsInPath = options.valueOf(mappingsInSpec);
-            final Path mappingsOutPath = options.valueOf(mappingsOutSpec);
+            final Path batchPath = path.apply(batchSpec);
+            if (Files.notExists(batchPath)) {
+                throw new RuntimeException("Batch manifest does not exist!");
+            }
 
-            final Path configPath = options.valueOf(configSpec);
+            final Map<Path, Path> jars;
+            try {
+                jars = readBatch(batchPath);
+            }
+            catch (final IOException | JsonParseException ex) {
+                err.println("Failed to read batch manifest!");
+                ex.printStackTrace(err);
+                return -1;
+            }
 
-            final Survey survey = new Survey();
-            final Gson gson = new GsonBuilder()
-                    .registerTypeAdapter(Survey.class, new SurveyDeserialiser(survey))
-                    .create();
+            final List<Path> inputs = new ArrayList<>(jars.keySet());
+            inputs.add(mappingsInPath);
+            inputs.add(configPath);
+            final List<Path> outputs = new ArrayList<>(jars.values());
+            outputs.add(mappingsOutPath);
 
-            if (mappingsInPath != null) {
-                if (Files.notExists(mappingsInPath)) {
-                    throw new RuntimeException("Input mappings do not exist!");
+            // Skip the run entirely, should it have already been done
+            final Path manifestPath = options.has(forceSpec) ? null : RunManifest.getPath(outputs.toArray(new Path[0]));
+            String runFingerprint = null;
+            if (manifestPath != null) {
+                try {
+                    final List<String> jarHashes = new ArrayList<>(jars.size());
+                    for (final Path jar : jars.keySet()) {
+                        jarHashes.add(Digests.sha256(jar));
+                    }
+                    runFingerprint = fingerprint(mappingFormat, mappingsInPath, configPath, jarHashes,
+                            new ArrayList<>(jars.values()), runOptions);
+                    if (RunManifest.isUpToDate(manifestPath, runFingerprint)) {
+                        return skip(stats, statsPath, inputs, out, err);
+                    }
                 }
+                catch (final IOException ex) {
+                    err.println("Failed to fingerprint the run!");
+                    ex.printStackTrace(err);
+                    return -1;
+                }
+            }
+
+            final MappingSet mappings = readInputMappings(mappingFormat, mappingsInPath, null, cache, stats, err);
+            if (mappings == null) return -1;
+            final Survey survey = createSurvey(mappings, options.has(fusedSpec), options.valueOf(threadsSpec),
+                    configPath, cache, stats, out, err);
+            if (survey == null) return -1;
+            if (!applyCaches(survey, mappingFormat, mappingsInPath, configPath, path.apply(incrementalSpec),
+                    path.apply(transformCacheSpec), options.valueOf(transformCacheSizeSpec), err)) {
+                return -1;
+            }
+
+            try {
+                survey.run(jars, !options.has(noMapSpec));
+            }
+            catch (final IOException ex) {
+                err.println("Failed to remap jars!");
+                ex.printStackTrace(err);
+                return -1;
+            }
+
+            if (!writeOutputMappings(survey, mappingsOutFormat, mappingsOutPath, stats, err)) return -1;
+            if (stats != null && !writeStats(stats, statsPath, inputs, outputs, false, err)) return -1;
+            if (manifestPath != null && !writeManifest(manifestPath, runFingerprint, outputs, err)) return -1;
+        }
+        else if (options.has(jarInSpec)) {
+            final Path jarInPath = path.apply(jarInSpec);
+            final Path jarOutPath = path.apply(jarOutSpec);
+            if (Files.notExists(jarInPath)) {
+                throw new RuntimeException("Input jar does not exist!");
+            }
+
+            final List<Path> inputs = asList(jarInPath, mappingsInPath, configPath);
+            final List<Path> outputs = asList(jarOutPath, mappingsOutPath);
 
+            // Skip the run entirely, should it have already been done
+            final Path manifestPath = options.has(forceSpec) ? null : RunManifest.getPath(jarOutPath, mappingsOutPath);
+            String jarHash = null;
+            String runFingerprint = null;
+            if (manifestPath != null) {
                 try {
-                    mappingFormat.read(survey.mappings(), mappingsInPath);
+                    jarHash = Digests.sha256(jarInPath);
+                    runFingerprint = fingerprint(mappingFormat, mappingsInPath, configPath,
+                            Collections.singletonList(jarHash), Collections.singletonList(jarOutPath), runOptions);
+                    if (RunManifest.isUpToDate(manifestPath, runFingerprint)) {
+                        return skip(stats, statsPath, inputs, out, err);
+                    }
                 }
                 catch (final IOException ex) {
-                    System.err.println("Failed to read input mappings!");
-                    ex.printStackTrace(System.err);
-                    System.exit(-1);
+                    err.println("Failed to fingerprint the run!");
+                    ex.printStackTrace(err);
+                    return -1;
                 }
             }
 
-            if (configPath != null) {
-                if (Files.notExists(configPath)) {
-                    throw new RuntimeException("Configuration does not exist!");
-                }
+            final MappingSet mappings = readInputMappings(mappingFormat, mappingsInPath,
+                    options.has(filterMappingsSpec) ? jarInPath : null, cache, stats, err);
+            if (mappings == null) return -1;
+            final Survey survey = createSurvey(mappings, options.has(fusedSpec), options.valueOf(threadsSpec),
+                    configPath, cache, stats, out, err);
+            if (survey == null) return -1;
+            if (!applyCaches(survey, mappingFormat, mappingsInPath, configPath, path.apply(incrementalSpec),
+                    path.apply(transformCacheSpec), options.valueOf(transformCacheSizeSpec), err)) {
+                return -1;
+            }
 
-                try (final BufferedReader reader = Files.newBufferedReader(configPath)) {
-                    gson.fromJson(reader, Survey.class);
+            // Reuse the class hierarchy of the jar, should it have been cached
+            final ClassHierarchyCache hierarchyCache = options.has(hierarchyCacheSpec) ?
+                    new ClassHierarchyCache(path.apply(hierarchyCacheSpec)) :
+                    null;
+            boolean hierarchyCached = false;
+            if (cache != null) {
+                try {
+                    if (jarHash == null) jarHash = Digests.sha256(jarInPath);
+                    final ClassHierarchyIndex hierarchy = cache.hierarchy(jarHash);
+                    survey.hierarchy(hierarchy);
+                    hierarchyCached = hierarchy != null;
+                }
+                catch (final IOException ex) {
+                    err.println("Failed to hash input jar!");
+                    ex.printStackTrace(err);
+                    return -1;
+                }
+            }
+            if (hierarchyCache != null && !hierarchyCached) {
+                try {
+                    final Optional<ClassHierarchyIndex> hierarchy = hierarchyCache.load(jarInPath);
+                    hierarchy.ifPresent(survey::hierarchy);
+                    hierarchyCached = hierarchy.isPresent();
                 }
                 catch (final IOException ex) {
-                    System.err.println("Failed to read configuration!");
-                    ex.printStackTrace(System.err);
-                    System.exit(-1);
+                    err.println("Failed to read cached class hierarchy, rebuilding it!");
+                    ex.printStackTrace(err);
                 }
             }
 
-            try (final JarFile jar = new JarFile(jarInPath)) {
+            try (final MappedJar jar = MappedJar.open(jarInPath)) {
                 // Map the jar, if required
                 if (!options.has(noMapSpec)) survey.map(jar);
 
@@ -155,34 +381,321 @@ public final class SurveyMain {
                 if (jarOutPath != null) {
                     survey.run(jar, jarOutPath, false);
                 }
+
+                if (!hierarchyCached && survey.hierarchy() != null) {
+                    if (hierarchyCache != null) hierarchyCache.save(jarInPath, survey.hierarchy());
+                    if (cache != null) cache.hierarchy(jarHash, survey.hierarchy());
+                }
             }
             catch (final IOException ex) {
-                System.err.println("Failed to read input jar!");
-                ex.printStackTrace(System.err);
-                System.exit(-1);
+                err.println("Failed to read input jar!");
+                ex.printStackTrace(err);
+                return -1;
             }
 
-            if (mappingsOutPath != null) {
-                try {
-                    mappingFormat.write(survey.mappings(), mappingsOutPath);
+            if (!writeOutputMappings(survey, mappingsOutFormat, mappingsOutPath, stats, err)) return -1;
+            if (stats != null && !writeStats(stats, statsPath, inputs, outputs, false, err)) return -1;
+            if (manifestPath != null && !writeManifest(manifestPath, runFingerprint, outputs, err)) return -1;
+        }
+        // Convert the mappings between formats, without a jar
+        else if (mappingsInPath != null && mappingsOutPath != null) {
+            if (Files.notExists(mappingsInPath)) {
+                throw new RuntimeException("Input mappings do not exist!");
+            }
+
+            try {
+                mappingsOutFormat.write(readMappings(mappingFormat, mappingsInPath), mappingsOutPath);
+            }
+            catch (final IOException ex) {
+                err.println("Failed to convert mappings!");
+                ex.printStackTrace(err);
+                return -1;
+            }
+        }
+        else {
+            try {
+                parser.printHelpOn(err);
+            }
+            catch (final IOException ex) {
+                err.println("Failed to print help information!");
+                ex.printStackTrace(err);
+            }
+            return -1;
+        }
+        return 0;
+    }
+
+    private static MappingSet readInputMappings(final MappingFormat format, final Path mappingsPath,
+                                                final Path filterJar, final SurveyCache cache,
+                                                final SurveyStats stats, final PrintStream err) {
+        if (mappingsPath == null) return MappingSet.create();
+        if (Files.notExists(mappingsPath)) {
+            throw new RuntimeException("Input mappings do not exist!");
+        }
+
+        try {
+            return time(stats, "mappings_in", () -> {
+                JarClassIndex index = null;
+                if (filterJar != null) {
+                    try (final MappedJar jar = MappedJar.open(filterJar)) {
+                        index = JarClassIndex.of(jar);
+                    }
                 }
-                catch (final IOException ex) {
-                    System.err.println("Failed to write output mappings!");
-                    ex.printStackTrace(System.err);
-                    System.exit(-1);
+
+                // Binary mappings are already cheap to open
+                if (cache != null && !(format instanceof BinaryMappingFormat)) {
+                    return cache.mappings(format, mappingsPath, index);
+                }
+                else if (index != null) {
+                    return FilteredMappings.read(format, mappingsPath, index);
+                }
+                else {
+                    return readMappings(format, mappingsPath);
                 }
+            });
+        }
+        catch (final IOException ex) {
+            err.println("Failed to read input mappings!");
+            ex.printStackTrace(err);
+            return null;
+        }
+    }
+
+    private static Survey createSurvey(final MappingSet mappings, final boolean fused, final int threads,
+                                       final Path configPath, final SurveyCache cache, final SurveyStats stats,
+                                       final PrintStream out, final PrintStream err) {
+        final Survey survey = new Survey(mappings)
+                .fused(fused)
+                .threads(threads)
+                .stats(stats)
+                .out(out);
+        return time(stats, "config", () -> configure(survey, configPath, cache, err)) ? survey : null;
+    }
+
+    private static boolean applyCaches(final Survey survey, final MappingFormat format, final Path mappingsPath,
+                                       final Path configPath, final Path incrementalPath,
+                                       final Path transformCachePath, final long transformCacheSize,
+                                       final PrintStream err) {
+        try {
+            if (incrementalPath != null) {
+                survey.incremental(incrementalPath, fingerprint(format, mappingsPath, configPath));
+            }
+            if (transformCachePath != null) {
+                survey.transformCache(new TransformCache(transformCachePath, transformCacheSize << 20,
+                        fingerprint(configPath)));
             }
         }
-        else {
+        catch (final IOException ex) {
+            err.println("Failed to fingerprint the configuration!");
+            ex.printStackTrace(err);
+            return false;
+        }
+        return true;
+    }
+
+    private static boolean writeOutputMappings(final Survey survey, final MappingFormat format,
+                                               final Path mappingsPath, final SurveyStats stats,
+                                               final PrintStream err) {
+        if (mappingsPath == null) return true;
+        try {
+            time(stats, "mappings_out", () -> {
+                format.write(survey.mappings(), mappingsPath);
+                return null;
+            });
+        }
+        catch (final IOException ex) {
+            err.println("Failed to write output mappings!");
+            ex.printStackTrace(err);
+            return false;
+        }
+        return true;
+    }
+
+    private static int skip(final SurveyStats stats, final Path statsPath, final List<Path> inputs,
+                            final PrintStream out, final PrintStream err) {
+        out.println("Inputs are unchanged since the last run, and its outputs are intact - skipping.");
+        // Nothing is written by a skipped run
+        if (stats != null && !writeStats(stats, statsPath, inputs, Collections.emptyList(), true, err)) {
+            return -1;
+        }
+        return 0;
+    }
+
+    private static boolean writeManifest(final Path manifestPath, final String runFingerprint,
+                                         final List<Path> outputs, final PrintStream err) {
+        final List<Path> written = new ArrayList<>(outputs.size());
+        for (final Path output : outputs) {
+            if (output != null) written.add(output);
+        }
+        try {
+            RunManifest.write(manifestPath, runFingerprint, written);
+        }
+        catch (final IOException ex) {
+            err.println("Failed to write run manifest!");
+            ex.printStackTrace(err);
+            return false;
+        }
+        return true;
+    }
+
+    private static boolean configure(final Survey survey, final Path configPath, final SurveyCache cache,
+                                     final PrintStream err) {
+        if (configPath == null) return true;
+        if (Files.notExists(configPath)) {
+            throw new RuntimeException("Configuration does not exist!");
+        }
+
+        final Gson gson = new GsonBuilder()
+                .registerTypeAdapterFactory(new SurveyTypeAdapterFactory(survey))
+                .create();
+        if (cache != null) {
             try {
-                parser.printHelpOn(System.err);
+                gson.fromJson(cache.config(configPath), Survey.class);
             }
             catch (final IOException ex) {
-                System.err.println("Failed to print help information!");
-                ex.printStackTrace(System.err);
+                err.println("Failed to read configuration!");
+                ex.printStackTrace(err);
+                return false;
             }
-            System.exit(-1);
         }
+        else {
+            try (final BufferedReader reader = Files.newBufferedReader(configPath)) {
+                gson.fromJson(reader, Survey.class);
+            }
+            catch (final IOException ex) {
+                err.println("Failed to read configuration!");
+                ex.printStackTrace(err);
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static <T, E extends Exception> T time(final SurveyStats stats, final String name,
+                                                   final SurveyStats.Timed<T, E> action) throws E {
+        return SurveyStats.time(stats, name, Collections.emptyList(), -1, action);
+    }
+
+    private static boolean writeStats(final SurveyStats stats, final Path statsPath, final List<Path> inputs,
+                                      final List<Path> outputs, final boolean skipped, final PrintStream err) {
+        try {
+            for (final Path input : inputs) {
+                if (input != null && Files.exists(input)) stats.read(Files.size(input));
+            }
+            for (final Path output : outputs) {
+                if (output != null && Files.exists(output)) stats.written(Files.size(output));
+            }
+        }
+        catch (final IOException ex) {
+            err.println("Failed to measure inputs and outputs!");
+            ex.printStackTrace(err);
+            return false;
+        }
+
+        final long wallTime = stats.getWallTime();
+        final JsonObject root = new JsonObject();
+        root.addProperty("version", VERSION);
+        root.addProperty("skipped", skipped);
+        root.addProperty("wall_ms", millis(wallTime));
+        root.addProperty("cpu_ms", millis(stats.getCpuTime()));
+        root.addProperty("classes", stats.getClasses());
+        root.addProperty("classes_per_second", perSecond(stats.getClasses(), wallTime));
+        root.addProperty("bytes_read", stats.getBytesRead());
+        root.addProperty("bytes_written", stats.getBytesWritten());
+        root.addProperty("peak_heap_bytes", stats.getPeakHeap());
+
+        final JsonObject blacklisted = new JsonObject();
+        stats.getBlacklisted().forEach(blacklisted::addProperty);
+        root.add("blacklisted", blacklisted);
+
+        final JsonArray phases = new JsonArray();
+        for (final SurveyStats.Phase phase : stats.getPhases()) {
+            final JsonObject object = new JsonObject();
+            object.addProperty("name", phase.getName());
+            if (!phase.getMappers().isEmpty()) {
+                final JsonArray mappers = new JsonArray();
+                phase.getMappers().forEach(mappers::add);
+                object.add("mappers", mappers);
+            }
+            object.addProperty("wall_ms", millis(phase.getWallTime()));
+            object.addProperty("cpu_ms", millis(phase.getCpuTime()));
+            if (phase.getClasses() != -1) {
+                object.addProperty("classes", phase.getClasses());
+                object.addProperty("classes_per_second", perSecond(phase.getClasses(), phase.getWallTime()));
+            }
+            phases.add(object);
+        }
+        root.add("phases", phases);
+
+        try (final BufferedWriter writer = Files.newBufferedWriter(statsPath)) {
+            new GsonBuilder().setPrettyPrinting().create().toJson(root, writer);
+        }
+        catch (final IOException ex) {
+            err.println("Failed to write stats!");
+            ex.printStackTrace(err);
+            return false;
+        }
+        return true;
+    }
+
+    private static double millis(final long nanos) {
+        return nanos == -1 ? -1 : nanos / 1e6;
+    }
+
+    private static double perSecond(final long classes, final long nanos) {
+        return nanos <= 0 ? 0 : classes * 1e9 / nanos;
+    }
+
+    private static String fingerprint(final MappingFormat format, final Path mappings, final Path config)
+            throws IOException {
+        // Everything the mappings depend on, besides the jar itself
+        return fingerprint(config) + ':' + format.getClass().getName() +
+                ':' + (mappings != null ? Digests.sha256(mappings) : "");
+    }
+
+    private static String fingerprint(final Path config) throws IOException {
+        return VERSION + ':' + (config != null ? Digests.sha256(config) : "");
+    }
+
+    private static String fingerprint(final MappingFormat format, final Path mappings, final Path config,
+                                      final List<String> jarHashes, final List<Path> jarOutputs,
+                                      final String options) throws IOException {
+        final StringBuilder fingerprint = new StringBuilder(fingerprint(format, mappings, config));
+        for (int i = 0; i < jarHashes.size(); i++) {
+            fingerprint.append(':').append(jarHashes.get(i)).append(":jar-out=").append(jarOutputs.get(i));
+        }
+        return fingerprint.append(options).toString();
+    }
+
+    private static Map<Path, Path> readBatch(final Path manifest) throws IOException {
+        final JsonElement root;
+        try (final BufferedReader reader = Files.newBufferedReader(manifest)) {
+            root = JsonParser.parseReader(reader);
+        }
+        if (!root.isJsonArray()) throw new JsonParseException("Batch manifest must be an array!");
+
+        final Path directory = manifest.toAbsolutePath().getParent();
+        final Map<Path, Path> jars = new LinkedHashMap<>();
+        for (final JsonElement element : root.getAsJsonArray()) {
+            if (!element.isJsonObject()) throw new JsonParseException("Batch jobs must be objects!");
+            final JsonObject job = element.getAsJsonObject();
+            if (!job.has("in") || !job.has("out")) throw new JsonParseException("Batch jobs need an in and an out!");
+
+            final Path in = directory.resolve(job.get("in").getAsString());
+            if (Files.notExists(in)) {
+                throw new RuntimeException("Input jar does not exist: " + in);
+            }
+            jars.put(in, directory.resolve(job.get("out").getAsString()));
+        }
+        return jars;
+    }
+
+    private static MappingSet readMappings(final MappingFormat format, final Path path) throws IOException {
+        // Binary mappings are memory-mapped, and only read as they're needed
+        if (format instanceof BinaryMappingFormat) {
+            return BinaryMappingFormat.open(path);
+        }
+        return format.read(MappingSet.create(), path);
     }
 
     private SurveyMain() {
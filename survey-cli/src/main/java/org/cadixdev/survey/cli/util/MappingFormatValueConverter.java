@@ -9,9 +9,11 @@ package org.cadixdev.survey.cli.util;
 import joptsimple.ValueConverter;
 import org.cadixdev.lorenz.io.MappingFormat;
 import org.cadixdev.lorenz.io.MappingFormats;
+import org.cadixdev.survey.mappings.BinaryMappingFormat;
 
 /**
- * An implementation of {@link ValueConverter} for handling {@link MappingFormat}s.
+ * An implementation of {@link ValueConverter} for handling {@link MappingFormat}s,
+ * including Survey's own {@link BinaryMappingFormat}.
  *
  * @author Jamie Mansfield
  * @since 0.2.0
@@ -22,6 +24,7 @@ public final class MappingFormatValueConverter implements ValueConverter<Mapping
 
     @Override
     public MappingFormat convert(final String value) {
+        if (BinaryMappingFormat.ID.equals(value)) return BinaryMappingFormat.INSTANCE;
         return MappingFormats.byId(value);
     }
 
@@ -0,0 +1,98 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package org.cadixdev.survey.cli.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.cadixdev.survey.cli.RunManifest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+final class RunManifestTest {
+
+    private Path directory;
+    private Path jar;
+    private Path mappings;
+    private Path manifest;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        this.directory = Files.createTempDirectory("survey");
+        this.jar = Files.write(this.directory.resolve("out.jar"), new byte[] { 1, 2, 3 });
+        this.mappings = Files.write(this.directory.resolve("out.srg"), "CL: a b".getBytes(StandardCharsets.UTF_8));
+        this.manifest = RunManifest.getPath(this.jar, this.mappings);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        try (final Stream<Path> files = Files.walk(this.directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Test
+    void beside() {
+        assertEquals(this.directory.resolve("out.jar.survey.json"), RunManifest.getPath(this.jar, this.mappings));
+        assertEquals(this.directory.resolve("out.srg.survey.json"), RunManifest.getPath(null, this.mappings));
+        assertEquals(null, RunManifest.getPath(null, null));
+    }
+
+    @Test
+    void upToDate() throws IOException {
+        assertFalse(RunManifest.isUpToDate(this.manifest, "a"));
+
+        RunManifest.write(this.manifest, "a", Arrays.asList(this.jar, this.mappings));
+        assertTrue(RunManifest.isUpToDate(this.manifest, "a"));
+    }
+
+    @Test
+    void changedInputs() throws IOException {
+        RunManifest.write(this.manifest, "a", Arrays.asList(this.jar, this.mappings));
+        assertFalse(RunManifest.isUpToDate(this.manifest, "b"));
+    }
+
+    @Test
+    void tamperedOutputs() throws IOException {
+        RunManifest.write(this.manifest, "a", Arrays.asList(this.jar, this.mappings));
+
+        Files.write(this.mappings, "CL: a c".getBytes(StandardCharsets.UTF_8));
+        assertFalse(RunManifest.isUpToDate(this.manifest, "a"));
+
+        Files.delete(this.mappings);
+        assertFalse(RunManifest.isUpToDate(this.manifest, "a"));
+    }
+
+    @Test
+    void malformedManifest() throws IOException {
+        for (final String json : new String[] {
+                "not json {",
+                "[]",
+                "{}",
+                "{\"fingerprint\": {}, \"outputs\": {}}",
+                "{\"fingerprint\": [\"a\"], \"outputs\": {}}",
+                "{\"fingerprint\": \"a\", \"outputs\": []}",
+                "{\"fingerprint\": \"a\", \"outputs\": {\"out.jar\": null}}",
+                "{\"fingerprint\": \"a\", \"outputs\": {\"out.jar\": {}}}",
+                "{\"fingerprint\": \"a\", \"outputs\": {\"out.jar\": 1}}",
+        }) {
+            Files.write(this.manifest, json.getBytes(StandardCharsets.UTF_8));
+            assertFalse(RunManifest.isUpToDate(this.manifest, "a"), json);
+        }
+    }
+
+}
@@ -0,0 +1,101 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package org.cadixdev.survey.cli.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.cadixdev.survey.cli.SurveyDaemon;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+final class SurveyDaemonTest {
+
+    private static Path directory;
+    private static Path token;
+    private static int port;
+
+    @BeforeAll
+    static void serve() throws IOException, InterruptedException {
+        directory = Files.createTempDirectory("survey");
+        token = directory.resolve("daemon.token");
+        try (final ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+
+        final PrintStream log = new PrintStream(new ByteArrayOutputStream(), true, "UTF-8");
+        final Thread daemon = new Thread(() -> SurveyDaemon.serve(port, token, log, log), "Survey Daemon");
+        daemon.setDaemon(true);
+        daemon.start();
+
+        // The token is written once the daemon is listening
+        for (int i = 0; i < 500 && Files.notExists(token); i++) {
+            Thread.sleep(10);
+        }
+        assertTrue(Files.exists(token));
+    }
+
+    @AfterAll
+    static void cleanUp() throws IOException {
+        try (final Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Test
+    void tokenIsPrivate() throws IOException {
+        if (Files.getFileAttributeView(token, PosixFileAttributeView.class) == null) return;
+        assertEquals(PosixFilePermissions.fromString("rw-------"), Files.getPosixFilePermissions(token));
+    }
+
+    @Test
+    void runsSubmittedJobs() throws IOException {
+        final Path in = Files.write(directory.resolve("in.srg"), "CL: a b\n".getBytes(StandardCharsets.UTF_8));
+        final Path out = directory.resolve("out.srg");
+
+        final ByteArrayOutputStream err = new ByteArrayOutputStream();
+        final int status = SurveyDaemon.submit(port, token, new String[] {
+                "--mappings-in", in.getFileName().toString(),
+                "--mappings-out", out.getFileName().toString()
+        }, directory, new PrintStream(new ByteArrayOutputStream()), new PrintStream(err));
+
+        assertEquals(0, status, err.toString("UTF-8"));
+        assertTrue(new String(Files.readAllBytes(out), StandardCharsets.UTF_8).contains("CL: a b"));
+    }
+
+    @Test
+    void rejectsTheWrongToken() throws IOException {
+        final Path wrong = Files.write(directory.resolve("wrong.token"), "0".getBytes(StandardCharsets.UTF_8));
+        final Path out = directory.resolve("rejected.srg");
+
+        final ByteArrayOutputStream err = new ByteArrayOutputStream();
+        final int status = SurveyDaemon.submit(port, wrong, new String[] {
+                "--mappings-in", "in.srg",
+                "--mappings-out", out.getFileName().toString()
+        }, directory, new PrintStream(new ByteArrayOutputStream()), new PrintStream(err));
+
+        assertEquals(-1, status);
+        assertTrue(err.toString("UTF-8").contains("token"));
+        assertFalse(Files.exists(out));
+    }
+
+}
@@ -11,10 +11,10 @@ import com.google.gson.JsonDeserializer;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParseException;
-import org.cadixdev.lorenz.MappingSet;
 import org.cadixdev.lorenz.util.Registry;
 import org.cadixdev.survey.Survey;
 import org.cadixdev.survey.config.mappings.MappingSetTypeAdapter;
+import org.cadixdev.survey.context.Blacklist;
 import org.cadixdev.survey.context.SimpleSurveyContext;
 import org.cadixdev.survey.context.SurveyContext;
 import org.cadixdev.survey.config.context.SurveyContextDeserialiser;
@@ -24,11 +24,10 @@ import org.cadixdev.survey.config.patcher.provider.PatcherProvider;
 import org.cadixdev.survey.config.patcher.provider.PatcherProviders;
 
 import java.lang.reflect.Type;
-import java.util.ArrayList;
 
 public class SurveyDeserialiser implements JsonDeserializer<Survey> {
 
-    private static final String MAPPINGS = "mappings";
+    static final String MAPPINGS = "mappings";
 
     private static final String CONTEXTS = "contexts";
     private static final String DEFAULT_CONTEXT = "default_context";
@@ -71,7 +70,7 @@ public class SurveyDeserialiser implements JsonDeserializer<Survey> {
         // Read the mappings
         if (object.has(MAPPINGS)) {
             final MappingSetTypeAdapter mappingsTypeAdapter = new MappingSetTypeAdapter(this.survey.mappings());
-            mappingsTypeAdapter.deserialize(object.get(MAPPINGS), MappingSet.class, ctx);
+            mappingsTypeAdapter.fromJsonTree(object.get(MAPPINGS));
         }
 
         // Read the contexts
@@ -90,7 +89,7 @@ public class SurveyDeserialiser implements JsonDeserializer<Survey> {
             defaultCtx = contextDeserialiser.deserialize(object.get(DEFAULT_CONTEXT), SurveyContext.class, ctx);
         }
         else {
-            defaultCtx = new SimpleSurveyContext(this.survey.mappings(), new ArrayList<>());
+            defaultCtx = new SimpleSurveyContext(this.survey.mappings(), Blacklist.EMPTY);
         }
 
         // Read the mappers
@@ -0,0 +1,99 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package org.cadixdev.survey.config;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonDeserializationContext;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import org.cadixdev.survey.Survey;
+import org.cadixdev.survey.config.mappings.MappingSetTypeAdapter;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+
+/**
+ * A type adapter factory for Survey configurations, which streams the
+ * (potentially very large) mappings straight into the {@link Survey}'s
+ * mapping set - handing the remainder of the configuration to a
+ * {@link SurveyDeserialiser}.
+ *
+ * @author Jamie Mansfield
+ * @since 0.2.0
+ */
+public class SurveyTypeAdapterFactory implements TypeAdapterFactory {
+
+    private final Survey survey;
+    private final SurveyDeserialiser deserialiser;
+
+    public SurveyTypeAdapterFactory(final Survey survey) {
+        this(survey, new SurveyDeserialiser(survey));
+    }
+
+    public SurveyTypeAdapterFactory(final Survey survey, final SurveyDeserialiser deserialiser) {
+        this.survey = survey;
+        this.deserialiser = deserialiser;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> TypeAdapter<T> create(final Gson gson, final TypeToken<T> type) {
+        if (type.getRawType() != Survey.class) return null;
+        return (TypeAdapter<T>) new Adapter(gson);
+    }
+
+    private class Adapter extends TypeAdapter<Survey> {
+
+        private final JsonDeserializationContext context;
+
+        Adapter(final Gson gson) {
+            this.context = new JsonDeserializationContext() {
+                @Override
+                public <T> T deserialize(final JsonElement json, final Type typeOfT) throws JsonParseException {
+                    return gson.fromJson(json, typeOfT);
+                }
+            };
+        }
+
+        @Override
+        public Survey read(final JsonReader in) throws IOException {
+            if (in.peek() != JsonToken.BEGIN_OBJECT) throw new JsonParseException("Invalid Survey configuration!");
+
+            // Everything but the mappings is small, so is read into a tree
+            final JsonObject object = new JsonObject();
+            in.beginObject();
+            while (in.hasNext()) {
+                final String name = in.nextName();
+
+                if (SurveyDeserialiser.MAPPINGS.equals(name)) {
+                    new MappingSetTypeAdapter(SurveyTypeAdapterFactory.this.survey.mappings()).read(in);
+                }
+                else {
+                    object.add(name, JsonParser.parseReader(in));
+                }
+            }
+            in.endObject();
+
+            return SurveyTypeAdapterFactory.this.deserialiser.deserialize(object, Survey.class, this.context);
+        }
+
+        @Override
+        public void write(final JsonWriter out, final Survey value) {
+            throw new UnsupportedOperationException("Survey configurations can't be serialised!");
+        }
+
+    }
+
+}
@@ -12,6 +12,7 @@ import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParseException;
 import org.cadixdev.survey.Survey;
+import org.cadixdev.survey.context.Blacklist;
 import org.cadixdev.survey.context.CascadingSurveyContext;
 import org.cadixdev.survey.context.SimpleSurveyContext;
 import org.cadixdev.survey.context.SurveyContext;
@@ -59,7 +60,7 @@ public class SurveyContextDeserialiser implements JsonDeserializer<SurveyContext
             final List<String> blacklist = readBlacklist(object);
 
             final SurveyContext context = new CascadingSurveyContext(this.survey.mappings())
-                    .install(new SimpleSurveyContext(this.survey.mappings(), blacklist))
+                    .install(new SimpleSurveyContext(this.survey.mappings(), Blacklist.compile(blacklist)))
                     .install(parent);
 
             if (object.has(ID)) {
@@ -14,6 +14,8 @@ import com.google.gson.JsonParseException;
 import org.cadixdev.survey.mapper.intermediary.ClassIntermediaryMapper;
 
 import java.lang.reflect.Type;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 
 public class ClassIntermediaryMapperConfigDeserialiser implements JsonDeserializer<ClassIntermediaryMapper.Config> {
 
@@ -21,6 +23,7 @@ public class ClassIntermediaryMapperConfigDeserialiser implements JsonDeserializ
 
     private static final String PACKAGE = "package";
     private static final String FORMAT = "format";
+    private static final String LEDGER = "ledger";
     private static final String FORMAT_DEFAULT = "Class{id}_{obf}";
 
     @Override
@@ -39,7 +42,11 @@ public class ClassIntermediaryMapperConfigDeserialiser implements JsonDeserializ
                 object.get(PACKAGE).getAsString() :
                 "";
 
-        return new ClassIntermediaryMapper.Config(format, packageName);
+        final Path ledger = object.has(LEDGER) ?
+                Paths.get(object.get(LEDGER).getAsString()) :
+                null;
+
+        return new ClassIntermediaryMapper.Config(format, packageName, ledger);
     }
 
 }
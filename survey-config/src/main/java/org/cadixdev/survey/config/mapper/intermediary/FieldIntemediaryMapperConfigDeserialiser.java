@@ -14,12 +14,15 @@ import com.google.gson.JsonParseException;
 import org.cadixdev.survey.mapper.intermediary.FieldIntemediaryMapper;
 
 import java.lang.reflect.Type;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 
 public class FieldIntemediaryMapperConfigDeserialiser implements JsonDeserializer<FieldIntemediaryMapper.Config> {
 
     public static final FieldIntemediaryMapperConfigDeserialiser INSTANCE = new FieldIntemediaryMapperConfigDeserialiser();
 
     private static final String FORMAT = "format";
+    private static final String LEDGER = "ledger";
     private static final String FORMAT_DEFAULT = "field_{id}_{obf}";
 
     @Override
@@ -34,7 +37,11 @@ public class FieldIntemediaryMapperConfigDeserialiser implements JsonDeserialize
                 object.get(FORMAT).getAsString() :
                 FORMAT_DEFAULT;
 
-        return new FieldIntemediaryMapper.Config(format);
+        final Path ledger = object.has(LEDGER) ?
+                Paths.get(object.get(LEDGER).getAsString()) :
+                null;
+
+        return new FieldIntemediaryMapper.Config(format, ledger);
     }
 
 }
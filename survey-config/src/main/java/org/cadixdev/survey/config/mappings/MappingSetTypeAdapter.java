@@ -6,21 +6,18 @@
 
 package org.cadixdev.survey.config.mappings;
 
-import static me.jamiemansfield.gsonsimple.GsonObjects.getArray;
-import static me.jamiemansfield.gsonsimple.GsonObjects.getObject;
-import static me.jamiemansfield.gsonsimple.GsonObjects.getString;
-import static me.jamiemansfield.gsonsimple.GsonRequirements.requireArray;
-import static me.jamiemansfield.gsonsimple.GsonRequirements.requireObject;
-import static me.jamiemansfield.gsonsimple.GsonRequirements.requireString;
-
-import com.google.gson.JsonArray;
 import com.google.gson.JsonDeserializationContext;
 import com.google.gson.JsonDeserializer;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
 import com.google.gson.JsonSerializationContext;
 import com.google.gson.JsonSerializer;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
 import org.cadixdev.lorenz.MappingSet;
 import org.cadixdev.lorenz.model.ClassMapping;
 import org.cadixdev.lorenz.model.FieldMapping;
@@ -30,12 +27,26 @@ import org.cadixdev.lorenz.model.MethodMapping;
 import org.cadixdev.lorenz.model.MethodParameterMapping;
 import org.cadixdev.lorenz.model.TopLevelClassMapping;
 
+import java.io.IOException;
+import java.io.StringReader;
 import java.lang.reflect.Type;
+import java.util.LinkedHashMap;
 import java.util.Map;
-import java.util.function.BiConsumer;
 import java.util.function.Function;
 
-public class MappingSetTypeAdapter implements JsonSerializer<MappingSet>, JsonDeserializer<MappingSet> {
+/**
+ * A streaming type adapter for {@link MappingSet}s, reading mappings
+ * straight into the set - and writing them straight out of it - without
+ * building a tree of the JSON in memory.
+ * <p>
+ * The tree model is still supported, through {@link JsonSerializer} and
+ * {@link JsonDeserializer}, for use within other deserialisers.
+ *
+ * @author Jamie Mansfield
+ * @since 0.2.0
+ */
+public class MappingSetTypeAdapter extends TypeAdapter<MappingSet>
+        implements JsonSerializer<MappingSet>, JsonDeserializer<MappingSet> {
 
     // Common
     private static final String OBF = "obf";
@@ -60,179 +71,284 @@ public class MappingSetTypeAdapter implements JsonSerializer<MappingSet>, JsonDe
     }
 
     @Override
-    public MappingSet deserialize(final JsonElement json,
-                                  final Type typeOfT,
-                                  final JsonDeserializationContext context) throws JsonParseException {
-        final JsonArray array = requireArray(json, "MappingSet");
+    public MappingSet read(final JsonReader in) throws IOException {
+        expect(in, JsonToken.BEGIN_ARRAY, "MappingSet");
 
-        deserialiseClasses(array, this.mappings::getOrCreateTopLevelClassMapping);
+        in.beginArray();
+        while (in.hasNext()) {
+            readClass(in, this.mappings::getOrCreateTopLevelClassMapping);
+        }
+        in.endArray();
 
         return this.mappings;
     }
 
-    private static void deserialiseMapping(final JsonObject json, final Mapping<?, ?> mapping) {
-        if (json.has(DEOBF)) {
-            mapping.setDeobfuscatedName(getString(json, DEOBF));
-        }
+    @Override
+    public MappingSet deserialize(final JsonElement json,
+                                  final Type typeOfT,
+                                  final JsonDeserializationContext context) throws JsonParseException {
+        return this.fromJsonTree(json);
     }
 
-    private static void deserialiseClass(final JsonObject json, final ClassMapping<?, ?> mapping) {
-        deserialiseMapping(json, mapping);
+    private static void readClass(final JsonReader in, final Function<String, ClassMapping<?, ?>> provider)
+            throws IOException {
+        expect(in, JsonToken.BEGIN_OBJECT, "mapping");
 
-        // Fields
-        if (json.has(FIELDS)) {
-            final JsonArray fields = getArray(json, FIELDS);
-            deserialiseMappings(
-                    fields,
-                    obj -> {
-                        final String obf = getString(obj, OBF);
-
-                        if (obj.has(TYPE)) {
-                            final String type = getString(obj, TYPE);
-                            return mapping.getOrCreateFieldMapping(obf, type);
-                        }
-                        else {
-                            return mapping.getOrCreateFieldMapping(obf);
-                        }
-                    },
-                    // Fields don't have anything else, so not needed :)
-                    MappingSetTypeAdapter::deserialiseMapping
-            );
+        ClassMapping<?, ?> mapping = null;
+        String deobf = null;
+        JsonObject deferred = null;
+
+        in.beginObject();
+        while (in.hasNext()) {
+            final String name = in.nextName();
+
+            if (OBF.equals(name)) {
+                mapping = provider.apply(nextString(in, OBF));
+            }
+            else if (DEOBF.equals(name)) {
+                deobf = nextString(in, DEOBF);
+            }
+            else if (mapping == null && isMembers(name)) {
+                // Members can't be created before their class, so should they
+                // precede the obfuscated name, hold on to them until it's known.
+                // Survey always writes the name first, so this is only for
+                // hand-written mappings.
+                if (deferred == null) deferred = new JsonObject();
+                deferred.add(name, JsonParser.parseReader(in));
+            }
+            else {
+                readMembers(in, name, mapping);
+            }
         }
+        in.endObject();
 
-        // Methods
-        if (json.has(METHODS)) {
-            final JsonArray methods = getArray(json, METHODS);
-            deserialiseMethods(
-                    methods,
-                    obj -> mapping.getOrCreateMethodMapping(
-                            getString(obj, OBF),
-                            getString(obj, DESCRIPTOR)
-                    )
-            );
+        if (mapping == null) throw new JsonParseException("Class mapping missing obf name!");
+        if (deobf != null) {
+            mapping.setDeobfuscatedName(deobf);
         }
 
-        // Inner Classes
-        if (json.has(INNERS)) {
-            final JsonArray inners = getArray(json, INNERS);
-            deserialiseClasses(inners, mapping::getOrCreateInnerClassMapping);
+        if (deferred != null) {
+            for (final Map.Entry<String, JsonElement> members : deferred.entrySet()) {
+                try (final JsonReader replay = new JsonReader(new StringReader(members.getValue().toString()))) {
+                    readMembers(replay, members.getKey(), mapping);
+                }
+            }
         }
     }
 
-    private static void deserialiseMethod(final JsonObject json, final MethodMapping mapping) {
-        deserialiseMapping(json, mapping);
-
-        if (json.has(PARAMS)) {
-            final JsonObject params = getObject(json, PARAMS);
+    private static boolean isMembers(final String name) {
+        return FIELDS.equals(name) || METHODS.equals(name) || INNERS.equals(name);
+    }
 
-            for (final Map.Entry<String, JsonElement> param : params.entrySet()) {
-                final int index = Integer.parseInt(param.getKey());
-                final String deobf = requireString(param.getValue(), "param deobf name");
+    private static void readMembers(final JsonReader in, final String name, final ClassMapping<?, ?> mapping)
+            throws IOException {
+        switch (name) {
+            case FIELDS:
+                expect(in, JsonToken.BEGIN_ARRAY, FIELDS);
+                in.beginArray();
+                while (in.hasNext()) {
+                    readField(in, mapping);
+                }
+                in.endArray();
+                break;
+            case METHODS:
+                expect(in, JsonToken.BEGIN_ARRAY, METHODS);
+                in.beginArray();
+                while (in.hasNext()) {
+                    readMethod(in, mapping);
+                }
+                in.endArray();
+                break;
+            case INNERS:
+                expect(in, JsonToken.BEGIN_ARRAY, INNERS);
+                in.beginArray();
+                while (in.hasNext()) {
+                    readClass(in, mapping::getOrCreateInnerClassMapping);
+                }
+                in.endArray();
+                break;
+            default:
+                in.skipValue();
+                break;
+        }
+    }
 
-                mapping.getOrCreateParameterMapping(index)
-                        .setDeobfuscatedName(deobf);
+    private static void readField(final JsonReader in, final ClassMapping<?, ?> parent) throws IOException {
+        expect(in, JsonToken.BEGIN_OBJECT, "mapping");
+
+        String obf = null;
+        String deobf = null;
+        String type = null;
+
+        in.beginObject();
+        while (in.hasNext()) {
+            final String name = in.nextName();
+
+            switch (name) {
+                case OBF:
+                    obf = nextString(in, OBF);
+                    break;
+                case DEOBF:
+                    deobf = nextString(in, DEOBF);
+                    break;
+                case TYPE:
+                    type = nextString(in, TYPE);
+                    break;
+                default:
+                    in.skipValue();
+                    break;
             }
         }
+        in.endObject();
+
+        if (obf == null) throw new JsonParseException("Field mapping missing obf name!");
+        final FieldMapping mapping = type != null ?
+                parent.getOrCreateFieldMapping(obf, type) :
+                parent.getOrCreateFieldMapping(obf);
+        if (deobf != null) {
+            mapping.setDeobfuscatedName(deobf);
+        }
     }
 
-    private static <T extends Mapping<?, ?>> void deserialiseMappings(
-            final JsonArray json,
-            final Function<JsonObject, T> provider,
-            final BiConsumer<JsonObject, T> deserialiser) {
-        for (final JsonElement klass : json) {
-            final JsonObject obj = requireObject(klass, "mapping");
+    private static void readMethod(final JsonReader in, final ClassMapping<?, ?> parent) throws IOException {
+        expect(in, JsonToken.BEGIN_OBJECT, "mapping");
+
+        String obf = null;
+        String deobf = null;
+        String descriptor = null;
+        Map<Integer, String> params = null;
+
+        in.beginObject();
+        while (in.hasNext()) {
+            final String name = in.nextName();
+
+            switch (name) {
+                case OBF:
+                    obf = nextString(in, OBF);
+                    break;
+                case DEOBF:
+                    deobf = nextString(in, DEOBF);
+                    break;
+                case DESCRIPTOR:
+                    descriptor = nextString(in, DESCRIPTOR);
+                    break;
+                case PARAMS:
+                    expect(in, JsonToken.BEGIN_OBJECT, PARAMS);
+                    params = new LinkedHashMap<>();
+                    in.beginObject();
+                    while (in.hasNext()) {
+                        final int index = Integer.parseInt(in.nextName());
+                        params.put(index, nextString(in, "param deobf name"));
+                    }
+                    in.endObject();
+                    break;
+                default:
+                    in.skipValue();
+                    break;
+            }
+        }
+        in.endObject();
 
-            deserialiser.accept(obj, provider.apply(obj));
+        if (obf == null) throw new JsonParseException("Method mapping missing obf name!");
+        if (descriptor == null) throw new JsonParseException("Method mapping missing descriptor!");
+        final MethodMapping mapping = parent.getOrCreateMethodMapping(obf, descriptor);
+        if (deobf != null) {
+            mapping.setDeobfuscatedName(deobf);
+        }
+        if (params != null) {
+            for (final Map.Entry<Integer, String> param : params.entrySet()) {
+                mapping.getOrCreateParameterMapping(param.getKey())
+                        .setDeobfuscatedName(param.getValue());
+            }
         }
     }
 
-    private static void deserialiseClasses(
-            final JsonArray json,
-            final Function<String, ClassMapping<?, ?>> provider) {
-        deserialiseMappings(
-                json,
-                obj -> provider.apply(getString(obj, OBF)),
-                MappingSetTypeAdapter::deserialiseClass
-        );
+    private static void expect(final JsonReader in, final JsonToken token, final String name) throws IOException {
+        final JsonToken actual = in.peek();
+        if (actual != token) {
+            throw new JsonParseException("Expected " + name + " to be " + token + ", but was " + actual + "!");
+        }
     }
 
-    private static void deserialiseMethods(
-            final JsonArray json,
-            final Function<JsonObject, MethodMapping> provider) {
-        deserialiseMappings(
-                json,
-                provider,
-                MappingSetTypeAdapter::deserialiseMethod
-        );
+    private static String nextString(final JsonReader in, final String name) throws IOException {
+        final JsonToken token = in.peek();
+        if (token != JsonToken.STRING && token != JsonToken.NUMBER) {
+            throw new JsonParseException("Expected " + name + " to be a string, but was " + token + "!");
+        }
+        return in.nextString();
+    }
+
+    @Override
+    public void write(final JsonWriter out, final MappingSet src) throws IOException {
+        out.beginArray();
+        for (final TopLevelClassMapping klass : src.getTopLevelClassMappings()) {
+            writeClass(out, klass);
+        }
+        out.endArray();
     }
 
     @Override
     public JsonElement serialize(final MappingSet src,
                                  final Type typeOfSrc,
                                  final JsonSerializationContext context) {
-        final JsonArray array = new JsonArray();
-
-        for (final TopLevelClassMapping srcKlass : src.getTopLevelClassMappings()) {
-            array.add(serialiseClass(srcKlass));
-        }
-
-        return array;
+        return this.toJsonTree(src);
     }
 
-    private static JsonObject serialiseMapping(final Mapping<?, ?> mapping) {
-        final JsonObject json = new JsonObject();
-        json.addProperty(OBF, mapping.getObfuscatedName());
-        json.addProperty(DEOBF, mapping.getDeobfuscatedName());
-        return json;
+    private static void writeMapping(final JsonWriter out, final Mapping<?, ?> mapping) throws IOException {
+        out.name(OBF).value(mapping.getObfuscatedName());
+        out.name(DEOBF).value(mapping.getDeobfuscatedName());
     }
 
-    private static JsonObject serialiseClass(final ClassMapping<?, ?> klass) {
-        final JsonObject json = serialiseMapping(klass);
+    private static void writeClass(final JsonWriter out, final ClassMapping<?, ?> klass) throws IOException {
+        out.beginObject();
+        writeMapping(out, klass);
 
         // Fields
-        final JsonArray fields = new JsonArray();
+        out.name(FIELDS).beginArray();
         for (final FieldMapping field : klass.getFieldMappings()) {
-            fields.add(serialiseField(field));
+            writeField(out, field);
         }
-        json.add(FIELDS, fields);
+        out.endArray();
 
         // Methods
-        final JsonArray methods = new JsonArray();
+        out.name(METHODS).beginArray();
         for (final MethodMapping method : klass.getMethodMappings()) {
-            methods.add(serialiseMethod(method));
+            writeMethod(out, method);
         }
-        json.add(METHODS, methods);
+        out.endArray();
 
         // Inner Classes
-        final JsonArray inners = new JsonArray();
+        out.name(INNERS).beginArray();
         for (final InnerClassMapping inner : klass.getInnerClassMappings()) {
-            inners.add(serialiseClass(inner));
+            writeClass(out, inner);
         }
-        json.add(INNERS, inners);
+        out.endArray();
 
-        return json;
+        out.endObject();
     }
 
-    private static JsonObject serialiseField(final FieldMapping field) {
-        final JsonObject json = serialiseMapping(field);
-        field.getSignature().getType().ifPresent(type -> {
-            json.addProperty(TYPE, type.toString());
-        });
-        return json;
+    private static void writeField(final JsonWriter out, final FieldMapping field) throws IOException {
+        out.beginObject();
+        writeMapping(out, field);
+        if (field.getSignature().getType().isPresent()) {
+            out.name(TYPE).value(field.getSignature().getType().get().toString());
+        }
+        out.endObject();
     }
 
-    private static JsonObject serialiseMethod(final MethodMapping method) {
-        final JsonObject json = serialiseMapping(method);
-        json.addProperty(DESCRIPTOR, method.getObfuscatedDescriptor());
+    private static void writeMethod(final JsonWriter out, final MethodMapping method) throws IOException {
+        out.beginObject();
+        writeMapping(out, method);
+        out.name(DESCRIPTOR).value(method.getObfuscatedDescriptor());
 
         // Params
-        final JsonObject params = new JsonObject();
+        out.name(PARAMS).beginObject();
         for (final MethodParameterMapping param : method.getParameterMappings()) {
-            params.addProperty(param.getObfuscatedName(), param.getDeobfuscatedName());
+            out.name(param.getObfuscatedName()).value(param.getDeobfuscatedName());
         }
-        json.add(PARAMS, params);
+        out.endObject();
 
-        return json;
+        out.endObject();
     }
 
 }
@@ -0,0 +1,64 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package org.cadixdev.survey.test.config.mappings;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.google.gson.Gson;
+import org.cadixdev.lorenz.MappingSet;
+import org.cadixdev.lorenz.model.ClassMapping;
+import org.cadixdev.survey.config.mappings.MappingSetTypeAdapter;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+final class MappingSetTypeAdapterTest {
+
+    private static MappingSet createMappings() {
+        final MappingSet mappings = MappingSet.create();
+        final ClassMapping<?, ?> klass = mappings.getOrCreateTopLevelClassMapping("a")
+                .setDeobfuscatedName("Demo");
+        klass.getOrCreateFieldMapping("b", "I").setDeobfuscatedName("count");
+        klass.getOrCreateFieldMapping("c").setDeobfuscatedName("name");
+        klass.getOrCreateMethodMapping("d", "(I)V").setDeobfuscatedName("run")
+                .getOrCreateParameterMapping(0).setDeobfuscatedName("times");
+        klass.getOrCreateInnerClassMapping("e").setDeobfuscatedName("Inner")
+                .getOrCreateFieldMapping("f", "J").setDeobfuscatedName("id");
+        return mappings;
+    }
+
+    @Test
+    void streamingMatchesTree() throws IOException {
+        final MappingSet mappings = createMappings();
+        final MappingSetTypeAdapter adapter = new MappingSetTypeAdapter(mappings);
+
+        final String streamed = adapter.toJson(mappings);
+        final String tree = new Gson().toJson(adapter.serialize(mappings, MappingSet.class, null));
+        assertEquals(tree, streamed);
+
+        final MappingSet read = MappingSet.create();
+        new MappingSetTypeAdapter(read).fromJson(streamed);
+        assertEquals(streamed, adapter.toJson(read));
+    }
+
+    @Test
+    void readsMembersBeforeName() throws IOException {
+        final MappingSet mappings = MappingSet.create();
+        new MappingSetTypeAdapter(mappings).fromJson("[{" +
+                "\"fields\":[{\"type\":\"I\",\"deobf\":\"count\",\"obf\":\"b\"}]," +
+                "\"methods\":[{\"params\":{\"0\":\"times\"},\"obf\":\"d\",\"desc\":\"(I)V\",\"deobf\":\"run\"}]," +
+                "\"deobf\":\"Demo\",\"obf\":\"a\"" +
+                "}]");
+
+        final ClassMapping<?, ?> klass = mappings.getTopLevelClassMapping("a").get();
+        assertEquals("Demo", klass.getDeobfuscatedName());
+        assertEquals("count", klass.getFieldMapping("b").get().getDeobfuscatedName());
+        assertEquals("times", klass.getMethodMapping("d", "(I)V").get()
+                .getOrCreateParameterMapping(0).getDeobfuscatedName());
+    }
+
+}
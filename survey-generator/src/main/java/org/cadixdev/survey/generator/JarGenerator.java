@@ -0,0 +1,494 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package org.cadixdev.survey.generator;
+
+import static org.objectweb.asm.Opcodes.ACC_ENUM;
+import static org.objectweb.asm.Opcodes.ACC_FINAL;
+import static org.objectweb.asm.Opcodes.ACC_PRIVATE;
+import static org.objectweb.asm.Opcodes.ACC_PUBLIC;
+import static org.objectweb.asm.Opcodes.ACC_STATIC;
+import static org.objectweb.asm.Opcodes.ACC_SUPER;
+import static org.objectweb.asm.Opcodes.ACC_SYNTHETIC;
+import static org.objectweb.asm.Opcodes.ACONST_NULL;
+import static org.objectweb.asm.Opcodes.ALOAD;
+import static org.objectweb.asm.Opcodes.ARETURN;
+import static org.objectweb.asm.Opcodes.DUP;
+import static org.objectweb.asm.Opcodes.GETSTATIC;
+import static org.objectweb.asm.Opcodes.ILOAD;
+import static org.objectweb.asm.Opcodes.INVOKESPECIAL;
+import static org.objectweb.asm.Opcodes.INVOKESTATIC;
+import static org.objectweb.asm.Opcodes.IRETURN;
+import static org.objectweb.asm.Opcodes.NEW;
+import static org.objectweb.asm.Opcodes.POP;
+import static org.objectweb.asm.Opcodes.PUTFIELD;
+import static org.objectweb.asm.Opcodes.PUTSTATIC;
+import static org.objectweb.asm.Opcodes.RETURN;
+import static org.objectweb.asm.Opcodes.V1_8;
+
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.MethodVisitor;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+/**
+ * A generator of ProGuard-style obfuscated jars, for testing and
+ * benchmarking Survey at scale.
+ * <p>
+ * The contents of the jar are determined solely by the seed and the
+ * configuration, and every class is generated independently of the
+ * others - so jars of any size can be written without holding them in
+ * memory. The jars exercise every mapper and patcher Survey provides:
+ * <ul>
+ *     <li>Classes have obfuscated fields, some of which are loggers (for
+ *         the field name mapper), and reference each other through their
+ *         super classes, fields and methods.</li>
+ *     <li>Enums have their constants named in {@code <clinit>}, and a
+ *         (synthetic) {@code $VALUES} field.</li>
+ *     <li>Methods have generic signatures, some of which have the
+ *         ProGuard inner class bug.</li>
+ *     <li>Non-static inner classes are nested, some without an
+ *         {@code <init>}.</li>
+ * </ul>
+ *
+ * @author Jamie Mansfield
+ * @since 0.2.0
+ */
+public class JarGenerator {
+
+    /**
+     * The descriptor of the logger fields generated.
+     */
+    public static final String LOGGER = "Ljava/util/logging/Logger;";
+
+    private static final String[] FIELD_TYPES = {
+            "I", "J", "Z", "Ljava/lang/String;", "Ljava/util/List;", "Ljava/util/Map;"
+    };
+
+    /**
+     * Gets the ProGuard-style name for the given index - {@code a} through
+     * {@code z}, then {@code aa} and so on.
+     *
+     * @param index The index
+     * @return The name
+     */
+    public static String obfuscatedName(int index) {
+        final StringBuilder name = new StringBuilder();
+        do {
+            name.append((char) ('a' + index % 26));
+            index = index / 26 - 1;
+        } while (index >= 0);
+        return name.reverse().toString();
+    }
+
+    private final long seed;
+    private int classes = 1000;
+    private int packages = 1;
+    private int innerClassDepth = 1;
+    private double innerClassDensity = 0.2;
+    private double missingInitDensity = 0.5;
+    private double enumDensity = 0.1;
+    private boolean syntheticValues = true;
+    private double genericSignatureDensity = 0.25;
+    private double brokenSignatureDensity = 0.5;
+    private double loggerDensity = 0.2;
+
+    public JarGenerator(final long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Sets the number of top-level classes to generate.
+     *
+     * @param classes The number of classes
+     * @return {@code this}, for chaining
+     */
+    public JarGenerator classes(final int classes) {
+        if (classes < 1) throw new IllegalArgumentException("At least one class must be generated!");
+        this.classes = classes;
+        return this;
+    }
+
+    /**
+     * Sets the number of packages to spread the classes across. With a
+     * single package, the classes are all in the root package - as they
+     * would be with ProGuard's {@code -repackageclasses}.
+     *
+     * @param packages The number of packages
+     * @return {@code this}, for chaining
+     */
+    public JarGenerator packages(final int packages) {
+        if (packages < 1) throw new IllegalArgumentException("At least one package must be used!");
+        this.packages = packages;
+        return this;
+    }
+
+    /**
+     * Sets how deeply inner classes are nested.
+     *
+     * @param depth The depth
+     * @return {@code this}, for chaining
+     */
+    public JarGenerator innerClassDepth(final int depth) {
+        this.innerClassDepth = depth;
+        return this;
+    }
+
+    /**
+     * Sets the proportion of classes that have inner classes.
+     *
+     * @param density The density, between {@code 0} and {@code 1}
+     * @return {@code this}, for chaining
+     */
+    public JarGenerator innerClassDensity(final double density) {
+        this.innerClassDensity = density;
+        return this;
+    }
+
+    /**
+     * Sets the proportion of inner classes that have no {@code <init>}.
+     *
+     * @param density The density, between {@code 0} and {@code 1}
+     * @return {@code this}, for chaining
+     */
+    public JarGenerator missingInitDensity(final double density) {
+        this.missingInitDensity = density;
+        return this;
+    }
+
+    /**
+     * Sets the proportion of top-level classes that are enums.
+     *
+     * @param density The density, between {@code 0} and {@code 1}
+     * @return {@code this}, for chaining
+     */
+    public JarGenerator enumDensity(final double density) {
+        this.enumDensity = density;
+        return this;
+    }
+
+    /**
+     * Sets whether the {@code $VALUES} fields of enums are synthetic, as
+     * they are when compiled by javac.
+     *
+     * @param syntheticValues Whether {@code $VALUES} is synthetic
+     * @return {@code this}, for chaining
+     */
+    public JarGenerator syntheticValues(final boolean syntheticValues) {
+        this.syntheticValues = syntheticValues;
+        return this;
+    }
+
+    /**
+     * Sets the proportion of methods that have a generic signature.
+     *
+     * @param density The density, between {@code 0} and {@code 1}
+     * @return {@code this}, for chaining
+     */
+    public JarGenerator genericSignatureDensity(final double density) {
+        this.genericSignatureDensity = density;
+        return this;
+    }
+
+    /**
+     * Sets the proportion of generic signatures that have the ProGuard
+     * inner class bug.
+     *
+     * @param density The density, between {@code 0} and {@code 1}
+     * @return {@code this}, for chaining
+     */
+    public JarGenerator brokenSignatureDensity(final double density) {
+        this.brokenSignatureDensity = density;
+        return this;
+    }
+
+    /**
+     * Sets the proportion of classes that have a logger field.
+     *
+     * @param density The density, between {@code 0} and {@code 1}
+     * @return {@code this}, for chaining
+     */
+    public JarGenerator loggerDensity(final double density) {
+        this.loggerDensity = density;
+        return this;
+    }
+
+    /**
+     * Gets the name of the top-level class of the given index.
+     *
+     * @param index The index
+     * @return The name
+     */
+    public String getClassName(final int index) {
+        if (this.packages == 1) return obfuscatedName(index);
+        return obfuscatedName(index % this.packages) + '/' + obfuscatedName(index / this.packages);
+    }
+
+    /**
+     * Establishes whether the top-level class of the given index is an
+     * enum.
+     *
+     * @param index The index
+     * @return {@code true} if the class is an enum;
+     *         {@code false} otherwise
+     */
+    public boolean isEnum(final int index) {
+        return this.random(index).nextDouble() < this.enumDensity;
+    }
+
+    /**
+     * Writes the jar to the given path.
+     *
+     * @param path The path to write to
+     * @throws IOException Should an I/O issue occur
+     */
+    public void write(final Path path) throws IOException {
+        try (final JarOutputStream out = new JarOutputStream(Files.newOutputStream(path))) {
+            this.generate((name, bytes) -> {
+                out.putNextEntry(new JarEntry(name + ".class"));
+                out.write(bytes);
+                out.closeEntry();
+            });
+        }
+    }
+
+    /**
+     * Writes the jar to a temporary file, that is deleted when the JVM
+     * exits.
+     *
+     * @return The path to the jar
+     * @throws IOException Should an I/O issue occur
+     */
+    public Path writeTemporary() throws IOException {
+        final Path path = Files.createTempFile("survey-generated", ".jar");
+        path.toFile().deleteOnExit();
+        this.write(path);
+        return path;
+    }
+
+    /**
+     * Generates every class, in memory.
+     *
+     * @return The classes, by name
+     */
+    public Map<String, byte[]> generate() {
+        final Map<String, byte[]> classes = new LinkedHashMap<>();
+        try {
+            this.generate(classes::put);
+        }
+        catch (final IOException ex) {
+            throw new RuntimeException("Failed to generate classes!", ex);
+        }
+        return classes;
+    }
+
+    /**
+     * Generates every class, passing each to the given sink.
+     *
+     * @param sink The sink
+     * @throws IOException Should the sink throw an I/O issue
+     */
+    public void generate(final ClassSink sink) throws IOException {
+        for (int i = 0; i < this.classes; i++) {
+            final Random random = this.random(i);
+            final String name = this.getClassName(i);
+
+            if (random.nextDouble() < this.enumDensity) {
+                sink.accept(name, this.createEnum(name, random));
+                continue;
+            }
+
+            final int depth = random.nextDouble() < this.innerClassDensity ? this.innerClassDepth : 0;
+            sink.accept(name, this.createClass(i, name, random, depth));
+
+            String outer = name;
+            for (int j = 0; j < depth; j++) {
+                final String inner = outer + "$a";
+                sink.accept(inner, this.createInnerClass(outer, inner, random, j + 1 < depth));
+                outer = inner;
+            }
+        }
+    }
+
+    private Random random(final int index) {
+        // Each class has its own generator, so classes can be generated
+        // independently of one another. The seeds are mixed (as in
+        // SplittableRandom), as Random's first values for adjacent seeds
+        // are barely distinct.
+        long seed = this.seed + (index + 1) * 0x9E3779B97F4A7C15L;
+        seed = (seed ^ (seed >>> 30)) * 0xBF58476D1CE4E5B9L;
+        seed = (seed ^ (seed >>> 27)) * 0x94D049BB133111EBL;
+        return new Random(seed ^ (seed >>> 31));
+    }
+
+    private byte[] createClass(final int index, final String name, final Random random, final int depth) {
+        final ClassWriter writer = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+
+        // Some classes extend another, earlier, class in the jar
+        String superName = "java/lang/Object";
+        if (index > 0 && random.nextInt(3) == 0) {
+            final int parent = random.nextInt(index);
+            if (!this.isEnum(parent)) superName = this.getClassName(parent);
+        }
+
+        writer.visit(V1_8, ACC_PUBLIC | ACC_SUPER, name, null, superName, null);
+        if (depth > 0) {
+            writer.visitInnerClass(name + "$a", name, "a", 0);
+        }
+
+        // Fields, some of which reference other classes in the jar
+        final int fields = 1 + random.nextInt(6);
+        for (int i = 0; i < fields; i++) {
+            final String type = random.nextInt(4) == 0 ?
+                    "L" + this.getClassName(random.nextInt(this.classes)) + ";" :
+                    FIELD_TYPES[random.nextInt(FIELD_TYPES.length)];
+            final int access = random.nextBoolean() ? ACC_PRIVATE : ACC_PUBLIC | ACC_STATIC | ACC_FINAL;
+            writer.visitField(access, obfuscatedName(i), type, null, null).visitEnd();
+        }
+        if (random.nextDouble() < this.loggerDensity) {
+            writer.visitField(ACC_PRIVATE | ACC_STATIC | ACC_FINAL, obfuscatedName(fields), LOGGER, null, null)
+                    .visitEnd();
+        }
+
+        final MethodVisitor init = writer.visitMethod(ACC_PUBLIC, "<init>", "()V", null, null);
+        init.visitCode();
+        init.visitVarInsn(ALOAD, 0);
+        init.visitMethodInsn(INVOKESPECIAL, superName, "<init>", "()V", false);
+        init.visitInsn(RETURN);
+        init.visitMaxs(0, 0);
+        init.visitEnd();
+
+        // Static methods, that call another class's first method
+        final int methods = random.nextInt(4);
+        for (int i = 0; i < methods; i++) {
+            final MethodVisitor mv = writer.visitMethod(ACC_PUBLIC | ACC_STATIC, obfuscatedName(i), "(I)I", null, null);
+            mv.visitCode();
+            mv.visitVarInsn(ILOAD, 0);
+            final int callee = random.nextInt(this.classes);
+            if (!this.isEnum(callee) && callee != index) {
+                mv.visitMethodInsn(INVOKESTATIC, this.getClassName(callee), "a", "(I)I", false);
+            }
+            mv.visitInsn(IRETURN);
+            mv.visitMaxs(0, 0);
+            mv.visitEnd();
+        }
+
+        // Generic methods, some of which have the ProGuard signature bug
+        if (depth > 0 && random.nextDouble() < this.genericSignatureDensity) {
+            final String inner = random.nextDouble() < this.brokenSignatureDensity ? name + "$a" : "a";
+            final MethodVisitor mv = writer.visitMethod(ACC_PUBLIC, "b", "(Ljava/lang/Object;)L" + name + "$a;",
+                    "<K:Ljava/lang/Object;>(TK;)L" + name + "<TK;>." + inner + ";", null);
+            mv.visitCode();
+            mv.visitInsn(ACONST_NULL);
+            mv.visitInsn(ARETURN);
+            mv.visitMaxs(0, 0);
+            mv.visitEnd();
+        }
+
+        writer.visitEnd();
+        return writer.toByteArray();
+    }
+
+    private byte[] createInnerClass(final String outer, final String name, final Random random, final boolean hasInner) {
+        final String outerDesc = "L" + outer + ";";
+
+        final ClassWriter writer = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+        writer.visit(V1_8, ACC_SUPER, name, null, "java/lang/Object", null);
+        writer.visitInnerClass(name, outer, "a", 0);
+        if (hasInner) {
+            writer.visitInnerClass(name + "$a", name, "a", 0);
+        }
+        writer.visitField(ACC_FINAL | ACC_SYNTHETIC, "a", outerDesc, null, null).visitEnd();
+        writer.visitField(ACC_PRIVATE, "b", FIELD_TYPES[random.nextInt(FIELD_TYPES.length)], null, null).visitEnd();
+
+        if (random.nextDouble() >= this.missingInitDensity) {
+            final MethodVisitor init = writer.visitMethod(0, "<init>", "(" + outerDesc + ")V", null, null);
+            init.visitCode();
+            init.visitVarInsn(ALOAD, 0);
+            init.visitVarInsn(ALOAD, 1);
+            init.visitFieldInsn(PUTFIELD, name, "a", outerDesc);
+            init.visitVarInsn(ALOAD, 0);
+            init.visitMethodInsn(INVOKESPECIAL, "java/lang/Object", "<init>", "()V", false);
+            init.visitInsn(RETURN);
+            init.visitMaxs(0, 0);
+            init.visitEnd();
+        }
+
+        writer.visitEnd();
+        return writer.toByteArray();
+    }
+
+    private byte[] createEnum(final String name, final Random random) {
+        final String desc = "L" + name + ";";
+        final int constants = 1 + random.nextInt(8);
+        final String values = obfuscatedName(constants);
+
+        final ClassWriter writer = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+        writer.visit(V1_8, ACC_PUBLIC | ACC_FINAL | ACC_SUPER | ACC_ENUM, name,
+                "Ljava/lang/Enum<" + desc + ">;", "java/lang/Enum", null);
+        for (int i = 0; i < constants; i++) {
+            writer.visitField(ACC_PUBLIC | ACC_STATIC | ACC_FINAL | ACC_ENUM, obfuscatedName(i), desc, null, null)
+                    .visitEnd();
+        }
+        final int valuesAccess = ACC_PRIVATE | ACC_STATIC | ACC_FINAL | (this.syntheticValues ? ACC_SYNTHETIC : 0);
+        writer.visitField(valuesAccess, values, "[" + desc, null, null).visitEnd();
+
+        final MethodVisitor ctor = writer.visitMethod(ACC_PRIVATE, "<init>", "(Ljava/lang/String;I)V", null, null);
+        ctor.visitCode();
+        ctor.visitVarInsn(ALOAD, 0);
+        ctor.visitVarInsn(ALOAD, 1);
+        ctor.visitVarInsn(ILOAD, 2);
+        ctor.visitMethodInsn(INVOKESPECIAL, "java/lang/Enum", "<init>", "(Ljava/lang/String;I)V", false);
+        ctor.visitInsn(RETURN);
+        ctor.visitMaxs(0, 0);
+        ctor.visitEnd();
+
+        // Name the constants, as javac would
+        final MethodVisitor clinit = writer.visitMethod(ACC_STATIC, "<clinit>", "()V", null, null);
+        clinit.visitCode();
+        for (int i = 0; i < constants; i++) {
+            clinit.visitTypeInsn(NEW, name);
+            clinit.visitInsn(DUP);
+            clinit.visitLdcInsn("CONSTANT_" + i);
+            clinit.visitLdcInsn(i);
+            clinit.visitMethodInsn(INVOKESPECIAL, name, "<init>", "(Ljava/lang/String;I)V", false);
+            clinit.visitFieldInsn(PUTSTATIC, name, obfuscatedName(i), desc);
+        }
+        clinit.visitFieldInsn(GETSTATIC, name, obfuscatedName(0), desc);
+        clinit.visitInsn(POP);
+        clinit.visitInsn(RETURN);
+        clinit.visitMaxs(0, 0);
+        clinit.visitEnd();
+
+        writer.visitEnd();
+        return writer.toByteArray();
+    }
+
+    /**
+     * A consumer of generated classes.
+     */
+    @FunctionalInterface
+    public interface ClassSink {
+
+        /**
+         * Accepts a generated class.
+         *
+         * @param name The name of the class
+         * @param bytes The class file
+         * @throws IOException Should an I/O issue occur
+         */
+        void accept(final String name, final byte[] bytes) throws IOException;
+
+    }
+
+}
@@ -0,0 +1,62 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package org.cadixdev.survey.test.generator;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.cadixdev.survey.generator.JarGenerator;
+import org.junit.jupiter.api.Test;
+import org.objectweb.asm.ClassReader;
+
+import java.util.Map;
+
+final class JarGeneratorTest {
+
+    @Test
+    void obfuscatedNames() {
+        assertEquals("a", JarGenerator.obfuscatedName(0));
+        assertEquals("z", JarGenerator.obfuscatedName(25));
+        assertEquals("aa", JarGenerator.obfuscatedName(26));
+        assertEquals("ba", JarGenerator.obfuscatedName(52));
+    }
+
+    @Test
+    void deterministic() {
+        final Map<String, byte[]> first = new JarGenerator(42).classes(500).innerClassDepth(3).generate();
+        final Map<String, byte[]> second = new JarGenerator(42).classes(500).innerClassDepth(3).generate();
+
+        assertEquals(first.keySet(), second.keySet());
+        for (final Map.Entry<String, byte[]> entry : first.entrySet()) {
+            assertArrayEquals(entry.getValue(), second.get(entry.getKey()));
+        }
+    }
+
+    @Test
+    void generatesEnumsAndInnerClasses() {
+        final JarGenerator generator = new JarGenerator(7).classes(1000).packages(4).innerClassDepth(2);
+        final Map<String, byte[]> classes = generator.generate();
+
+        int enums = 0;
+        int inners = 0;
+        for (int i = 0; i < 1000; i++) {
+            final String name = generator.getClassName(i);
+            assertTrue(classes.containsKey(name));
+
+            final ClassReader reader = new ClassReader(classes.get(name));
+            if (generator.isEnum(i)) {
+                assertEquals("java/lang/Enum", reader.getSuperName());
+                enums++;
+            }
+            if (classes.containsKey(name + "$a$a")) inners++;
+        }
+        assertTrue(enums > 0);
+        assertTrue(inners > 0);
+    }
+
+}
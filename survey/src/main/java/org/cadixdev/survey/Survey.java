@@ -12,26 +12,51 @@ import static org.cadixdev.atlas.jar.JarVisitOption.IGNORE_SERVICE_PROVIDER_CONF
 
 import org.cadixdev.atlas.Atlas;
 import org.cadixdev.atlas.jar.JarFile;
-import org.cadixdev.bombe.asm.jar.JarEntryRemappingTransformer;
 import org.cadixdev.bombe.jar.JarClassEntry;
 import org.cadixdev.lorenz.MappingSet;
-import org.cadixdev.lorenz.asm.LorenzRemapper;
 import org.cadixdev.lorenz.util.Registry;
+import org.cadixdev.survey.context.Blacklist;
+import org.cadixdev.survey.context.CascadingSurveyContext;
 import org.cadixdev.survey.context.SurveyContext;
 import org.cadixdev.survey.context.SurveyContextBuilder;
+import org.cadixdev.survey.hierarchy.ClassHierarchy;
+import org.cadixdev.survey.hierarchy.ClassHierarchyIndex;
+import org.cadixdev.survey.jar.JarRewriter;
+import org.cadixdev.survey.jar.MappedJar;
+import org.cadixdev.survey.jar.TransformCache;
 import org.cadixdev.survey.mapper.AbstractMapper;
+import org.cadixdev.survey.mapper.MapperCache;
+import org.cadixdev.survey.mapper.MappingWriter;
 import org.cadixdev.survey.patcher.AbstractPatcher;
-import org.cadixdev.survey.patcher.JarEntryPatcherTransformer;
+import org.cadixdev.survey.patcher.JarEntryPatchingRemappingTransformer;
+import org.cadixdev.survey.remapper.FrozenMappings;
+import org.cadixdev.survey.remapper.FrozenRemapper;
+import org.cadixdev.survey.remapper.RemappingFilter;
 import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.tree.ClassNode;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.PrintStream;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.RecursiveAction;
 import java.util.function.BiFunction;
 import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * The control centre of Survey.
@@ -42,12 +67,25 @@ import java.util.function.Function;
 public class Survey implements SurveyContext {
 
     private final MappingSet mappings;
-    private final List<String> blacklist = new ArrayList<>();
+    private Blacklist blacklist = Blacklist.EMPTY;
 
     private final Registry<SurveyContext> contexts = new Registry<>();
     private final Registry<AbstractMapper<?>> mappers = new Registry<>();
+    private final Map<MappingSet, MappingWriter> writers = new IdentityHashMap<>();
     private final Registry<AbstractPatcher<?>> patchers = new Registry<>();
 
+    private boolean fused = false;
+    private int threads = 1;
+    private ClassHierarchyIndex hierarchy;
+    private Object builtFor;
+    private ClassHierarchyIndex built;
+    private Path cachePath;
+    private String fingerprint;
+    private MapperCache cache;
+    private TransformCache transformCache;
+    private SurveyStats stats;
+    private PrintStream out = System.out;
+
     public Survey() {
         this(MappingSet.create());
     }
@@ -63,10 +101,12 @@ public class Survey implements SurveyContext {
 
     @Override
     public boolean blacklisted(final String klass) {
-        for (final String blacklisted : this.blacklist) {
-            if (klass.startsWith(blacklisted)) return true;
-        }
-        return false;
+        return this.blacklist.matches(klass);
+    }
+
+    @Override
+    public Blacklist getBlacklist() {
+        return this.blacklist;
     }
 
     /**
@@ -76,7 +116,123 @@ public class Survey implements SurveyContext {
      * @return {@code this}
      */
     public Survey blacklist(final String... blacklist) {
-        this.blacklist.addAll(Arrays.asList(blacklist));
+        final List<String> prefixes = new ArrayList<>(this.blacklist.getPrefixes());
+        prefixes.addAll(Arrays.asList(blacklist));
+        this.blacklist = Blacklist.compile(prefixes);
+        return this;
+    }
+
+    /**
+     * Sets whether the mappers should be run in a single, fused, pass over
+     * the jar - where each class is only read once, and then visited by
+     * every mapper that applies to it. Mappers that are
+     * {@link AbstractMapper#isPreparedAfterPrecedingMappers() prepared after
+     * the preceding mappers} start another pass.
+     *
+     * @param fused Whether to fuse the mapper passes
+     * @return {@code this}
+     */
+    public Survey fused(final boolean fused) {
+        this.fused = fused;
+        return this;
+    }
+
+    /**
+     * Sets the number of threads to run the mappers with. Using more than
+     * one thread will run mappers that are
+     * {@link AbstractMapper#isOrderIndependent() order independent} across
+     * a fork-join pool, in a fused pass.
+     * <p>
+     * Memory-mapped jars are also remapped, and written, with this many
+     * threads - see {@link JarRewriter#threads(int)}.
+     *
+     * @param threads The number of threads
+     * @return {@code this}
+     */
+    public Survey threads(final int threads) {
+        if (threads < 1) throw new IllegalArgumentException("Survey requires at least one thread!");
+        this.threads = threads;
+        return this;
+    }
+
+    /**
+     * Gets the class hierarchy of the jar being mapped, should it be known -
+     * either as {@link #hierarchy(ClassHierarchyIndex) set}, or as built for
+     * the jar last mapped or remapped.
+     *
+     * @return The class hierarchy, or {@code null}
+     */
+    public ClassHierarchyIndex hierarchy() {
+        return this.hierarchy != null ? this.hierarchy : this.built;
+    }
+
+    /**
+     * Sets the class hierarchy of the jar being mapped, such as one loaded
+     * from a {@link org.cadixdev.survey.hierarchy.ClassHierarchyCache}. Should
+     * none be set, one is built for each jar - while it is read for mapping,
+     * and reused should the same jar then be remapped.
+     *
+     * @param hierarchy The class hierarchy
+     * @return {@code this}
+     */
+    public Survey hierarchy(final ClassHierarchyIndex hierarchy) {
+        this.hierarchy = hierarchy;
+        return this;
+    }
+
+    /**
+     * Sets the {@link MapperCache} to map incrementally with. Only the
+     * classes that changed since the cache was written are visited by
+     * {@link AbstractMapper#isIncremental() incremental} mappers - the
+     * mappings of the rest are replayed from the cache.
+     *
+     * @param cache The path to the cache, or {@code null} to visit every
+     *              class
+     * @param fingerprint The fingerprint of everything besides the jar
+     *                    that the mappings depend on, such as the
+     *                    configuration and input mappings
+     * @return {@code this}
+     */
+    public Survey incremental(final Path cache, final String fingerprint) {
+        this.cachePath = cache;
+        this.fingerprint = fingerprint;
+        return this;
+    }
+
+    /**
+     * Sets the cache of transformed classes, for memory-mapped jars to be
+     * remapped with. Classes whose contents, patchers, and referenced
+     * mappings are the same as when they were cached are written straight
+     * from the cache.
+     *
+     * @param cache The transform cache, or {@code null} for none
+     * @return {@code this}
+     */
+    public Survey transformCache(final TransformCache cache) {
+        this.transformCache = cache;
+        return this;
+    }
+
+    /**
+     * Sets the stream to print progress to.
+     *
+     * @param out The stream
+     * @return {@code this}
+     */
+    public Survey out(final PrintStream out) {
+        this.out = out;
+        return this;
+    }
+
+    /**
+     * Sets the statistics to record the timings of the mappers, and of
+     * remapping, to.
+     *
+     * @param stats The statistics, or {@code null} to record none
+     * @return {@code this}
+     */
+    public Survey stats(final SurveyStats stats) {
+        this.stats = stats;
         return this;
     }
 
@@ -133,10 +289,13 @@ public class Survey implements SurveyContext {
                              final BiFunction<SurveyContext, C, AbstractMapper<C>> mapper,
                              final SurveyContext context,
                              final C config) {
-        this.mappers.register(id, mapper.apply(
+        final AbstractMapper<C> instance = mapper.apply(
                 context,
                 config
-        ));
+        );
+        instance._setWriter(this._getWriter(context.mappings()));
+        instance._setFactory(() -> mapper.apply(context, config));
+        this.mappers.register(id, instance);
         return this;
     }
 
@@ -196,17 +355,116 @@ public class Survey implements SurveyContext {
     /**
      * Runs the mappers.
      *
+     * @param jar The jar to map
+     * @return {@code this}
+     * @throws IOException Should an I/O issue occur
+     * @see #fused(boolean)
+     * @see #threads(int)
+     */
+    public Survey map(final JarFile jar) throws IOException {
+        return this._map(Collections.singletonList(jar), this._readClasses(jar));
+    }
+
+    /**
+     * Runs the mappers, over a memory-mapped jar. The classes are kept by
+     * the jar, so remapping it needn't read them again.
+     *
+     * @param jar The jar to map
      * @return {@code this}
+     * @throws IOException Should an I/O issue occur
+     * @see #fused(boolean)
+     * @see #threads(int)
      */
-    public Survey map(final JarFile jar) {
+    public Survey map(final MappedJar jar) throws IOException {
+        return this._map(Collections.singletonList(jar), this._readClasses(jar));
+    }
+
+    /**
+     * Runs the mappers over many memory-mapped jars at once, as though they
+     * were a single jar. Should a class be in more than one jar, only the
+     * first is mapped.
+     *
+     * @param jars The jars to map
+     * @return {@code this}
+     * @throws IOException Should an I/O issue occur
+     * @see #fused(boolean)
+     * @see #threads(int)
+     */
+    public Survey map(final Collection<MappedJar> jars) throws IOException {
+        return this._map(new ArrayList<>(jars), this._readClasses(jars));
+    }
+
+    private Survey _map(final List<?> jars, final List<JarClassEntry> classes) throws IOException {
+        // Index the hierarchy while the classes are at hand, for the remapper
+        if (this._getHierarchy(jars) == null) {
+            this._setHierarchy(jars, this._time("hierarchy", Collections.emptyList(), classes.size(),
+                    () -> this._index(classes)));
+        }
+
+        if (this.stats != null) {
+            this.stats.classes(classes.size());
+            this.mappers.forEach((name, mapper) -> {
+                long blacklisted = 0;
+                for (final JarClassEntry entry : classes) {
+                    if (mapper.ctx().blacklisted(entry.getName())) blacklisted++;
+                }
+                this.stats.blacklisted(name, blacklisted);
+            });
+        }
+
+        // The configuration is final by now, so flatten the mappers' contexts
         this.mappers.forEach((name, mapper) -> {
-            this._runMapper(jar, name, mapper);
+            if (mapper.ctx() instanceof CascadingSurveyContext) {
+                ((CascadingSurveyContext) mapper.ctx()).compile();
+            }
         });
+
+        if (this.cachePath != null) {
+            // The cache is only of use to the same mappers, configured the same
+            final StringBuilder fingerprint = new StringBuilder(String.valueOf(this.fingerprint));
+            this.mappers.forEach((name, mapper) -> {
+                fingerprint.append('\n').append(name).append(':').append(mapper.isIncremental());
+            });
+            this.cache = MapperCache.read(this.cachePath, fingerprint.toString(), classes);
+            this.out.println("Replaying mappings of " + this.cache.getUnchanged() + " unchanged classes...");
+        }
+
+        try {
+            if (this.threads > 1) {
+                this._runMappersParallel(classes);
+            }
+            else if (this.fused) {
+                // Mappers prepared against the mappings of those before them
+                // start a pass of their own
+                final List<AbstractMapper<?>> pass = new ArrayList<>();
+                final List<String> names = new ArrayList<>();
+                this.mappers.forEach((name, mapper) -> {
+                    if (mapper.isPreparedAfterPrecedingMappers() && !pass.isEmpty()) {
+                        this._runMappers(classes, names, pass);
+                        pass.clear();
+                        names.clear();
+                    }
+                    pass.add(mapper);
+                    names.add(name);
+                });
+                if (!pass.isEmpty()) this._runMappers(classes, names, pass);
+            }
+            else {
+                this.mappers.forEach((name, mapper) -> {
+                    this._runMapper(classes, name, mapper);
+                });
+            }
+
+            if (this.cache != null) this.cache.write();
+        }
+        finally {
+            this.cache = null;
+        }
         return this;
     }
 
     public void run(final Path input, final Path output, final boolean map) {
-        try (final JarFile jar = new JarFile(input)) {
+        try (final MappedJar jar = MappedJar.open(input)) {
             this.run(jar, output, map);
         }
         catch (final IOException ex) {
@@ -217,20 +475,126 @@ public class Survey implements SurveyContext {
     public void run(final JarFile input, final Path output, final boolean map) throws IOException {
         if (map) this.map(input);
 
+        final List<JarFile> jars = Collections.singletonList(input);
+        if (this._getHierarchy(jars) == null) this._setHierarchy(jars, ClassHierarchyIndex.of(input));
+        final ClassHierarchyIndex index = this._getHierarchy(jars);
+
+        // The mappings are final by now, so freeze them for the (shared)
+        // remapper - resolving inherited members for the jar's classes
         final Atlas atlas = new Atlas();
-        atlas.install(ctx -> new JarEntryPatcherTransformer(
-                this.patchers.values()
-        ));
-        atlas.install(ctx -> new JarEntryRemappingTransformer(
-                new LorenzRemapper(this.mappings, ctx.inheritanceProvider())
-        ));
+        atlas.install(ctx -> {
+            final ClassHierarchy hierarchy = index.or(ClassHierarchy.of(ctx.inheritanceProvider()));
+            return new JarEntryPatchingRemappingTransformer(
+                    this.patchers.values(),
+                    new FrozenRemapper(FrozenMappings.freeze(this.mappings, hierarchy, index.getClasses())),
+                    new RemappingFilter(this.mappings, hierarchy)
+            );
+        });
         atlas.run(input, output);
     }
 
+    /**
+     * Remaps, and patches, the given jar - without going through Atlas.
+     *
+     * @param input The jar to remap
+     * @param output The path to write the remapped jar to
+     * @param map Whether to run the mappers first
+     * @throws IOException Should an I/O issue occur
+     */
+    public void run(final MappedJar input, final Path output, final boolean map) throws IOException {
+        if (map) this.map(input);
+
+        final List<MappedJar> jars = Collections.singletonList(input);
+        if (this._getHierarchy(jars) == null) this._setHierarchy(jars, ClassHierarchyIndex.of(input));
+        this._time("output", Collections.emptyList(), countClasses(input), () -> {
+            this._createRewriter(this._getHierarchy(jars)).threads(this.threads).rewrite(input, output);
+            if (this.transformCache != null) this.transformCache.trim();
+            return null;
+        });
+    }
+
+    /**
+     * Remaps, and patches, many jars at once - such as the modules of a
+     * single product.
+     * <p>
+     * The jars share one class hierarchy, and one frozen copy of the
+     * mappings, so inheritance between the jars is resolved - and nothing
+     * is read more than once. The jars are written concurrently, with at
+     * most {@link #threads(int)} at a time.
+     *
+     * @param jars The jars to remap, and the paths to write them to
+     * @param map Whether to run the mappers first, over every jar
+     * @throws IOException Should an I/O issue occur
+     */
+    public void run(final Map<Path, Path> jars, final boolean map) throws IOException {
+        final Map<MappedJar, Path> inputs = new LinkedHashMap<>();
+        try {
+            for (final Map.Entry<Path, Path> jar : jars.entrySet()) {
+                inputs.put(MappedJar.open(jar.getKey()), jar.getValue());
+            }
+
+            if (map) this.map(inputs.keySet());
+            final List<MappedJar> all = new ArrayList<>(inputs.keySet());
+            if (this._getHierarchy(all) == null) this._setHierarchy(all, this._index(this._readClasses(all)));
+
+            long classes = 0;
+            if (this.stats != null) {
+                for (final MappedJar input : inputs.keySet()) {
+                    classes += countClasses(input);
+                }
+            }
+
+            this._time("output", Collections.emptyList(), classes, () -> {
+                final JarRewriter rewriter = this._createRewriter(this._getHierarchy(all))
+                        .threads(inputs.size() == 1 ? this.threads : 1);
+                final ExecutorService pool =
+                        Executors.newFixedThreadPool(Math.min(this.threads, Math.max(1, inputs.size())));
+                try {
+                    final List<Future<?>> jobs = new ArrayList<>(inputs.size());
+                    inputs.forEach((input, output) -> jobs.add(pool.submit(() -> {
+                        rewriter.rewrite(input, output);
+                        return null;
+                    })));
+                    for (final Future<?> job : jobs) {
+                        await(job);
+                    }
+                }
+                finally {
+                    pool.shutdownNow();
+                }
+                if (this.transformCache != null) this.transformCache.trim();
+                return null;
+            });
+        }
+        finally {
+            for (final MappedJar input : inputs.keySet()) {
+                input.close();
+            }
+        }
+    }
+
     public void run(final Path input, final Path output) {
         this.run(input, output, true);
     }
 
+    private JarRewriter _createRewriter(final ClassHierarchyIndex index) {
+        // Without Atlas, there's no class path to consult - but only the jars'
+        // own classes can inherit mapped members
+        final FrozenMappings mappings = FrozenMappings.freeze(this.mappings, index, index.getClasses());
+        final FrozenRemapper remapper = new FrozenRemapper(mappings);
+        final JarEntryPatchingRemappingTransformer transformer = new JarEntryPatchingRemappingTransformer(
+                this.patchers.values(),
+                remapper,
+                new RemappingFilter(this.mappings, index)
+        );
+
+        final JarRewriter rewriter = new JarRewriter(transformer, remapper);
+        if (this.transformCache != null) {
+            rewriter.cache(this.transformCache, entry -> transformer.getCacheKey(entry, mappings));
+        }
+        return rewriter;
+    }
+
     // Internal Methods
 
     public Registry<SurveyContext> _getContexts() {
@@ -245,21 +609,277 @@ public class Survey implements SurveyContext {
         return this.contexts.byId(name);
     }
 
-    void _runMapper(final JarFile jar, final String name, final AbstractMapper<?> mapper) {
-        System.out.println("Running '" + name + "' mapper...");
+    void _runMapper(final List<JarClassEntry> classes, final String name, final AbstractMapper<?> mapper) {
+        this.out.println("Running '" + name + "' mapper...");
+        this._prepare(classes, Collections.singletonList(name), Collections.singletonList(mapper));
 
+        this._time("map", Collections.singletonList(name), classes.size(), () -> {
+            this._replay(classes, Collections.singletonList(name), Collections.singletonList(mapper));
+
+            for (final JarClassEntry entry : classes) {
+                if (mapper.ctx().blacklisted(entry.getName())) continue;
+                if (isReplayed(this.cache, entry, mapper)) continue;
+
+                final ClassReader klass = new ClassReader(entry.getContents());
+                if (!mapper.isApplicable(klass)) continue;
+                record(this.cache, entry, name, mapper, () -> klass.accept(mapper, mapper._getParsingOptions()));
+            }
+            return null;
+        });
+    }
+
+    void _runMappers(final List<JarClassEntry> classes, final List<String> names,
+                     final List<AbstractMapper<?>> mappers) {
+        this.out.println("Running '" + String.join("', '", names) + "' mappers...");
+        this._prepare(classes, names, mappers);
+
+        this._time("map", names, classes.size(), () -> {
+            this._replay(classes, names, mappers);
+
+            // Each mapper sees the classes in the same order as it would
+            // have within its own pass, so the results are unchanged.
+            for (final JarClassEntry entry : classes) {
+                accept(entry, names, mappers, this.cache);
+            }
+            return null;
+        });
+    }
+
+    void _runMappersParallel(final List<JarClassEntry> classes) {
+        final ForkJoinPool pool = new ForkJoinPool(this.threads);
         try {
-            jar.walk(IGNORE_MANIFESTS, IGNORE_SERVICE_PROVIDER_CONFIGURATIONS, IGNORE_RESOURCES)
-                    .map(jar::getClass)
-                    .filter(entry -> !mapper.ctx().blacklisted(entry.getName()))
-                    .sorted(comparingLength(JarClassEntry::getName))
-                    .forEach(entry -> {
-                        final ClassReader klass = new ClassReader(entry.getContents());
-                        klass.accept(mapper, 0);
-                    });
+            // Consecutive order independent mappers share a parallel pass, whereas
+            // the others are run on their own - seeing every class in order.
+            final List<AbstractMapper<?>> stage = new ArrayList<>();
+            final List<String> names = new ArrayList<>();
+            this.mappers.forEach((name, mapper) -> {
+                if (mapper.isOrderIndependent()) {
+                    if (mapper.isPreparedAfterPrecedingMappers()) {
+                        this._runStage(pool, classes, names, stage);
+                        stage.clear();
+                        names.clear();
+                    }
+                    stage.add(mapper);
+                    names.add(name);
+                    return;
+                }
+
+                this._runStage(pool, classes, names, stage);
+                stage.clear();
+                names.clear();
+
+                this._runMapper(classes, name, mapper);
+            });
+            this._runStage(pool, classes, names, stage);
         }
-        catch (final IOException ex) {
-            ex.printStackTrace();
+        finally {
+            pool.shutdown();
+        }
+    }
+
+    private void _runStage(final ForkJoinPool pool, final List<JarClassEntry> classes,
+                           final List<String> names, final List<AbstractMapper<?>> stage) {
+        if (stage.isEmpty()) return;
+        this.out.println("Running '" + String.join("', '", names) + "' mappers in parallel...");
+        this._prepare(classes, names, stage);
+        this._time("map", names, classes.size(), () -> {
+            this._replay(classes, names, stage);
+
+            // Mappers hold state for the class they're visiting, so each worker
+            // needs its own instances.
+            final List<AbstractMapper<?>> mappers = new ArrayList<>(stage);
+            final ThreadLocal<List<AbstractMapper<?>>> forks = ThreadLocal.withInitial(() -> {
+                final List<AbstractMapper<?>> instances = new ArrayList<>(mappers.size());
+                for (final AbstractMapper<?> mapper : mappers) {
+                    instances.add(mapper.fork());
+                }
+                return instances;
+            });
+            pool.invoke(new MapperTask(classes, 0, classes.size(), new ArrayList<>(names), forks, this.cache));
+            return null;
+        });
+    }
+
+    private ClassHierarchyIndex _getHierarchy(final List<?> jars) {
+        // A hierarchy that was set is used for every jar, whereas one that was
+        // built is only used for the jars it was built from
+        if (this.hierarchy != null) return this.hierarchy;
+        return jars.equals(this.builtFor) ? this.built : null;
+    }
+
+    private void _setHierarchy(final List<?> jars, final ClassHierarchyIndex hierarchy) {
+        this.builtFor = jars;
+        this.built = hierarchy;
+    }
+
+    private ClassHierarchyIndex _index(final List<JarClassEntry> classes) {
+        final ClassHierarchyIndex hierarchy = new ClassHierarchyIndex();
+        for (final JarClassEntry entry : classes) {
+            hierarchy.add(new ClassReader(entry.getContents()));
+        }
+        return hierarchy;
+    }
+
+    private void _prepare(final List<JarClassEntry> classes, final List<String> names,
+                          final List<AbstractMapper<?>> mappers) {
+        // Allow the mappers to establish any state that depends on the jar as
+        // a whole (such as intermediary ids), before the pass - so the results
+        // are the same, however the mappers are run.
+        this._time("prepare", names, classes.size(), () -> {
+            for (final AbstractMapper<?> mapper : mappers) {
+                mapper.prepare(classes);
+            }
+            return null;
+        });
+    }
+
+    private <T, E extends Exception> T _time(final String name, final List<String> mappers, final long classes,
+                                             final SurveyStats.Timed<T, E> action) throws E {
+        return SurveyStats.time(this.stats, name, mappers, classes, action);
+    }
+
+    private void _replay(final List<JarClassEntry> classes, final List<String> names,
+                         final List<AbstractMapper<?>> mappers) {
+        if (this.cache == null) return;
+
+        // Replayed in the order the classes would have been visited in
+        for (final JarClassEntry entry : classes) {
+            for (int i = 0; i < mappers.size(); i++) {
+                final AbstractMapper<?> mapper = mappers.get(i);
+                if (mapper.ctx().blacklisted(entry.getName())) continue;
+                if (isReplayed(this.cache, entry, mapper)) {
+                    this.cache.replay(entry.getName(), names.get(i), mapper.writer());
+                }
+            }
+        }
+    }
+
+    List<JarClassEntry> _readClasses(final JarFile jar) throws IOException {
+        return jar.walk(IGNORE_MANIFESTS, IGNORE_SERVICE_PROVIDER_CONFIGURATIONS, IGNORE_RESOURCES)
+                .map(jar::getClass)
+                .sorted(comparingLength(JarClassEntry::getName))
+                .collect(Collectors.toList());
+    }
+
+    List<JarClassEntry> _readClasses(final MappedJar jar) throws IOException {
+        final List<JarClassEntry> classes = jar.getClasses();
+        classes.sort(comparingLength(JarClassEntry::getName));
+        return classes;
+    }
+
+    List<JarClassEntry> _readClasses(final Collection<MappedJar> jars) throws IOException {
+        // Should a class be in more than one jar, the first wins
+        final Map<String, JarClassEntry> classes = new LinkedHashMap<>();
+        for (final MappedJar jar : jars) {
+            for (final JarClassEntry entry : jar.getClasses()) {
+                classes.putIfAbsent(entry.getName(), entry);
+            }
+        }
+        final List<JarClassEntry> sorted = new ArrayList<>(classes.values());
+        sorted.sort(comparingLength(JarClassEntry::getName));
+        return sorted;
+    }
+
+    private MappingWriter _getWriter(final MappingSet mappings) {
+        synchronized (this.writers) {
+            return this.writers.computeIfAbsent(mappings, MappingWriter::new);
+        }
+    }
+
+    /**
+     * Visits the given class with every mapper that applies to it, reading
+     * the class only once.
+     *
+     * @param entry The class entry
+     * @param names The ids of the mappers
+     * @param mappers The mappers
+     * @param cache The mapper cache, or {@code null}
+     */
+    private static void accept(final JarClassEntry entry, final List<String> names,
+                               final List<AbstractMapper<?>> mappers, final MapperCache cache) {
+        final List<AbstractMapper<?>> applicable = new ArrayList<>(mappers.size());
+        for (final AbstractMapper<?> mapper : mappers) {
+            if (!mapper.ctx().blacklisted(entry.getName()) && !isReplayed(cache, entry, mapper)) {
+                applicable.add(mapper);
+            }
+        }
+        if (applicable.isEmpty()) return;
+
+        // Only a full visit needs more than the header and constant pool
+        final ClassReader reader = new ClassReader(entry.getContents());
+        applicable.removeIf(mapper -> !mapper.isApplicable(reader));
+        if (applicable.isEmpty()) return;
+
+        if (applicable.size() == 1) {
+            final AbstractMapper<?> mapper = applicable.get(0);
+            record(cache, entry, names.get(mappers.indexOf(mapper)), mapper,
+                    () -> reader.accept(mapper, mapper._getParsingOptions()));
+            return;
+        }
+
+        // Only skip the parts of the class that no mapper needs
+        int options = ~0;
+        for (final AbstractMapper<?> mapper : applicable) {
+            options &= mapper._getParsingOptions();
+        }
+
+        // Read the class once, and replay it to every mapper
+        final ClassNode klass = new ClassNode();
+        reader.accept(klass, options);
+        for (final AbstractMapper<?> mapper : applicable) {
+            record(cache, entry, names.get(mappers.indexOf(mapper)), mapper, () -> klass.accept(mapper));
+        }
+    }
+
+    private static long countClasses(final MappedJar jar) {
+        long classes = 0;
+        for (final MappedJar.Entry entry : jar.getEntries()) {
+            if (entry.isClass()) classes++;
+        }
+        return classes;
+    }
+
+    private static boolean isReplayed(final MapperCache cache, final JarClassEntry entry,
+                                      final AbstractMapper<?> mapper) {
+        return cache != null && mapper.isIncremental() && cache.isUnchanged(entry.getName());
+    }
+
+    /**
+     * Visits a class with the given mapper, keeping the mappings it
+     * writes in the cache - should it be incremental.
+     */
+    private static void record(final MapperCache cache, final JarClassEntry entry, final String name,
+                               final AbstractMapper<?> mapper, final Runnable visit) {
+        if (cache == null || !mapper.isIncremental()) {
+            visit.run();
+            return;
+        }
+
+        final List<MappingWriter.Write> writes = new ArrayList<>();
+        mapper.writer()._record(writes);
+        try {
+            visit.run();
+        }
+        finally {
+            mapper.writer()._record(null);
+        }
+        cache.put(entry.getName(), name, writes);
+    }
+
+    private static void await(final Future<?> future) throws IOException {
+        try {
+            future.get();
+        }
+        catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while remapping jars");
+        }
+        catch (final ExecutionException ex) {
+            final Throwable cause = ex.getCause();
+            if (cause instanceof IOException) throw (IOException) cause;
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            if (cause instanceof Error) throw (Error) cause;
+            throw new IOException(cause);
         }
     }
 
@@ -274,4 +894,50 @@ public class Survey implements SurveyContext {
         };
     }
 
+    /**
+     * A fork-join task, that splits a range of classes across the pool's
+     * workers.
+     */
+    private static final class MapperTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private static final int THRESHOLD = 64;
+
+        private final List<JarClassEntry> classes;
+        private final int start;
+        private final int end;
+        private final List<String> names;
+        private final ThreadLocal<List<AbstractMapper<?>>> mappers;
+        private final MapperCache cache;
+
+        MapperTask(final List<JarClassEntry> classes, final int start, final int end, final List<String> names,
+                   final ThreadLocal<List<AbstractMapper<?>>> mappers, final MapperCache cache) {
+            this.classes = classes;
+            this.start = start;
+            this.end = end;
+            this.names = names;
+            this.mappers = mappers;
+            this.cache = cache;
+        }
+
+        @Override
+        protected void compute() {
+            if (this.end - this.start <= THRESHOLD) {
+                final List<AbstractMapper<?>> mappers = this.mappers.get();
+                for (int i = this.start; i < this.end; i++) {
+                    accept(this.classes.get(i), this.names, mappers, this.cache);
+                }
+                return;
+            }
+
+            final int middle = (this.start + this.end) >>> 1;
+            invokeAll(
+                    new MapperTask(this.classes, this.start, middle, this.names, this.mappers, this.cache),
+                    new MapperTask(this.classes, middle, this.end, this.names, this.mappers, this.cache)
+            );
+        }
+
+    }
+
 }
@@ -0,0 +1,301 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package org.cadixdev.survey;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.OperatingSystemMXBean;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Timings, and throughput, of the phases of a run of Survey.
+ * <p>
+ * CPU time is that of the whole process - so it includes any threads a
+ * phase runs on - and is {@code -1} on platforms that can't measure it.
+ *
+ * @author Jamie Mansfield
+ * @since 0.2.0
+ */
+public class SurveyStats {
+
+    /**
+     * Runs the given action, timing it as a phase should there be stats to
+     * record it in.
+     *
+     * @param stats The stats, or {@code null}
+     * @param name The name of the phase
+     * @param mappers The ids of the mappers run in the phase
+     * @param classes The number of classes processed in the phase, or
+     *                {@code -1}
+     * @param action The action
+     * @param <T> The type of the action's result
+     * @param <E> The type of exception the action can throw
+     * @return The result of the action
+     * @throws E Should the action fail
+     */
+    public static <T, E extends Exception> T time(final SurveyStats stats, final String name,
+                                                  final List<String> mappers, final long classes,
+                                                  final Timed<T, E> action) throws E {
+        final Phase phase = stats != null ? stats.start(name, mappers, classes) : null;
+        try {
+            return action.run();
+        }
+        finally {
+            if (phase != null) phase.close();
+        }
+    }
+
+    private final long start = System.nanoTime();
+    private final long startCpu = cpuTime();
+    private final List<Phase> phases = Collections.synchronizedList(new ArrayList<>());
+    private final Map<String, Long> blacklisted = Collections.synchronizedMap(new LinkedHashMap<>());
+    private long classes;
+    private long bytesRead;
+    private long bytesWritten;
+
+    public SurveyStats() {
+        // Only the peak of this run is of interest
+        for (final MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) pool.resetPeakUsage();
+        }
+    }
+
+    /**
+     * Starts timing a phase, which ends when it is closed.
+     *
+     * @param name The name of the phase
+     * @return The phase
+     */
+    public Phase start(final String name) {
+        return this.start(name, Collections.emptyList(), -1);
+    }
+
+    /**
+     * Starts timing a phase, which ends when it is closed.
+     *
+     * @param name The name of the phase
+     * @param mappers The ids of the mappers run in the phase
+     * @param classes The number of classes processed in the phase, or
+     *                {@code -1}
+     * @return The phase
+     */
+    public Phase start(final String name, final List<String> mappers, final long classes) {
+        final Phase phase = new Phase(name, new ArrayList<>(mappers), classes);
+        this.phases.add(phase);
+        return phase;
+    }
+
+    /**
+     * Gets the phases, in the order they were started.
+     *
+     * @return The phases
+     */
+    public List<Phase> getPhases() {
+        synchronized (this.phases) {
+            return new ArrayList<>(this.phases);
+        }
+    }
+
+    /**
+     * Records the number of classes the given mapper skipped, as its
+     * context blacklisted them.
+     *
+     * @param mapper The id of the mapper
+     * @param classes The number of classes skipped
+     */
+    public void blacklisted(final String mapper, final long classes) {
+        this.blacklisted.merge(mapper, classes, Long::sum);
+    }
+
+    /**
+     * Gets the number of classes each mapper skipped, as its context
+     * blacklisted them.
+     *
+     * @return The blacklisted classes, by mapper id
+     */
+    public Map<String, Long> getBlacklisted() {
+        synchronized (this.blacklisted) {
+            return new LinkedHashMap<>(this.blacklisted);
+        }
+    }
+
+    /**
+     * Records the number of classes being mapped.
+     *
+     * @param classes The number of classes
+     */
+    public void classes(final long classes) {
+        this.classes = classes;
+    }
+
+    public long getClasses() {
+        return this.classes;
+    }
+
+    /**
+     * Records bytes read from the inputs of the run.
+     *
+     * @param bytes The number of bytes
+     */
+    public void read(final long bytes) {
+        this.bytesRead += bytes;
+    }
+
+    public long getBytesRead() {
+        return this.bytesRead;
+    }
+
+    /**
+     * Records bytes written to the outputs of the run.
+     *
+     * @param bytes The number of bytes
+     */
+    public void written(final long bytes) {
+        this.bytesWritten += bytes;
+    }
+
+    public long getBytesWritten() {
+        return this.bytesWritten;
+    }
+
+    /**
+     * Gets the wall time since the run started.
+     *
+     * @return The wall time, in nanoseconds
+     */
+    public long getWallTime() {
+        return System.nanoTime() - this.start;
+    }
+
+    /**
+     * Gets the CPU time since the run started.
+     *
+     * @return The CPU time, in nanoseconds, or {@code -1}
+     */
+    public long getCpuTime() {
+        final long cpu = cpuTime();
+        return cpu == -1 || this.startCpu == -1 ? -1 : cpu - this.startCpu;
+    }
+
+    /**
+     * Gets the peak heap usage since the run started, as the sum of the
+     * peaks of each heap pool - which needn't have been reached at the
+     * same time, so is an upper bound.
+     *
+     * @return The peak heap usage, in bytes
+     */
+    public long getPeakHeap() {
+        long peak = 0;
+        for (final MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) peak += pool.getPeakUsage().getUsed();
+        }
+        return peak;
+    }
+
+    private static long cpuTime() {
+        final OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+        if (os instanceof com.sun.management.OperatingSystemMXBean) {
+            return ((com.sun.management.OperatingSystemMXBean) os).getProcessCpuTime();
+        }
+        return -1;
+    }
+
+    /**
+     * An action, that is timed as a phase.
+     *
+     * @param <T> The type of the action's result
+     * @param <E> The type of exception the action can throw
+     */
+    @FunctionalInterface
+    public interface Timed<T, E extends Exception> {
+
+        /**
+         * Runs the action.
+         *
+         * @return The result
+         * @throws E Should the action fail
+         */
+        T run() throws E;
+
+    }
+
+    /**
+     * A timed phase of a run.
+     */
+    public static final class Phase implements AutoCloseable {
+
+        private final String name;
+        private final List<String> mappers;
+        private final long classes;
+        private final long start = System.nanoTime();
+        private final long startCpu = cpuTime();
+        private long wallTime = -1;
+        private long cpuTime = -1;
+
+        Phase(final String name, final List<String> mappers, final long classes) {
+            this.name = name;
+            this.mappers = mappers;
+            this.classes = classes;
+        }
+
+        public String getName() {
+            return this.name;
+        }
+
+        /**
+         * Gets the ids of the mappers run in the phase, which are timed
+         * together should they have shared a pass.
+         *
+         * @return The mapper ids
+         */
+        public List<String> getMappers() {
+            return this.mappers;
+        }
+
+        /**
+         * Gets the number of classes processed in the phase.
+         *
+         * @return The number of classes, or {@code -1}
+         */
+        public long getClasses() {
+            return this.classes;
+        }
+
+        /**
+         * Gets the wall time of the phase.
+         *
+         * @return The wall time, in nanoseconds, or {@code -1} should the
+         *         phase not have ended
+         */
+        public long getWallTime() {
+            return this.wallTime;
+        }
+
+        /**
+         * Gets the CPU time of the phase.
+         *
+         * @return The CPU time, in nanoseconds, or {@code -1}
+         */
+        public long getCpuTime() {
+            return this.cpuTime;
+        }
+
+        @Override
+        public void close() {
+            this.wallTime = System.nanoTime() - this.start;
+            final long cpu = cpuTime();
+            if (cpu != -1 && this.startCpu != -1) this.cpuTime = cpu - this.startCpu;
+        }
+
+    }
+
+}
@@ -0,0 +1,164 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package org.cadixdev.survey.context;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * A compiled blacklist of class name prefixes, backed by a prefix trie -
+ * so that a lookup costs no more than the length of the class name, and
+ * doesn't allocate.
+ *
+ * @author Jamie Mansfield
+ * @since 0.2.0
+ */
+public final class Blacklist {
+
+    /**
+     * A blacklist with no entries.
+     */
+    public static final Blacklist EMPTY = compile(Collections.emptyList());
+
+    static final byte CLEAR = 1;
+    static final byte BLACKLISTED = 2;
+    static final byte DEPENDS = 3;
+
+    /**
+     * Compiles a blacklist from the given prefixes.
+     *
+     * @param prefixes The prefixes to blacklist
+     * @return The blacklist
+     */
+    public static Blacklist compile(final Collection<String> prefixes) {
+        final Builder root = new Builder();
+        for (final String prefix : prefixes) {
+            Builder node = root;
+            for (int i = 0; i < prefix.length() && !node.terminal; i++) {
+                node = node.children.computeIfAbsent(prefix.charAt(i), c -> new Builder());
+            }
+            node.terminal = true;
+        }
+        return new Blacklist(Collections.unmodifiableList(new ArrayList<>(prefixes)), root.build());
+    }
+
+    /**
+     * Merges the given blacklists into one, that matches any class that any
+     * of them would.
+     *
+     * @param blacklists The blacklists
+     * @return The merged blacklist
+     */
+    public static Blacklist merge(final Collection<Blacklist> blacklists) {
+        final List<String> prefixes = new ArrayList<>();
+        for (final Blacklist blacklist : blacklists) {
+            prefixes.addAll(blacklist.prefixes);
+        }
+        return compile(prefixes);
+    }
+
+    private final List<String> prefixes;
+    private final Node root;
+
+    private Blacklist(final List<String> prefixes, final Node root) {
+        this.prefixes = prefixes;
+        this.root = root;
+    }
+
+    /**
+     * Gets the prefixes the blacklist was compiled from.
+     *
+     * @return The prefixes
+     */
+    public List<String> getPrefixes() {
+        return this.prefixes;
+    }
+
+    /**
+     * Establishes whether the given class name starts with any of the
+     * blacklisted prefixes.
+     *
+     * @param klass The class name
+     * @return {@code true} if the class is blacklisted;
+     *         {@code false} otherwise
+     */
+    public boolean matches(final String klass) {
+        Node node = this.root;
+        for (int i = 0; ; i++) {
+            if (node.terminal) return true;
+            if (i == klass.length()) return false;
+
+            final int index = Arrays.binarySearch(node.keys, klass.charAt(i));
+            if (index < 0) return false;
+            node = node.children[index];
+        }
+    }
+
+    /**
+     * Classifies the package of the given class, whose name ends at the
+     * given index - as every class in the package is either blacklisted,
+     * clear, or it depends on the rest of the class name.
+     *
+     * @param klass The class name
+     * @param end The index of the final {@code '/'} of the class name
+     * @return The classification
+     */
+    byte classify(final String klass, final int end) {
+        Node node = this.root;
+        for (int i = 0; i <= end; i++) {
+            if (node.terminal) return BLACKLISTED;
+
+            final int index = Arrays.binarySearch(node.keys, klass.charAt(i));
+            if (index < 0) return CLEAR;
+            node = node.children[index];
+        }
+        if (node.terminal) return BLACKLISTED;
+        return node.keys.length == 0 ? CLEAR : DEPENDS;
+    }
+
+    private static final class Node {
+
+        final boolean terminal;
+        final char[] keys;
+        final Node[] children;
+
+        Node(final boolean terminal, final char[] keys, final Node[] children) {
+            this.terminal = terminal;
+            this.keys = keys;
+            this.children = children;
+        }
+
+    }
+
+    private static final class Builder {
+
+        final Map<Character, Builder> children = new TreeMap<>();
+        boolean terminal = false;
+
+        Node build() {
+            // Nothing below a terminal node can change the outcome
+            if (this.terminal) return new Node(true, new char[0], new Node[0]);
+
+            final char[] keys = new char[this.children.size()];
+            final Node[] children = new Node[this.children.size()];
+            int i = 0;
+            for (final Map.Entry<Character, Builder> entry : this.children.entrySet()) {
+                keys[i] = entry.getKey();
+                children[i] = entry.getValue().build();
+                i++;
+            }
+            return new Node(false, keys, children);
+        }
+
+    }
+
+}
@@ -9,11 +9,16 @@ package org.cadixdev.survey.context;
 import org.cadixdev.lorenz.MappingSet;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
  * An implementation of {@link SurveyContext} that is backed by
  * many - allowing multiples sources to be used.
+ * <p>
+ * Before its first lookup, the context is flattened - with every prefix
+ * blacklist of the contexts it is backed by (and of those they are backed
+ * by) compiled into one, and memoised by package.
  *
  * @author Jamie Mansfield
  * @since 0.2.0
@@ -22,6 +27,7 @@ public class CascadingSurveyContext implements SurveyContext {
 
     private final MappingSet mappings;
     private final List<SurveyContext> contexts = new ArrayList<>();
+    private volatile Compiled compiled;
 
     public CascadingSurveyContext(final MappingSet mappings) {
         this.mappings = mappings;
@@ -36,9 +42,48 @@ public class CascadingSurveyContext implements SurveyContext {
     public CascadingSurveyContext install(final SurveyContext ctx) {
         if (ctx == null) return this;
         this.contexts.add(ctx);
+        this.compiled = null;
         return this;
     }
 
+    /**
+     * Flattens the installed contexts into a single matcher. This is done
+     * lazily, on the first lookup, though should be re-done if any of the
+     * installed contexts have changed since.
+     *
+     * @return {@code this}, for chaining
+     */
+    public CascadingSurveyContext compile() {
+        final List<Blacklist> blacklists = new ArrayList<>();
+        final List<SurveyContext> others = new ArrayList<>();
+        this.flatten(blacklists, others);
+        this.compiled = new Compiled(new PackageMemo(Blacklist.merge(blacklists)), others);
+        return this;
+    }
+
+    private void flatten(final List<Blacklist> blacklists, final List<SurveyContext> others) {
+        for (final SurveyContext ctx : this.contexts) {
+            if (ctx instanceof CascadingSurveyContext) {
+                ((CascadingSurveyContext) ctx).flatten(blacklists, others);
+                continue;
+            }
+
+            final Blacklist blacklist = ctx.getBlacklist();
+            if (blacklist != null) {
+                blacklists.add(blacklist);
+            }
+            else {
+                others.add(ctx);
+            }
+        }
+    }
+
+    private Compiled compiled() {
+        final Compiled compiled = this.compiled;
+        if (compiled != null) return compiled;
+        return this.compile().compiled;
+    }
+
     @Override
     public MappingSet mappings() {
         return this.mappings;
@@ -46,10 +91,30 @@ public class CascadingSurveyContext implements SurveyContext {
 
     @Override
     public boolean blacklisted(final String klass) {
-        for (final SurveyContext ctx : this.contexts) {
+        final Compiled compiled = this.compiled();
+        if (compiled.blacklist.matches(klass)) return true;
+        for (final SurveyContext ctx : compiled.others) {
             if (ctx.blacklisted(klass)) return true;
         }
         return false;
     }
 
+    @Override
+    public Blacklist getBlacklist() {
+        final Compiled compiled = this.compiled();
+        return compiled.others.isEmpty() ? compiled.blacklist.getBlacklist() : null;
+    }
+
+    private static final class Compiled {
+
+        final PackageMemo blacklist;
+        final List<SurveyContext> others;
+
+        Compiled(final PackageMemo blacklist, final List<SurveyContext> others) {
+            this.blacklist = blacklist;
+            this.others = Collections.unmodifiableList(others);
+        }
+
+    }
+
 }
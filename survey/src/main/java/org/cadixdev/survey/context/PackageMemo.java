@@ -0,0 +1,111 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package org.cadixdev.survey.context;
+
+/**
+ * A {@link Blacklist} that memoises its decision for each package, as
+ * every class in a package gets the same answer from a prefix - unless a
+ * prefix ends part way into a class name, in which case the class is
+ * looked up as usual.
+ * <p>
+ * Lookups don't allocate, only the first lookup of a package does. Reads
+ * aren't locked, as entries are immutable and never removed.
+ *
+ * @author Jamie Mansfield
+ * @since 0.2.0
+ */
+final class PackageMemo {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final Blacklist blacklist;
+    private volatile Entry[] table = new Entry[INITIAL_CAPACITY];
+    private int size = 0;
+
+    PackageMemo(final Blacklist blacklist) {
+        this.blacklist = blacklist;
+    }
+
+    Blacklist getBlacklist() {
+        return this.blacklist;
+    }
+
+    boolean matches(final String klass) {
+        final int end = klass.lastIndexOf('/');
+        if (end == -1) return this.blacklist.matches(klass);
+
+        final int hash = hash(klass, end);
+        byte state = lookup(this.table, klass, end, hash);
+        if (state == 0) {
+            state = this.blacklist.classify(klass, end);
+            this.insert(klass.substring(0, end), hash, state);
+        }
+
+        if (state == Blacklist.DEPENDS) return this.blacklist.matches(klass);
+        return state == Blacklist.BLACKLISTED;
+    }
+
+    private synchronized void insert(final String pkg, final int hash, final byte state) {
+        Entry[] table = this.table;
+        if (lookup(table, pkg, pkg.length(), hash) != 0) return;
+
+        // Keep the table at most half full
+        if ((this.size + 1) * 2 > table.length) {
+            final Entry[] resized = new Entry[table.length * 2];
+            for (final Entry entry : table) {
+                if (entry != null) place(resized, entry);
+            }
+            table = resized;
+        }
+        place(table, new Entry(pkg, hash, state));
+        this.size++;
+        this.table = table;
+    }
+
+    private static byte lookup(final Entry[] table, final String klass, final int end, final int hash) {
+        final int mask = table.length - 1;
+        for (int i = hash & mask; ; i = (i + 1) & mask) {
+            final Entry entry = table[i];
+            if (entry == null) return 0;
+            if (entry.hash == hash && entry.pkg.length() == end && klass.regionMatches(0, entry.pkg, 0, end)) {
+                return entry.state;
+            }
+        }
+    }
+
+    private static void place(final Entry[] table, final Entry entry) {
+        final int mask = table.length - 1;
+        int i = entry.hash & mask;
+        while (table[i] != null) {
+            i = (i + 1) & mask;
+        }
+        table[i] = entry;
+    }
+
+    private static int hash(final String klass, final int end) {
+        int hash = 0;
+        for (int i = 0; i < end; i++) {
+            hash = 31 * hash + klass.charAt(i);
+        }
+        return hash ^ (hash >>> 16);
+    }
+
+    private static final class Entry {
+
+        final String pkg;
+        final int hash;
+        final byte state;
+
+        Entry(final String pkg, final int hash, final byte state) {
+            this.pkg = pkg;
+            this.hash = hash;
+            this.state = state;
+        }
+
+    }
+
+}
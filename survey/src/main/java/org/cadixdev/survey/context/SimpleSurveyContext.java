@@ -19,13 +19,17 @@ import java.util.List;
 public class SimpleSurveyContext implements SurveyContext {
 
     private final MappingSet mappings;
-    private final List<String> blacklist;
+    private final Blacklist blacklist;
 
-    public SimpleSurveyContext(final MappingSet mappings, final List<String> blacklist) {
+    public SimpleSurveyContext(final MappingSet mappings, final Blacklist blacklist) {
         this.mappings = mappings;
         this.blacklist = blacklist;
     }
 
+    public SimpleSurveyContext(final MappingSet mappings, final List<String> blacklist) {
+        this(mappings, Blacklist.compile(blacklist));
+    }
+
     @Override
     public MappingSet mappings() {
         return this.mappings;
@@ -33,10 +37,12 @@ public class SimpleSurveyContext implements SurveyContext {
 
     @Override
     public boolean blacklisted(final String klass) {
-        for (final String blacklisted : this.blacklist) {
-            if (klass.startsWith(blacklisted)) return true;
-        }
-        return false;
+        return this.blacklist.matches(klass);
+    }
+
+    @Override
+    public Blacklist getBlacklist() {
+        return this.blacklist;
     }
 
 }
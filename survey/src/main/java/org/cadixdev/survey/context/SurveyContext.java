@@ -33,4 +33,16 @@ public interface SurveyContext {
      */
     boolean blacklisted(final String klass);
 
+    /**
+     * Gets the blacklist of the context, should its blacklist be made up
+     * solely of class name prefixes - allowing it to be flattened into
+     * the blacklist of another context.
+     *
+     * @return The blacklist, or {@code null} should the context not have
+     *         a prefix blacklist
+     */
+    default Blacklist getBlacklist() {
+        return null;
+    }
+
 }
@@ -61,7 +61,7 @@ public class SurveyContextBuilder {
     public Survey build() {
         return this.survey.context(this.id, new CascadingSurveyContext(this.survey.mappings())
                 .install(this.survey._getContext(this.parent))
-                .install(new SimpleSurveyContext(this.survey.mappings(), this.blacklist))
+                .install(new SimpleSurveyContext(this.survey.mappings(), Blacklist.compile(this.blacklist)))
         );
     }
 
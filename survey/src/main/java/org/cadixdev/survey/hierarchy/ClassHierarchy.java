@@ -0,0 +1,147 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package org.cadixdev.survey.hierarchy;
+
+import org.cadixdev.bombe.analysis.InheritanceProvider;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The parents of classes, as needed to resolve inherited mappings.
+ *
+ * @author Jamie Mansfield
+ * @since 0.2.0
+ * @see ClassHierarchyIndex
+ */
+public interface ClassHierarchy {
+
+    /**
+     * Creates a class hierarchy backed by the given inheritance provider.
+     *
+     * @param provider The inheritance provider
+     * @return The class hierarchy
+     */
+    static ClassHierarchy of(final InheritanceProvider provider) {
+        return new ClassHierarchy() {
+            @Override
+            public boolean contains(final String klass) {
+                return provider.provide(klass).isPresent();
+            }
+
+            @Override
+            public String getSuperName(final String klass) {
+                return provider.provide(klass)
+                        .map(InheritanceProvider.ClassInfo::getSuperName)
+                        .orElse(null);
+            }
+
+            @Override
+            public List<String> getInterfaces(final String klass) {
+                return provider.provide(klass)
+                        .map(InheritanceProvider.ClassInfo::getInterfaces)
+                        .orElse(Collections.emptyList());
+            }
+        };
+    }
+
+    /**
+     * Establishes whether the hierarchy knows of the given class.
+     *
+     * @param klass The name of the class
+     * @return {@code true} if the class is known;
+     *         {@code false} otherwise
+     */
+    boolean contains(final String klass);
+
+    /**
+     * Gets the super class of the given class.
+     *
+     * @param klass The name of the class
+     * @return The name of the super class, or {@code null} should the
+     *         class not be known (or have no super class)
+     */
+    String getSuperName(final String klass);
+
+    /**
+     * Gets the interfaces the given class directly implements.
+     *
+     * @param klass The name of the class
+     * @return The names of the interfaces, which are empty should the
+     *         class not be known
+     */
+    List<String> getInterfaces(final String klass);
+
+    /**
+     * Gets the access flags of the given field, as declared by the given
+     * class - as needed to establish whether it can be inherited.
+     *
+     * @param klass The name of the class
+     * @param name The name of the field
+     * @param desc The descriptor of the field, or {@code null} should it not
+     *             be known
+     * @return The access flags, or {@code -1} should they not be known
+     */
+    default int getFieldAccess(final String klass, final String name, final String desc) {
+        return -1;
+    }
+
+    /**
+     * Gets the access flags of the given method, as declared by the given
+     * class - as needed to establish whether it can be inherited.
+     *
+     * @param klass The name of the class
+     * @param name The name of the method
+     * @param desc The descriptor of the method
+     * @return The access flags, or {@code -1} should they not be known
+     */
+    default int getMethodAccess(final String klass, final String name, final String desc) {
+        return -1;
+    }
+
+    /**
+     * Creates a class hierarchy that consults the given hierarchy for any
+     * class this hierarchy doesn't know of.
+     *
+     * @param fallback The fallback hierarchy
+     * @return The class hierarchy
+     */
+    default ClassHierarchy or(final ClassHierarchy fallback) {
+        final ClassHierarchy self = this;
+        return new ClassHierarchy() {
+            @Override
+            public boolean contains(final String klass) {
+                return self.contains(klass) || fallback.contains(klass);
+            }
+
+            @Override
+            public String getSuperName(final String klass) {
+                return self.contains(klass) ? self.getSuperName(klass) : fallback.getSuperName(klass);
+            }
+
+            @Override
+            public List<String> getInterfaces(final String klass) {
+                return self.contains(klass) ? self.getInterfaces(klass) : fallback.getInterfaces(klass);
+            }
+
+            @Override
+            public int getFieldAccess(final String klass, final String name, final String desc) {
+                return self.contains(klass) ?
+                        self.getFieldAccess(klass, name, desc) :
+                        fallback.getFieldAccess(klass, name, desc);
+            }
+
+            @Override
+            public int getMethodAccess(final String klass, final String name, final String desc) {
+                return self.contains(klass) ?
+                        self.getMethodAccess(klass, name, desc) :
+                        fallback.getMethodAccess(klass, name, desc);
+            }
+        };
+    }
+
+}
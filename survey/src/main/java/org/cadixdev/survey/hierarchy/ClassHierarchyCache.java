@@ -0,0 +1,71 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package org.cadixdev.survey.hierarchy;
+
+import org.cadixdev.survey.util.AtomicFiles;
+import org.cadixdev.survey.util.Digests;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A directory of persisted {@link ClassHierarchyIndex class hierarchy
+ * indices}, keyed by the SHA-256 hash of the jar they index.
+ *
+ * @author Jamie Mansfield
+ * @since 0.2.0
+ */
+public class ClassHierarchyCache {
+
+    private static final String EXTENSION = ".hierarchy";
+
+    private final Path directory;
+    private final Map<Path, String> hashes = new ConcurrentHashMap<>();
+
+    public ClassHierarchyCache(final Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Loads the index of the given jar, should it have been cached.
+     *
+     * @param jar The path to the jar
+     * @return The index, if cached
+     * @throws IOException Should an I/O issue occur
+     */
+    public Optional<ClassHierarchyIndex> load(final Path jar) throws IOException {
+        final Path path = this.getPath(jar);
+        if (Files.notExists(path)) return Optional.empty();
+        return Optional.of(ClassHierarchyIndex.read(path));
+    }
+
+    /**
+     * Saves the index of the given jar to the cache.
+     *
+     * @param jar The path to the jar
+     * @param index The index of the jar
+     * @throws IOException Should an I/O issue occur
+     */
+    public void save(final Path jar, final ClassHierarchyIndex index) throws IOException {
+        AtomicFiles.write(this.getPath(jar), index::write);
+    }
+
+    private Path getPath(final Path jar) throws IOException {
+        // Jars are only hashed once, as they're typically both loaded and saved
+        String hash = this.hashes.get(jar);
+        if (hash == null) {
+            hash = Digests.sha256(jar);
+            this.hashes.put(jar, hash);
+        }
+        return this.directory.resolve(hash + EXTENSION);
+    }
+
+}
@@ -0,0 +1,302 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package org.cadixdev.survey.hierarchy;
+
+import static org.cadixdev.atlas.jar.JarVisitOption.IGNORE_MANIFESTS;
+import static org.cadixdev.atlas.jar.JarVisitOption.IGNORE_RESOURCES;
+import static org.cadixdev.atlas.jar.JarVisitOption.IGNORE_SERVICE_PROVIDER_CONFIGURATIONS;
+
+import org.cadixdev.atlas.jar.JarFile;
+import org.cadixdev.survey.jar.MappedJar;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.FieldVisitor;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * An index of the hierarchy of the classes in a jar, built from their
+ * headers and member declarations.
+ * <p>
+ * Of the members, only those that can't be inherited everywhere - private
+ * and package-private members - are recorded. Any other member is reported
+ * as public, which is all inheriting it depends on.
+ * <p>
+ * An index is built once - either while Survey is reading the jar to map
+ * it, or from a {@link ClassHierarchyCache cache} - and then shared by
+ * everything that needs to resolve inherited mappings. It can be persisted,
+ * so repeat runs against the same jar needn't discover the hierarchy at all.
+ * <p>
+ * Classes can be added from many threads at once, and lookups don't lock.
+ *
+ * @author Jamie Mansfield
+ * @since 0.2.0
+ */
+public class ClassHierarchyIndex implements ClassHierarchy {
+
+    private static final int MAGIC = 0x53564348; // SVCH
+    private static final int VERSION = 2;
+
+    private static final int RESTRICTED = Opcodes.ACC_PUBLIC | Opcodes.ACC_PROTECTED | Opcodes.ACC_PRIVATE;
+
+    /**
+     * Indexes the classes of the given jar.
+     *
+     * @param jar The jar
+     * @return The index
+     * @throws IOException Should an I/O issue occur
+     */
+    public static ClassHierarchyIndex of(final JarFile jar) throws IOException {
+        final ClassHierarchyIndex index = new ClassHierarchyIndex();
+        jar.walk(IGNORE_MANIFESTS, IGNORE_SERVICE_PROVIDER_CONFIGURATIONS, IGNORE_RESOURCES)
+                .map(jar::getClass)
+                .forEach(entry -> index.add(new ClassReader(entry.getContents())));
+        return index;
+    }
+
+    /**
+     * Indexes the classes of the given jar.
+     *
+     * @param jar The jar
+     * @return The index
+     * @throws IOException Should an I/O issue occur
+     */
+    public static ClassHierarchyIndex of(final MappedJar jar) throws IOException {
+        final ClassHierarchyIndex index = new ClassHierarchyIndex();
+        for (final MappedJar.Entry entry : jar.getEntries()) {
+            if (entry.isClass()) index.add(new ClassReader(jar.getContents(entry)));
+        }
+        return index;
+    }
+
+    /**
+     * Reads an index from the given path.
+     *
+     * @param path The path to the index
+     * @return The index
+     * @throws IOException Should an I/O issue occur
+     */
+    public static ClassHierarchyIndex read(final Path path) throws IOException {
+        try (final DataInputStream in = new DataInputStream(new GZIPInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != MAGIC) throw new IOException("Not a class hierarchy index!");
+            if (in.readInt() != VERSION) throw new IOException("Unsupported class hierarchy index version!");
+
+            final ClassHierarchyIndex index = new ClassHierarchyIndex();
+            final int size = in.readInt();
+            for (int i = 0; i < size; i++) {
+                final String name = in.readUTF();
+                final String superName = in.readBoolean() ? in.readUTF() : null;
+                final String[] interfaces = new String[in.readUnsignedShort()];
+                for (int j = 0; j < interfaces.length; j++) {
+                    interfaces[j] = in.readUTF();
+                }
+                final int members = in.readInt();
+                final Map<String, Integer> restricted = members == 0 ? Collections.emptyMap() : new HashMap<>(members);
+                for (int j = 0; j < members; j++) {
+                    restricted.put(in.readUTF(), in.readInt());
+                }
+                index.classes.put(name, new Node(superName, interfaces(interfaces), restricted));
+            }
+            return index;
+        }
+    }
+
+    private final Map<String, Node> classes = new ConcurrentHashMap<>();
+
+    /**
+     * Adds the class being read by the given reader to the index.
+     *
+     * @param reader The class reader
+     */
+    public void add(final ClassReader reader) {
+        final Map<String, Integer> restricted = new HashMap<>();
+        reader.accept(new ClassVisitor(Opcodes.ASM6) {
+            @Override
+            public FieldVisitor visitField(final int access, final String name, final String descriptor,
+                                           final String signature, final Object value) {
+                if (isRestricted(access)) {
+                    restricted.put(fieldKey(name, descriptor), access & RESTRICTED);
+                    // Not all formats record the types of fields
+                    restricted.putIfAbsent(fieldKey(name, null), access & RESTRICTED);
+                }
+                return null;
+            }
+
+            @Override
+            public MethodVisitor visitMethod(final int access, final String name, final String descriptor,
+                                             final String signature, final String[] exceptions) {
+                if (isRestricted(access)) restricted.put(name + descriptor, access & RESTRICTED);
+                return null;
+            }
+        }, ClassReader.SKIP_CODE | ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+
+        this.classes.put(reader.getClassName(), new Node(reader.getSuperName(), interfaces(reader.getInterfaces()),
+                restricted.isEmpty() ? Collections.emptyMap() : restricted));
+    }
+
+    /**
+     * Adds the given class to the index, without any of its members.
+     *
+     * @param name The name of the class
+     * @param superName The name of the super class, or {@code null}
+     * @param interfaces The names of the interfaces
+     */
+    public void add(final String name, final String superName, final String[] interfaces) {
+        this.classes.put(name, new Node(superName, interfaces(interfaces), Collections.emptyMap()));
+    }
+
+    /**
+     * Adds the given member access to the given, already indexed, class.
+     * Only private and package-private members need be added.
+     *
+     * @param klass The name of the class
+     * @param name The name of the member
+     * @param desc The descriptor of the member
+     * @param access The access flags of the member
+     */
+    public void addMember(final String klass, final String name, final String desc, final int access) {
+        final Node node = this.classes.get(klass);
+        if (node == null) throw new IllegalArgumentException("Unknown class: " + klass);
+        if (!isRestricted(access)) return;
+
+        final Map<String, Integer> restricted = new HashMap<>(node.restricted);
+        if (desc.startsWith("(")) {
+            restricted.put(name + desc, access & RESTRICTED);
+        }
+        else {
+            restricted.put(fieldKey(name, desc), access & RESTRICTED);
+            restricted.putIfAbsent(fieldKey(name, null), access & RESTRICTED);
+        }
+        this.classes.put(klass, new Node(node.superName, node.interfaces, restricted));
+    }
+
+    /**
+     * Gets the names of the indexed classes.
+     *
+     * @return The classes
+     */
+    public Set<String> getClasses() {
+        return Collections.unmodifiableSet(this.classes.keySet());
+    }
+
+    /**
+     * Gets the number of indexed classes.
+     *
+     * @return The size
+     */
+    public int size() {
+        return this.classes.size();
+    }
+
+    @Override
+    public boolean contains(final String klass) {
+        return this.classes.containsKey(klass);
+    }
+
+    @Override
+    public String getSuperName(final String klass) {
+        final Node node = this.classes.get(klass);
+        return node == null ? null : node.superName;
+    }
+
+    @Override
+    public List<String> getInterfaces(final String klass) {
+        final Node node = this.classes.get(klass);
+        return node == null ? Collections.emptyList() : node.interfaces;
+    }
+
+    @Override
+    public int getFieldAccess(final String klass, final String name, final String desc) {
+        final Node node = this.classes.get(klass);
+        return node == null ? -1 : node.restricted.getOrDefault(fieldKey(name, desc), Opcodes.ACC_PUBLIC);
+    }
+
+    @Override
+    public int getMethodAccess(final String klass, final String name, final String desc) {
+        final Node node = this.classes.get(klass);
+        return node == null ? -1 : node.restricted.getOrDefault(name + desc, Opcodes.ACC_PUBLIC);
+    }
+
+    /**
+     * Writes the index to the given path, ordered by class name.
+     *
+     * @param path The path to write to
+     * @throws IOException Should an I/O issue occur
+     */
+    public void write(final Path path) throws IOException {
+        // Sorted, so the same jar always gives the same file
+        final List<Map.Entry<String, Node>> entries = new ArrayList<>(this.classes.entrySet());
+        entries.sort(Map.Entry.comparingByKey());
+
+        try (final DataOutputStream out = new DataOutputStream(new GZIPOutputStream(Files.newOutputStream(path)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(entries.size());
+            for (final Map.Entry<String, Node> entry : entries) {
+                final Node node = entry.getValue();
+                out.writeUTF(entry.getKey());
+                out.writeBoolean(node.superName != null);
+                if (node.superName != null) out.writeUTF(node.superName);
+                out.writeShort(node.interfaces.size());
+                for (final String iface : node.interfaces) {
+                    out.writeUTF(iface);
+                }
+                out.writeInt(node.restricted.size());
+                for (final Map.Entry<String, Integer> member : node.restricted.entrySet()) {
+                    out.writeUTF(member.getKey());
+                    out.writeInt(member.getValue());
+                }
+            }
+        }
+    }
+
+    private static boolean isRestricted(final int access) {
+        return (access & (Opcodes.ACC_PUBLIC | Opcodes.ACC_PROTECTED)) == 0;
+    }
+
+    private static String fieldKey(final String name, final String desc) {
+        // Method descriptors start with a parenthesis, so never collide
+        return desc == null ? name + ':' : name + ':' + desc;
+    }
+
+    private static List<String> interfaces(final String[] interfaces) {
+        return interfaces.length == 0 ?
+                Collections.emptyList() :
+                Collections.unmodifiableList(Arrays.asList(interfaces));
+    }
+
+    private static final class Node {
+
+        private final String superName;
+        private final List<String> interfaces;
+        private final Map<String, Integer> restricted;
+
+        Node(final String superName, final List<String> interfaces, final Map<String, Integer> restricted) {
+            this.superName = superName;
+            this.interfaces = interfaces;
+            this.restricted = restricted;
+        }
+
+    }
+
+}
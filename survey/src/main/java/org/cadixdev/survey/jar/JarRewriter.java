@@ -0,0 +1,342 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package org.cadixdev.survey.jar;
+
+import org.cadixdev.bombe.jar.JarClassEntry;
+import org.cadixdev.bombe.jar.JarEntryTransformer;
+import org.cadixdev.survey.util.AtomicFiles;
+import org.objectweb.asm.commons.Remapper;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.jar.Attributes;
+import java.util.jar.Manifest;
+import java.util.zip.Deflater;
+
+/**
+ * Writes a transformed copy of a {@link MappedJar}.
+ * <p>
+ * Classes are passed through a {@link JarEntryTransformer}, and the main
+ * class of the manifest and any service provider configurations are
+ * remapped - as Atlas would. The entries keep their order, and
+ * modification times.
+ * <p>
+ * Only entries whose contents change are compressed again. Everything
+ * else - resources, and classes that neither the patchers nor the remapper
+ * touch - has its compressed data, CRC, and sizes copied straight from the
+ * input jar.
+ * <p>
+ * With more than one {@link #threads(int) thread}, entries are transformed
+ * and compressed across a pool, while a single writer writes them out in
+ * their original order.
+ * <p>
+ * With a {@link #cache(TransformCache, Function) transform cache}, classes
+ * that have been transformed before are written straight from the cache.
+ * <p>
+ * The jar is only moved to the output path once it has been written in
+ * full, so a rewrite that fails never leaves a truncated jar behind.
+ *
+ * @author Jamie Mansfield
+ * @since 0.2.0
+ */
+public class JarRewriter {
+
+    private static final String MANIFEST = "META-INF/MANIFEST.MF";
+    private static final String SERVICES = "META-INF/services/";
+
+    private final JarEntryTransformer transformer;
+    private final Remapper remapper;
+    private int threads = 1;
+    private TransformCache cache;
+    private Function<JarClassEntry, String> key;
+
+    public JarRewriter(final JarEntryTransformer transformer, final Remapper remapper) {
+        this.transformer = transformer;
+        this.remapper = remapper;
+    }
+
+    /**
+     * Sets the number of threads to transform, and compress, entries with.
+     * Whatever the number of threads, the jar written is the same.
+     *
+     * @param threads The number of threads
+     * @return {@code this}
+     */
+    public JarRewriter threads(final int threads) {
+        if (threads < 1) throw new IllegalArgumentException("JarRewriter requires at least one thread!");
+        this.threads = threads;
+        return this;
+    }
+
+    /**
+     * Sets the cache of transformed classes to use.
+     *
+     * @param cache The transform cache
+     * @param key The function computing the key of a class, giving
+     *            {@code null} for classes that aren't worth caching
+     * @return {@code this}
+     */
+    public JarRewriter cache(final TransformCache cache, final Function<JarClassEntry, String> key) {
+        this.cache = cache;
+        this.key = key;
+        return this;
+    }
+
+    /**
+     * Writes the transformed jar to the given path.
+     *
+     * @param jar The jar to transform
+     * @param output The path to write to
+     * @throws IOException Should an I/O issue occur
+     */
+    public void rewrite(final MappedJar jar, final Path output) throws IOException {
+        AtomicFiles.write(output, temp -> {
+            try (final ZipWriter out = new ZipWriter(temp)) {
+                if (this.threads > 1) {
+                    this.rewriteParallel(jar, out);
+                }
+                else {
+                    this.rewriteSerial(jar, out);
+                }
+            }
+        });
+    }
+
+    private void rewriteSerial(final MappedJar jar, final ZipWriter out) throws IOException {
+        final Queue<Deflater> deflaters = new ArrayDeque<>(1);
+        try {
+            for (final MappedJar.Entry entry : jar.getEntries()) {
+                this.transform(jar, entry, deflaters).write(out, jar);
+            }
+        }
+        finally {
+            deflaters.forEach(Deflater::end);
+        }
+    }
+
+    private void rewriteParallel(final MappedJar jar, final ZipWriter out) throws IOException {
+        final Queue<Deflater> deflaters = new ConcurrentLinkedQueue<>();
+        final ExecutorService pool = Executors.newFixedThreadPool(this.threads, runnable -> {
+            final Thread thread = new Thread(runnable, "Survey Rewriter");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        // Entries are transformed, and compressed, across the pool - but written
+        // in order, by this thread. Only so many entries can be in flight at once,
+        // so a slow disk holds back the workers.
+        final int window = this.threads * 4;
+        final Deque<Future<Output>> pending = new ArrayDeque<>(window);
+        try {
+            for (final MappedJar.Entry entry : jar.getEntries()) {
+                if (pending.size() == window) {
+                    await(pending.poll()).write(out, jar);
+                }
+                pending.add(pool.submit(() -> this.transform(jar, entry, deflaters)));
+            }
+            while (!pending.isEmpty()) {
+                await(pending.poll()).write(out, jar);
+            }
+        }
+        finally {
+            pending.forEach(future -> future.cancel(true));
+            pool.shutdownNow();
+            boolean terminated = false;
+            try {
+                terminated = pool.awaitTermination(1, TimeUnit.MINUTES);
+            }
+            catch (final InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+
+            // Deflaters can only be ended once no worker is using them - should
+            // any worker still be running, they're left to be collected instead
+            if (terminated) deflaters.forEach(Deflater::end);
+        }
+    }
+
+    private static Output await(final Future<Output> future) throws IOException {
+        try {
+            return future.get();
+        }
+        catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while rewriting jar");
+        }
+        catch (final ExecutionException ex) {
+            final Throwable cause = ex.getCause();
+            if (cause instanceof IOException) throw (IOException) cause;
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            if (cause instanceof Error) throw (Error) cause;
+            throw new IOException(cause);
+        }
+    }
+
+    private Output transform(final MappedJar jar, final MappedJar.Entry entry, final Queue<Deflater> deflaters)
+            throws IOException {
+        if (entry.isClass()) {
+            final JarClassEntry original = new JarClassEntry(entry.getName(), entry.getTime(), jar.getContents(entry));
+
+            // Stored entries stay stored, so are cached apart
+            final String key = this.cache != null ? this.key.apply(original) : null;
+            if (key != null) {
+                final TransformCache.Entry cached = this.cache.get(key + ':' + entry.getMethod());
+                if (cached != null) {
+                    jar.release(entry);
+                    return new Output(entry, cached.name, cached.method, cached.data, cached.crc, cached.size);
+                }
+            }
+
+            final JarClassEntry klass = this.transformer.transform(original);
+
+            // The contents were only kept for the remapper
+            jar.release(entry);
+            final Output output = Output.of(entry, klass.getName(), original.getContents(), klass.getContents(), deflaters);
+            if (key != null && output.data != null) {
+                this.cache.put(key + ':' + entry.getMethod(),
+                        new TransformCache.Entry(output.name, output.method, output.data, output.crc, output.size));
+            }
+            return output;
+        }
+        if (entry.getName().equals(MANIFEST)) {
+            final byte[] contents = jar.getContents(entry);
+            return Output.of(entry, entry.getName(), contents, this.remapManifest(contents), deflaters);
+        }
+        if (isServiceProviderConfiguration(entry.getName())) {
+            final String service = entry.getName().substring(SERVICES.length());
+            final byte[] contents = jar.getContents(entry);
+            return Output.of(entry, SERVICES + this.remapClassName(service), contents,
+                    this.remapServiceProviders(contents), deflaters);
+        }
+
+        // Directories and resources are never changed
+        return Output.copy(entry, entry.getName());
+    }
+
+    private byte[] remapManifest(final byte[] contents) throws IOException {
+        final Manifest manifest = new Manifest(new ByteArrayInputStream(contents));
+        final String main = manifest.getMainAttributes().getValue(Attributes.Name.MAIN_CLASS);
+        if (main == null) return contents;
+
+        final String mapped = this.remapClassName(main);
+        if (mapped.equals(main)) return contents;
+
+        // Only rewrite manifests that change, as the order of their
+        // attributes isn't kept
+        manifest.getMainAttributes().put(Attributes.Name.MAIN_CLASS, mapped);
+        final ByteArrayOutputStream out = new ByteArrayOutputStream(contents.length);
+        manifest.write(out);
+        return out.toByteArray();
+    }
+
+    private byte[] remapServiceProviders(final byte[] contents) {
+        final String[] lines = new String(contents, StandardCharsets.UTF_8).split("\r?\n", -1);
+        boolean changed = false;
+        for (int i = 0; i < lines.length; i++) {
+            // Providers can be followed by a comment
+            final int comment = lines[i].indexOf('#');
+            final String provider = (comment == -1 ? lines[i] : lines[i].substring(0, comment)).trim();
+            if (provider.isEmpty()) continue;
+
+            final String mapped = this.remapClassName(provider);
+            if (mapped.equals(provider)) continue;
+            lines[i] = comment == -1 ? mapped : mapped + ' ' + lines[i].substring(comment);
+            changed = true;
+        }
+        return changed ? String.join("\n", lines).getBytes(StandardCharsets.UTF_8) : contents;
+    }
+
+    private String remapClassName(final String klass) {
+        return this.remapper.map(klass.replace('.', '/')).replace('/', '.');
+    }
+
+    private static boolean isServiceProviderConfiguration(final String name) {
+        return name.length() > SERVICES.length() && name.startsWith(SERVICES) &&
+                name.indexOf('/', SERVICES.length()) == -1;
+    }
+
+    /**
+     * An entry, ready to be written.
+     */
+    private static final class Output {
+
+        /**
+         * Creates the output for an entry that is copied as-is.
+         */
+        static Output copy(final MappedJar.Entry entry, final String name) {
+            return new Output(entry, name, -1, null, 0, 0);
+        }
+
+        /**
+         * Creates the output for the given entry, compressing its contents
+         * should they have changed.
+         */
+        static Output of(final MappedJar.Entry entry, final String name, final byte[] original,
+                         final byte[] contents, final Queue<Deflater> deflaters) {
+            // Entries that haven't changed are copied without recompressing them,
+            // even should they have been renamed
+            if (contents == original) return Output.copy(entry, name);
+
+            if (entry.getMethod() == ZipWriter.STORED) {
+                return new Output(entry, name, ZipWriter.STORED, contents, ZipWriter.crc(contents), contents.length);
+            }
+
+            Deflater deflater = deflaters.poll();
+            if (deflater == null) deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+            try {
+                return new Output(entry, name, ZipWriter.DEFLATED, ZipWriter.deflate(deflater, contents),
+                        ZipWriter.crc(contents), contents.length);
+            }
+            finally {
+                deflaters.add(deflater);
+            }
+        }
+
+        private final MappedJar.Entry entry;
+        private final String name;
+        private final int method;
+        private final byte[] data;
+        private final long crc;
+        private final long size;
+
+        Output(final MappedJar.Entry entry, final String name, final int method, final byte[] data, final long crc,
+               final long size) {
+            this.entry = entry;
+            this.name = name;
+            this.method = method;
+            this.data = data;
+            this.crc = crc;
+            this.size = size;
+        }
+
+        void write(final ZipWriter out, final MappedJar jar) throws IOException {
+            if (this.data == null) {
+                out.copy(this.name, jar, this.entry);
+            }
+            else {
+                // Keep the original time, exactly
+                out.write(this.name, this.entry.getDosTime(), this.method, this.data, this.crc, this.size);
+            }
+        }
+
+    }
+
+}
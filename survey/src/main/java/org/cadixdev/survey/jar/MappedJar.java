@@ -0,0 +1,527 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package org.cadixdev.survey.jar;
+
+import org.cadixdev.bombe.jar.JarClassEntry;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+/**
+ * A jar that is memory-mapped, rather than read through streams.
+ * <p>
+ * The central directory is parsed once, when the jar is opened, and entries
+ * are then inflated straight from the mapped file. Jars larger than 2GB
+ * (and Zip64 jars) are supported, by mapping the jar in segments.
+ * <p>
+ * The contents of an entry are kept once read, so the classes Survey reads
+ * to map a jar needn't be read again to remap it. Entries can be read from
+ * many threads at once.
+ *
+ * @author Jamie Mansfield
+ * @since 0.2.0
+ */
+public class MappedJar implements Closeable {
+
+    private static final int LOCAL_HEADER = 0x04034B50;
+    private static final int CENTRAL_HEADER = 0x02014B50;
+    private static final int END_HEADER = 0x06054B50;
+    private static final int ZIP64_END_HEADER = 0x06064B50;
+    private static final int ZIP64_LOCATOR = 0x07064B50;
+
+    private static final int END_SIZE = 22;
+    private static final int ZIP64_LOCATOR_SIZE = 20;
+    private static final int ZIP64_EXTRA = 0x0001;
+
+    private static final int STORED = 0;
+    private static final int DEFLATED = 8;
+
+    private static final long SEGMENT_SIZE = 1L << 30;
+
+    /**
+     * Opens, and maps, the jar at the given path.
+     *
+     * @param path The path to the jar
+     * @return The mapped jar
+     * @throws IOException Should an I/O issue occur, or the jar be malformed
+     */
+    public static MappedJar open(final Path path) throws IOException {
+        try (final FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            final long size = channel.size();
+            final MappedByteBuffer[] segments = new MappedByteBuffer[(int) ((size + SEGMENT_SIZE - 1) / SEGMENT_SIZE)];
+            for (int i = 0; i < segments.length; i++) {
+                final long position = i * SEGMENT_SIZE;
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(SEGMENT_SIZE, size - position));
+                segments[i].order(ByteOrder.LITTLE_ENDIAN);
+            }
+            // The mapping outlives the channel
+            return new MappedJar(path, segments, size);
+        }
+    }
+
+    private final Path path;
+    private final MappedByteBuffer[] segments;
+    private final long size;
+    private final List<Entry> entries;
+    private final Map<String, Entry> byName;
+    private final AtomicReferenceArray<byte[]> contents;
+
+    private MappedJar(final Path path, final MappedByteBuffer[] segments, final long size) throws IOException {
+        this.path = path;
+        this.segments = segments;
+        this.size = size;
+        this.entries = Collections.unmodifiableList(this.readCentralDirectory());
+        this.byName = new HashMap<>(this.entries.size() * 2);
+        for (final Entry entry : this.entries) {
+            this.byName.putIfAbsent(entry.name, entry);
+        }
+        this.contents = new AtomicReferenceArray<>(this.entries.size());
+    }
+
+    /**
+     * Gets the path to the jar.
+     *
+     * @return The path
+     */
+    public Path getPath() {
+        return this.path;
+    }
+
+    /**
+     * Gets the entries of the jar, in the order of its central directory.
+     *
+     * @return The entries
+     */
+    public List<Entry> getEntries() {
+        return this.entries;
+    }
+
+    /**
+     * Gets the entry of the given name.
+     *
+     * @param name The name of the entry
+     * @return The entry, or {@code null} should there be no such entry
+     */
+    public Entry getEntry(final String name) {
+        return this.byName.get(name);
+    }
+
+    /**
+     * Gets the classes of the jar, in the order of its central directory.
+     *
+     * @return The classes
+     * @throws IOException Should an I/O issue occur
+     */
+    public List<JarClassEntry> getClasses() throws IOException {
+        final List<JarClassEntry> classes = new ArrayList<>();
+        for (final Entry entry : this.entries) {
+            if (!entry.isClass()) continue;
+            classes.add(new JarClassEntry(entry.name, entry.getTime(), this.getContents(entry)));
+        }
+        return classes;
+    }
+
+    /**
+     * Gets the (uncompressed) contents of the given entry, inflating it
+     * should it not have been read before.
+     *
+     * @param entry The entry
+     * @return The contents
+     * @throws IOException Should an I/O issue occur, or the entry be malformed
+     */
+    public byte[] getContents(final Entry entry) throws IOException {
+        final byte[] cached = this.contents.get(entry.index);
+        if (cached != null) return cached;
+
+        final byte[] read = this.read(entry);
+        // Should another thread have beaten us to it, use theirs - so every
+        // reader sees the same array
+        if (this.contents.compareAndSet(entry.index, null, read)) return read;
+        final byte[] winner = this.contents.get(entry.index);
+        return winner != null ? winner : read;
+    }
+
+    /**
+     * Discards the contents of the given entry, should they have been kept.
+     * The entry can still be read again.
+     *
+     * @param entry The entry
+     */
+    public void release(final Entry entry) {
+        this.contents.set(entry.index, null);
+    }
+
+    /**
+     * Gets the compressed data of the given entry, exactly as it is stored
+     * in the jar.
+     *
+     * @param entry The entry
+     * @return The compressed data
+     * @throws IOException Should an I/O issue occur, or the entry be malformed
+     */
+    public byte[] getRawContents(final Entry entry) throws IOException {
+        final byte[] raw = new byte[checkedSize(entry.compressedSize, entry)];
+        this.copy(this.getDataOffset(entry), raw, 0, raw.length);
+        return raw;
+    }
+
+    /**
+     * Writes the compressed data of the given entry, exactly as it is
+     * stored in the jar, to the given channel - straight from the mapped
+     * file.
+     *
+     * @param entry The entry
+     * @param channel The channel to write to
+     * @throws IOException Should an I/O issue occur, or the entry be malformed
+     */
+    public void transferRawContents(final Entry entry, final WritableByteChannel channel) throws IOException {
+        long from = this.getDataOffset(entry);
+        long remaining = entry.compressedSize;
+        while (remaining > 0) {
+            final ByteBuffer segment = this.segment(from).duplicate();
+            final int start = (int) (from % SEGMENT_SIZE);
+            final int count = (int) Math.min(remaining, segment.limit() - start);
+            // Cast, as ByteBuffer only overrides these from Java 9
+            ((Buffer) segment).position(start);
+            ((Buffer) segment).limit(start + count);
+            while (segment.hasRemaining()) {
+                channel.write(segment);
+            }
+            from += count;
+            remaining -= count;
+        }
+    }
+
+    private byte[] read(final Entry entry) throws IOException {
+        final byte[] contents = new byte[checkedSize(entry.size, entry)];
+        if (entry.method == STORED) {
+            this.copy(this.getDataOffset(entry), contents, 0, contents.length);
+            return contents;
+        }
+        if (entry.method != DEFLATED) {
+            throw new ZipException("Unsupported compression method " + entry.method + " for " + entry.name);
+        }
+
+        final Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(this.getRawContents(entry));
+            int read = 0;
+            boolean padded = false;
+            while (read < contents.length) {
+                final int count = inflater.inflate(contents, read, contents.length - read);
+                if (count == 0) {
+                    if (inflater.finished() || inflater.needsDictionary()) break;
+                    if (inflater.needsInput()) {
+                        // Raw deflate streams can need a trailing dummy byte
+                        if (padded) break;
+                        inflater.setInput(new byte[1]);
+                        padded = true;
+                    }
+                }
+                read += count;
+            }
+            if (read != contents.length) {
+                throw new ZipException("Truncated entry " + entry.name);
+            }
+            return contents;
+        }
+        catch (final DataFormatException ex) {
+            throw new ZipException("Malformed entry " + entry.name + ": " + ex.getMessage());
+        }
+        finally {
+            inflater.end();
+        }
+    }
+
+    private long getDataOffset(final Entry entry) throws IOException {
+        // Local headers needn't agree with the central directory on the
+        // length of their extra field, so the offset is found lazily
+        long offset = entry.dataOffset;
+        if (offset != -1) return offset;
+
+        final long header = entry.headerOffset;
+        if (header + 30 > this.size || this.getInt(header) != LOCAL_HEADER) {
+            throw new ZipException("Missing local header for " + entry.name);
+        }
+        offset = header + 30 + this.getUnsignedShort(header + 26) + this.getUnsignedShort(header + 28);
+        if (offset + entry.compressedSize > this.size) {
+            throw new ZipException("Truncated entry " + entry.name);
+        }
+        entry.dataOffset = offset;
+        return offset;
+    }
+
+    private List<Entry> readCentralDirectory() throws IOException {
+        final long end = this.findEnd();
+
+        long count = this.getUnsignedShort(end + 10);
+        long directorySize = this.getUnsignedInt(end + 12);
+        long directoryOffset = this.getUnsignedInt(end + 16);
+
+        // Zip64 jars record the true values in their own end record
+        final long locator = end - ZIP64_LOCATOR_SIZE;
+        if (locator >= 0 && this.getInt(locator) == ZIP64_LOCATOR) {
+            final long zip64End = this.getLong(locator + 8);
+            if (zip64End < 0 || zip64End + 56 > this.size || this.getInt(zip64End) != ZIP64_END_HEADER) {
+                throw new ZipException("Malformed Zip64 end of central directory");
+            }
+            count = this.getLong(zip64End + 32);
+            directorySize = this.getLong(zip64End + 40);
+            directoryOffset = this.getLong(zip64End + 48);
+        }
+
+        if (directoryOffset < 0 || directorySize < 0 || directoryOffset + directorySize > this.size) {
+            throw new ZipException("Malformed central directory");
+        }
+        if (count > Integer.MAX_VALUE) {
+            throw new ZipException("Too many entries");
+        }
+
+        final List<Entry> entries = new ArrayList<>((int) count);
+        long position = directoryOffset;
+        for (int i = 0; i < count; i++) {
+            if (position + 46 > this.size || this.getInt(position) != CENTRAL_HEADER) {
+                throw new ZipException("Malformed central directory");
+            }
+
+            final int flags = this.getUnsignedShort(position + 8);
+            final int method = this.getUnsignedShort(position + 10);
+            final long dosTime = this.getUnsignedInt(position + 12);
+            final long crc = this.getUnsignedInt(position + 16);
+            long compressedSize = this.getUnsignedInt(position + 20);
+            long size = this.getUnsignedInt(position + 24);
+            final int nameLength = this.getUnsignedShort(position + 28);
+            final int extraLength = this.getUnsignedShort(position + 30);
+            final int commentLength = this.getUnsignedShort(position + 32);
+            long headerOffset = this.getUnsignedInt(position + 42);
+
+            final byte[] name = new byte[nameLength];
+            this.copy(position + 46, name, 0, nameLength);
+
+            // Zip64 values are only present for the fields that overflowed,
+            // in this order
+            long extra = position + 46 + nameLength;
+            final long extraEnd = extra + extraLength;
+            while (extra + 4 <= extraEnd) {
+                final int id = this.getUnsignedShort(extra);
+                final int length = this.getUnsignedShort(extra + 2);
+                if (id == ZIP64_EXTRA) {
+                    long field = extra + 4;
+                    if (size == 0xFFFFFFFFL) {
+                        size = this.getLong(field);
+                        field += 8;
+                    }
+                    if (compressedSize == 0xFFFFFFFFL) {
+                        compressedSize = this.getLong(field);
+                        field += 8;
+                    }
+                    if (headerOffset == 0xFFFFFFFFL) {
+                        headerOffset = this.getLong(field);
+                    }
+                    break;
+                }
+                extra += 4 + length;
+            }
+
+            entries.add(new Entry(
+                    i,
+                    new String(name, StandardCharsets.UTF_8),
+                    flags,
+                    method,
+                    dosTime,
+                    crc,
+                    compressedSize,
+                    size,
+                    headerOffset
+            ));
+            position = extraEnd + commentLength;
+        }
+        return entries;
+    }
+
+    private long findEnd() throws IOException {
+        // The end record is followed by a comment of up to 64KB
+        final long min = Math.max(0, this.size - END_SIZE - 0xFFFF);
+        for (long position = this.size - END_SIZE; position >= min; position--) {
+            if (this.getInt(position) == END_HEADER) return position;
+        }
+        throw new ZipException("Not a jar: " + this.path);
+    }
+
+    private static int checkedSize(final long size, final Entry entry) throws ZipException {
+        if (size < 0 || size > Integer.MAX_VALUE - 8) {
+            throw new ZipException("Entry too large to read: " + entry.name);
+        }
+        return (int) size;
+    }
+
+    // Segmented access, as a single buffer can't map more than 2GB
+
+    private ByteBuffer segment(final long position) {
+        return this.segments[(int) (position / SEGMENT_SIZE)];
+    }
+
+    private int getUnsignedShort(final long position) {
+        return (this.getByte(position) & 0xFF) | (this.getByte(position + 1) & 0xFF) << 8;
+    }
+
+    private int getInt(final long position) {
+        final int offset = (int) (position % SEGMENT_SIZE);
+        final ByteBuffer segment = this.segment(position);
+        if (offset + 4 <= segment.limit()) return segment.getInt(offset);
+        return this.getUnsignedShort(position) | this.getUnsignedShort(position + 2) << 16;
+    }
+
+    private long getUnsignedInt(final long position) {
+        return this.getInt(position) & 0xFFFFFFFFL;
+    }
+
+    private long getLong(final long position) {
+        return this.getUnsignedInt(position) | this.getUnsignedInt(position + 4) << 32;
+    }
+
+    private byte getByte(final long position) {
+        return this.segment(position).get((int) (position % SEGMENT_SIZE));
+    }
+
+    private void copy(final long position, final byte[] dst, final int offset, final int length) {
+        long from = position;
+        int to = offset;
+        int remaining = length;
+        while (remaining > 0) {
+            // Duplicated, so concurrent reads don't share a position
+            final ByteBuffer segment = this.segment(from).duplicate();
+            final int start = (int) (from % SEGMENT_SIZE);
+            final int count = Math.min(remaining, segment.limit() - start);
+            ((Buffer) segment).position(start);
+            segment.get(dst, to, count);
+            from += count;
+            to += count;
+            remaining -= count;
+        }
+    }
+
+    @Override
+    public void close() {
+        // Mappings are released once they're unreachable
+        for (int i = 0; i < this.contents.length(); i++) {
+            this.contents.set(i, null);
+        }
+    }
+
+    /**
+     * An entry of a {@link MappedJar}, as described by its central
+     * directory.
+     */
+    public static final class Entry {
+
+        private final int index;
+        private final String name;
+        private final int flags;
+        private final int method;
+        private final long dosTime;
+        private final long crc;
+        private final long compressedSize;
+        private final long size;
+        private final long headerOffset;
+        private volatile long dataOffset = -1;
+
+        Entry(final int index, final String name, final int flags, final int method, final long dosTime,
+              final long crc, final long compressedSize, final long size, final long headerOffset) {
+            this.index = index;
+            this.name = name;
+            this.flags = flags;
+            this.method = method;
+            this.dosTime = dosTime;
+            this.crc = crc;
+            this.compressedSize = compressedSize;
+            this.size = size;
+            this.headerOffset = headerOffset;
+        }
+
+        public String getName() {
+            return this.name;
+        }
+
+        public boolean isDirectory() {
+            return this.name.endsWith("/");
+        }
+
+        public boolean isClass() {
+            return this.name.endsWith(".class");
+        }
+
+        public int getFlags() {
+            return this.flags;
+        }
+
+        public int getMethod() {
+            return this.method;
+        }
+
+        public long getDosTime() {
+            return this.dosTime;
+        }
+
+        /**
+         * Gets the modification time of the entry, in the default time zone
+         * (as with {@link java.util.zip.ZipEntry#getTime()}).
+         *
+         * @return The time, in milliseconds since the epoch
+         */
+        public long getTime() {
+            if (this.dosTime == 0) return 0;
+            // Out of range fields roll over, as they do for zip entries
+            return LocalDateTime.of((int) ((this.dosTime >> 25) & 0x7F) + 1980, 1, 1, 0, 0)
+                    .plusMonths(((this.dosTime >> 21) & 0x0F) - 1)
+                    .plusDays(((this.dosTime >> 16) & 0x1F) - 1)
+                    .plusHours((this.dosTime >> 11) & 0x1F)
+                    .plusMinutes((this.dosTime >> 5) & 0x3F)
+                    .plusSeconds((this.dosTime << 1) & 0x3E)
+                    .atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        }
+
+        public long getCrc() {
+            return this.crc;
+        }
+
+        public long getCompressedSize() {
+            return this.compressedSize;
+        }
+
+        public long getSize() {
+            return this.size;
+        }
+
+        @Override
+        public String toString() {
+            return this.name;
+        }
+
+    }
+
+}
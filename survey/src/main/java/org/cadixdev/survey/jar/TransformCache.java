@@ -0,0 +1,206 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package org.cadixdev.survey.jar;
+
+import org.cadixdev.survey.util.AtomicFiles;
+import org.cadixdev.survey.util.Digests;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+/**
+ * A content-addressed directory of transformed classes, as they're written
+ * to the output jar - already compressed - so a class that was transformed
+ * before, with the same mappings and patchers, needn't be again.
+ * <p>
+ * The key of a class is computed by the transformer, from everything its
+ * output depends on (see
+ * {@link org.cadixdev.survey.patcher.JarEntryPatchingRemappingTransformer#getCacheKey}).
+ * Entries are written atomically, so a directory can be shared by many
+ * processes, and the least recently used entries are evicted once the
+ * directory grows past its maximum size.
+ *
+ * @author Jamie Mansfield
+ * @since 0.2.0
+ */
+public class TransformCache {
+
+    private static final int MAGIC = 0x53565443; // SVTC
+    private static final int VERSION = 1;
+
+    private static final String EXTENSION = ".entry";
+
+    private final Path directory;
+    private final long maxSize;
+    private final String fingerprint;
+    private final AtomicBoolean warned = new AtomicBoolean();
+
+    /**
+     * Creates a transform cache.
+     *
+     * @param directory The directory to cache entries in
+     * @param maxSize The size, in bytes, to trim the directory to
+     * @param fingerprint The fingerprint of anything else the transformed
+     *                    classes depend on, such as the configuration of
+     *                    the patchers
+     */
+    public TransformCache(final Path directory, final long maxSize, final String fingerprint) {
+        this.directory = directory;
+        this.maxSize = maxSize;
+        this.fingerprint = fingerprint;
+    }
+
+    /**
+     * Gets the entry cached under the given key, marking it as used.
+     *
+     * @param key The key
+     * @return The entry, or {@code null} should there be none
+     */
+    Entry get(final String key) {
+        final Path path = this.getPath(key);
+        try (final DataInputStream in = new DataInputStream(Files.newInputStream(path))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) return null;
+
+            final String name = in.readUTF();
+            final int method = in.readUnsignedByte();
+            final long crc = in.readLong();
+            final long size = in.readLong();
+            final byte[] data = new byte[in.readInt()];
+            in.readFully(data);
+
+            Files.setLastModifiedTime(path, FileTime.fromMillis(System.currentTimeMillis()));
+            return new Entry(name, method, data, crc, size);
+        }
+        catch (final IOException ex) {
+            // Missing, being evicted, or corrupt - all of which are a miss
+            return null;
+        }
+    }
+
+    /**
+     * Caches the given entry under the given key.
+     * <p>
+     * An entry that can't be written is simply not cached, as the cache is
+     * only an optimisation - a warning is printed the first time.
+     *
+     * @param key The key
+     * @param entry The entry
+     */
+    void put(final String key, final Entry entry) {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream(entry.data.length + 64);
+        try (final DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeUTF(entry.name);
+            out.writeByte(entry.method);
+            out.writeLong(entry.crc);
+            out.writeLong(entry.size);
+            out.writeInt(entry.data.length);
+            out.write(entry.data);
+        }
+        catch (final IOException ex) {
+            // Writing to memory can't fail
+            throw new IllegalStateException(ex);
+        }
+
+        try {
+            AtomicFiles.write(this.getPath(key), temp -> Files.write(temp, bytes.toByteArray()));
+        }
+        catch (final IOException ex) {
+            // Full, unwritable, or being trimmed by another process
+            if (this.warned.compareAndSet(false, true)) {
+                System.err.println("Failed to write to the transform cache, some classes won't be cached: " + ex);
+            }
+        }
+    }
+
+    /**
+     * Evicts the least recently used entries, until the cache is no larger
+     * than its maximum size.
+     *
+     * @throws IOException Should an I/O issue occur
+     */
+    public void trim() throws IOException {
+        if (Files.notExists(this.directory)) return;
+
+        final List<Path> entries = new ArrayList<>();
+        final List<BasicFileAttributes> attributes = new ArrayList<>();
+        long size = 0;
+        try (final Stream<Path> paths = Files.walk(this.directory)) {
+            for (final Path path : (Iterable<Path>) paths::iterator) {
+                if (!path.getFileName().toString().endsWith(EXTENSION)) continue;
+                try {
+                    final BasicFileAttributes attrs = Files.readAttributes(path, BasicFileAttributes.class);
+                    entries.add(path);
+                    attributes.add(attrs);
+                    size += attrs.size();
+                }
+                catch (final NoSuchFileException ignored) {
+                    // Evicted by another process
+                }
+            }
+        }
+        if (size <= this.maxSize) return;
+
+        final List<Integer> order = new ArrayList<>(entries.size());
+        for (int i = 0; i < entries.size(); i++) order.add(i);
+        order.sort(Comparator.comparing(i -> attributes.get(i).lastModifiedTime()));
+
+        for (final int i : order) {
+            if (size <= this.maxSize) break;
+            Files.deleteIfExists(entries.get(i));
+            size -= attributes.get(i).size();
+        }
+    }
+
+    private Path getPath(final String key) {
+        final MessageDigest digest = Digests.sha256();
+        digest.update(this.fingerprint.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+        digest.update(key.getBytes(StandardCharsets.UTF_8));
+        final String hex = Digests.hex(digest.digest());
+
+        // Spread the entries across directories, so none grows too large
+        return this.directory.resolve(hex.substring(0, 2)).resolve(hex.substring(2) + EXTENSION);
+    }
+
+    /**
+     * A transformed class, ready to be written.
+     */
+    static final class Entry {
+
+        final String name;
+        final int method;
+        final byte[] data;
+        final long crc;
+        final long size;
+
+        Entry(final String name, final int method, final byte[] data, final long crc, final long size) {
+            this.name = name;
+            this.method = method;
+            this.data = data;
+            this.crc = crc;
+            this.size = size;
+        }
+
+    }
+
+}
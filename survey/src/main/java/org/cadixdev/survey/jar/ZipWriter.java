@@ -0,0 +1,320 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package org.cadixdev.survey.jar;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.ZipException;
+
+/**
+ * A minimal zip writer, that can copy the compressed data of an entry of
+ * a {@link MappedJar} straight into the new zip - without inflating, and
+ * deflating, it again.
+ * <p>
+ * Entries are written with their sizes and CRC up front, so no data
+ * descriptors are needed. Zip64 records are written only when needed.
+ *
+ * @author Jamie Mansfield
+ * @since 0.2.0
+ */
+final class ZipWriter implements Closeable {
+
+    static final int STORED = 0;
+    static final int DEFLATED = 8;
+
+    private static final int LOCAL_HEADER = 0x04034B50;
+    private static final int CENTRAL_HEADER = 0x02014B50;
+    private static final int END_HEADER = 0x06054B50;
+    private static final int ZIP64_END_HEADER = 0x06064B50;
+    private static final int ZIP64_LOCATOR = 0x07064B50;
+    private static final int ZIP64_EXTRA = 0x0001;
+
+    private static final int VERSION = 20;
+    private static final int ZIP64_VERSION = 45;
+
+    // Names are always written as UTF-8
+    private static final int UTF8_FLAG = 1 << 11;
+
+    private static final long ZIP64_MAGIC = 0xFFFFFFFFL;
+
+    /**
+     * Deflates the given contents.
+     *
+     * @param deflater The deflater to use, which must not wrap its output
+     * @param contents The contents
+     * @return The compressed data
+     */
+    static byte[] deflate(final Deflater deflater, final byte[] contents) {
+        deflater.reset();
+        deflater.setInput(contents);
+        deflater.finish();
+
+        byte[] buffer = new byte[Math.max(64, contents.length / 2)];
+        int length = 0;
+        while (!deflater.finished()) {
+            if (length == buffer.length) buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            length += deflater.deflate(buffer, length, buffer.length - length);
+        }
+        return Arrays.copyOf(buffer, length);
+    }
+
+    /**
+     * Computes the CRC-32 of the given contents.
+     *
+     * @param contents The contents
+     * @return The CRC
+     */
+    static long crc(final byte[] contents) {
+        final CRC32 crc = new CRC32();
+        crc.update(contents, 0, contents.length);
+        return crc.getValue();
+    }
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(1 << 17).order(ByteOrder.LITTLE_ENDIAN);
+    private final List<Record> records = new ArrayList<>();
+    private final Set<String> names = new HashSet<>();
+    private long position;
+
+    ZipWriter(final Path path) throws IOException {
+        this.channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    /**
+     * Writes a directory entry.
+     *
+     * @param name The name of the directory, ending with a slash
+     * @param dosTime The modification time, in MS-DOS format
+     * @throws IOException Should an I/O issue occur
+     */
+    void writeDirectory(final String name, final long dosTime) throws IOException {
+        this.writeHeader(new Record(name, STORED, dosTime, 0, 0, 0));
+    }
+
+    /**
+     * Writes an entry, that has already been compressed.
+     *
+     * @param name The name of the entry
+     * @param dosTime The modification time, in MS-DOS format
+     * @param method The compression method
+     * @param data The compressed data
+     * @param crc The CRC-32 of the uncompressed contents
+     * @param size The size of the uncompressed contents
+     * @throws IOException Should an I/O issue occur
+     */
+    void write(final String name, final long dosTime, final int method, final byte[] data, final long crc,
+               final long size) throws IOException {
+        this.writeHeader(new Record(name, method, dosTime, crc, data.length, size));
+        this.put(data);
+    }
+
+    /**
+     * Copies the given entry of a jar, without inflating it.
+     *
+     * @param name The name to write the entry as
+     * @param jar The jar to copy from
+     * @param entry The entry to copy
+     * @throws IOException Should an I/O issue occur
+     */
+    void copy(final String name, final MappedJar jar, final MappedJar.Entry entry) throws IOException {
+        this.writeHeader(new Record(
+                name,
+                entry.getMethod(),
+                entry.getDosTime(),
+                entry.getCrc(),
+                entry.getCompressedSize(),
+                entry.getSize()
+        ));
+        this.flush();
+        jar.transferRawContents(entry, this.channel);
+        this.position += entry.getCompressedSize();
+    }
+
+    private void writeHeader(final Record record) throws IOException {
+        if (!this.names.add(record.name)) {
+            throw new ZipException("Duplicate entry: " + record.name);
+        }
+        record.offset = this.position;
+        this.records.add(record);
+
+        final boolean zip64 = record.compressedSize >= ZIP64_MAGIC || record.size >= ZIP64_MAGIC;
+        this.ensure(30 + record.nameBytes.length + (zip64 ? 20 : 0));
+        this.buffer.putInt(LOCAL_HEADER);
+        this.buffer.putShort((short) (zip64 ? ZIP64_VERSION : VERSION));
+        this.buffer.putShort((short) UTF8_FLAG);
+        this.buffer.putShort((short) record.method);
+        this.buffer.putInt((int) record.dosTime);
+        this.buffer.putInt((int) record.crc);
+        this.buffer.putInt((int) (zip64 ? ZIP64_MAGIC : record.compressedSize));
+        this.buffer.putInt((int) (zip64 ? ZIP64_MAGIC : record.size));
+        this.buffer.putShort((short) record.nameBytes.length);
+        this.buffer.putShort((short) (zip64 ? 20 : 0));
+        this.buffer.put(record.nameBytes);
+        if (zip64) {
+            this.buffer.putShort((short) ZIP64_EXTRA);
+            this.buffer.putShort((short) 16);
+            this.buffer.putLong(record.size);
+            this.buffer.putLong(record.compressedSize);
+        }
+        this.position += 30 + record.nameBytes.length + (zip64 ? 20 : 0);
+    }
+
+    private void writeCentralHeader(final Record record) throws IOException {
+        // Only the fields that overflow are recorded in the Zip64 extra
+        int extra = 0;
+        if (record.size >= ZIP64_MAGIC) extra += 8;
+        if (record.compressedSize >= ZIP64_MAGIC) extra += 8;
+        if (record.offset >= ZIP64_MAGIC) extra += 8;
+        final int version = extra == 0 ? VERSION : ZIP64_VERSION;
+
+        this.ensure(46 + record.nameBytes.length + (extra == 0 ? 0 : 4 + extra));
+        this.buffer.putInt(CENTRAL_HEADER);
+        this.buffer.putShort((short) version);
+        this.buffer.putShort((short) version);
+        this.buffer.putShort((short) UTF8_FLAG);
+        this.buffer.putShort((short) record.method);
+        this.buffer.putInt((int) record.dosTime);
+        this.buffer.putInt((int) record.crc);
+        this.buffer.putInt((int) Math.min(record.compressedSize, ZIP64_MAGIC));
+        this.buffer.putInt((int) Math.min(record.size, ZIP64_MAGIC));
+        this.buffer.putShort((short) record.nameBytes.length);
+        this.buffer.putShort((short) (extra == 0 ? 0 : 4 + extra));
+        this.buffer.putShort((short) 0); // comment length
+        this.buffer.putShort((short) 0); // disk number
+        this.buffer.putShort((short) 0); // internal attributes
+        this.buffer.putInt(0); // external attributes
+        this.buffer.putInt((int) Math.min(record.offset, ZIP64_MAGIC));
+        this.buffer.put(record.nameBytes);
+        if (extra != 0) {
+            this.buffer.putShort((short) ZIP64_EXTRA);
+            this.buffer.putShort((short) extra);
+            if (record.size >= ZIP64_MAGIC) this.buffer.putLong(record.size);
+            if (record.compressedSize >= ZIP64_MAGIC) this.buffer.putLong(record.compressedSize);
+            if (record.offset >= ZIP64_MAGIC) this.buffer.putLong(record.offset);
+        }
+        this.position += 46 + record.nameBytes.length + (extra == 0 ? 0 : 4 + extra);
+    }
+
+    private void writeEnd(final long directoryOffset) throws IOException {
+        final long count = this.records.size();
+        final long directorySize = this.position - directoryOffset;
+
+        final boolean zip64 = count >= 0xFFFF || directorySize >= ZIP64_MAGIC || directoryOffset >= ZIP64_MAGIC;
+        this.ensure(22 + (zip64 ? 56 + 20 : 0));
+        if (zip64) {
+            final long zip64End = this.position;
+            this.buffer.putInt(ZIP64_END_HEADER);
+            this.buffer.putLong(44); // size of the remaining record
+            this.buffer.putShort((short) ZIP64_VERSION);
+            this.buffer.putShort((short) ZIP64_VERSION);
+            this.buffer.putInt(0); // disk number
+            this.buffer.putInt(0); // disk with the central directory
+            this.buffer.putLong(count);
+            this.buffer.putLong(count);
+            this.buffer.putLong(directorySize);
+            this.buffer.putLong(directoryOffset);
+
+            this.buffer.putInt(ZIP64_LOCATOR);
+            this.buffer.putInt(0); // disk with the Zip64 end record
+            this.buffer.putLong(zip64End);
+            this.buffer.putInt(1); // total disks
+        }
+        this.buffer.putInt(END_HEADER);
+        this.buffer.putShort((short) 0); // disk number
+        this.buffer.putShort((short) 0); // disk with the central directory
+        this.buffer.putShort((short) Math.min(count, 0xFFFF));
+        this.buffer.putShort((short) Math.min(count, 0xFFFF));
+        this.buffer.putInt((int) Math.min(directorySize, ZIP64_MAGIC));
+        this.buffer.putInt((int) Math.min(directoryOffset, ZIP64_MAGIC));
+        this.buffer.putShort((short) 0); // comment length
+    }
+
+    private void put(final byte[] data) throws IOException {
+        if (data.length > this.buffer.remaining()) {
+            this.flush();
+            // Large entries needn't pass through the buffer
+            if (data.length > this.buffer.capacity()) {
+                final ByteBuffer wrapped = ByteBuffer.wrap(data);
+                while (wrapped.hasRemaining()) {
+                    this.channel.write(wrapped);
+                }
+                this.position += data.length;
+                return;
+            }
+        }
+        this.buffer.put(data);
+        this.position += data.length;
+    }
+
+    private void ensure(final int length) throws IOException {
+        if (length > this.buffer.remaining()) this.flush();
+    }
+
+    private void flush() throws IOException {
+        // Cast, as ByteBuffer only overrides these from Java 9
+        ((Buffer) this.buffer).flip();
+        while (this.buffer.hasRemaining()) {
+            this.channel.write(this.buffer);
+        }
+        ((Buffer) this.buffer).clear();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            final long directoryOffset = this.position;
+            for (final Record record : this.records) {
+                this.writeCentralHeader(record);
+            }
+            this.writeEnd(directoryOffset);
+            this.flush();
+        }
+        finally {
+            this.channel.close();
+        }
+    }
+
+    private static final class Record {
+
+        private final String name;
+        private final byte[] nameBytes;
+        private final int method;
+        private final long dosTime;
+        private final long crc;
+        private final long compressedSize;
+        private final long size;
+        private long offset;
+
+        Record(final String name, final int method, final long dosTime, final long crc,
+               final long compressedSize, final long size) {
+            this.name = name;
+            this.nameBytes = name.getBytes(StandardCharsets.UTF_8);
+            this.method = method;
+            this.dosTime = dosTime;
+            this.crc = crc;
+            this.compressedSize = compressedSize;
+            this.size = size;
+        }
+
+    }
+
+}
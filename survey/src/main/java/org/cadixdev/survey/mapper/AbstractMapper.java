@@ -8,9 +8,16 @@ package org.cadixdev.survey.mapper;
 
 import static org.objectweb.asm.Opcodes.ASM6;
 
+import org.cadixdev.bombe.jar.JarClassEntry;
 import org.cadixdev.survey.context.SurveyContext;
+import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.ClassVisitor;
 
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
+
 /**
  * An object that can generate some de-obfuscation classes.
  *
@@ -23,6 +30,9 @@ public abstract class AbstractMapper<C> extends ClassVisitor {
 
     protected final SurveyContext ctx;
     protected final C configuration;
+    private MappingWriter writer;
+    private Supplier<? extends AbstractMapper<C>> factory;
+    private int parsingOptions = -1;
 
     public AbstractMapper(final SurveyContext ctx, final C configuration) {
         super(ASM6);
@@ -48,4 +58,125 @@ public abstract class AbstractMapper<C> extends ClassVisitor {
         return this.configuration;
     }
 
+    /**
+     * Gets the writer the mapper should write its mappings through.
+     *
+     * @return The mapping writer
+     */
+    public final MappingWriter writer() {
+        if (this.writer == null) {
+            this.writer = new MappingWriter(this.ctx.mappings());
+        }
+        return this.writer;
+    }
+
+    /**
+     * Establishes whether the mappings produced by the mapper are the same,
+     * regardless of the order in which classes are visited - in which case
+     * separate instances of the mapper can be run over the jar in parallel.
+     *
+     * @return {@code true} if the mapper is order independent;
+     *         {@code false} otherwise
+     */
+    public boolean isOrderIndependent() {
+        return false;
+    }
+
+    /**
+     * Establishes whether the mappings produced by the mapper for a class
+     * depend only on that class (and the mapper's configuration) - in which
+     * case they can be cached, and replayed for the class in a later run
+     * should it not have changed.
+     *
+     * @return {@code true} if the mapper is incremental;
+     *         {@code false} otherwise
+     * @see MapperCache
+     */
+    public boolean isIncremental() {
+        return false;
+    }
+
+    /**
+     * Establishes whether {@link #prepare(List) preparing} the mapper depends
+     * on the mappings written by the mappers registered before it - in which
+     * case it is only prepared once they have run, and so starts a pass of
+     * its own.
+     *
+     * @return {@code true} if the mapper depends on the preceding mappers;
+     *         {@code false} otherwise
+     */
+    public boolean isPreparedAfterPrecedingMappers() {
+        return false;
+    }
+
+    /**
+     * Gets the parts of a class the mapper needs to visit, beyond its
+     * header, fields and method declarations - should no mapper in a pass
+     * need a part, it isn't decoded.
+     * <p>
+     * By default, mappers need every part of a class.
+     *
+     * @return The read requirements
+     */
+    public Set<ReadRequirement> getReadRequirements() {
+        return EnumSet.allOf(ReadRequirement.class);
+    }
+
+    /**
+     * Establishes whether the mapper could match anything in the given
+     * class, from its header or constant pool alone. Classes the mapper
+     * can't match aren't visited by it.
+     * <p>
+     * By default, mappers visit every class.
+     *
+     * @param reader The class reader
+     * @return {@code true} if the mapper should visit the class;
+     *         {@code false} otherwise
+     */
+    public boolean isApplicable(final ClassReader reader) {
+        return true;
+    }
+
+    /**
+     * Prepares the mapper for a pass over the given classes, before any of
+     * them are visited by it. This is where mappers should establish any
+     * state that depends on the jar as a whole.
+     *
+     * @param classes The classes, in the order they will be visited
+     */
+    public void prepare(final List<JarClassEntry> classes) {
+    }
+
+    /**
+     * Creates another instance of the mapper, for use on another thread.
+     * The fork shares the context, configuration, and any state established
+     * by {@link #prepare(List)}, with this mapper.
+     *
+     * @return The fork
+     */
+    public AbstractMapper<C> fork() {
+        if (this.factory == null) {
+            throw new UnsupportedOperationException("Mapper was not registered with a factory!");
+        }
+        final AbstractMapper<C> fork = this.factory.get();
+        fork.writer = this.writer;
+        fork.factory = this.factory;
+        return fork;
+    }
+
+    public final int _getParsingOptions() {
+        if (this.parsingOptions == -1) {
+            this.parsingOptions = ReadRequirement.getParsingOptions(this.getReadRequirements());
+        }
+        return this.parsingOptions;
+    }
+
+    public final void _setWriter(final MappingWriter writer) {
+        this.writer = writer;
+    }
+
+    public final void _setFactory(final Supplier<? extends AbstractMapper<C>> factory) {
+        this.factory = factory;
+    }
+
 }
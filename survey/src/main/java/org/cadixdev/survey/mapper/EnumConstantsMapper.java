@@ -15,11 +15,14 @@ import org.cadixdev.bombe.type.signature.MethodSignature;
 import org.cadixdev.lorenz.MappingSet;
 import org.cadixdev.survey.context.SurveyContext;
 import org.cadixdev.survey.mapper.config.EnumConstantsMapperConfig;
+import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.FieldVisitor;
 import org.objectweb.asm.MethodVisitor;
 import org.objectweb.asm.Opcodes;
 
+import java.util.EnumSet;
 import java.util.Objects;
+import java.util.Set;
 
 /**
  * An {@link AbstractMapper} that can produce de-obfuscation mappings for enum
@@ -39,6 +42,27 @@ public class EnumConstantsMapper extends AbstractMapper<EnumConstantsMapperConfi
         super(ctx, config);
     }
 
+    @Override
+    public boolean isOrderIndependent() {
+        return true;
+    }
+
+    @Override
+    public boolean isIncremental() {
+        return true;
+    }
+
+    @Override
+    public Set<ReadRequirement> getReadRequirements() {
+        // Only the static initialiser is visited
+        return EnumSet.of(ReadRequirement.CODE);
+    }
+
+    @Override
+    public boolean isApplicable(final ClassReader reader) {
+        return Objects.equals("java/lang/Enum", reader.getSuperName());
+    }
+
     @Override
     public void visit(final int version, final int access, final String name, final String signature, final String superName, final String[] interfaces) {
         this.klassType = new ObjectType(name);
@@ -61,9 +85,7 @@ public class EnumConstantsMapper extends AbstractMapper<EnumConstantsMapperConfi
             final boolean isSynthetic = (access & Opcodes.ACC_SYNTHETIC) != 0;
             final Type valuesType = new ArrayType(1, this.klassType);
             if (this.isEnum && isSynthetic && valuesType.equals(Type.of(descriptor))) {
-                this.ctx().mappings().getOrCreateClassMapping(this.klassType.getClassName())
-                        .getOrCreateFieldMapping(name, descriptor)
-                        .setDeobfuscatedName("$VALUES");
+                this.writer().mapField(this.klassType.getClassName(), name, descriptor, "$VALUES");
             }
         }
 
@@ -78,7 +100,7 @@ public class EnumConstantsMapper extends AbstractMapper<EnumConstantsMapperConfi
             return new EnumMappingMethodVisitor(
                     super.visitMethod(access, name, descriptor, signature, exceptions),
                     this.klassType,
-                    this.ctx().mappings()
+                    this.writer()
             );
         }
 
@@ -91,16 +113,20 @@ public class EnumConstantsMapper extends AbstractMapper<EnumConstantsMapperConfi
      */
     public static class EnumMappingMethodVisitor extends MethodVisitor {
 
-        private final MappingSet mappings;
+        private final MappingWriter writer;
         private final ObjectType klass;
 
         private boolean expecting = true;
         private String name = null;
 
-        public EnumMappingMethodVisitor(final MethodVisitor mv, final ObjectType klass, final MappingSet mappings) {
+        public EnumMappingMethodVisitor(final MethodVisitor mv, final ObjectType klass, final MappingWriter writer) {
             super(ASM6, mv);
             this.klass = klass;
-            this.mappings = mappings;
+            this.writer = writer;
+        }
+
+        public EnumMappingMethodVisitor(final MethodVisitor mv, final ObjectType klass, final MappingSet mappings) {
+            this(mv, klass, new MappingWriter(mappings));
         }
 
         @Override
@@ -121,9 +147,7 @@ public class EnumConstantsMapper extends AbstractMapper<EnumConstantsMapperConfi
                     // And the opcode is right
                     opcode == Opcodes.PUTSTATIC) {
                 // Get the class, get the field, map the field
-                this.mappings.getOrCreateClassMapping(owner)
-                        .getOrCreateFieldMapping(name, desc)
-                        .setDeobfuscatedName(this.name);
+                this.writer.mapField(owner, name, desc, this.name);
 
                 this.name = null;
                 this.expecting = true;
@@ -10,10 +10,14 @@ import org.cadixdev.bombe.type.ObjectType;
 import org.cadixdev.survey.context.SurveyContext;
 import org.cadixdev.survey.mapper.config.FieldNameMapperConfig;
 import org.cadixdev.survey.mapper.config.ModifierRequirement;
+import org.cadixdev.survey.util.ClassFiles;
+import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.FieldVisitor;
 
+import java.util.EnumSet;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 
 /**
  * An {@link AbstractMapper} that maps fields based on basic configurations.
@@ -29,6 +33,27 @@ public class FieldNameMapper extends AbstractMapper<FieldNameMapperConfig> {
         super(ctx, config);
     }
 
+    @Override
+    public boolean isOrderIndependent() {
+        return true;
+    }
+
+    @Override
+    public boolean isIncremental() {
+        return true;
+    }
+
+    @Override
+    public Set<ReadRequirement> getReadRequirements() {
+        return EnumSet.noneOf(ReadRequirement.class);
+    }
+
+    @Override
+    public boolean isApplicable(final ClassReader reader) {
+        // The descriptor would be in the constant pool of any matching class
+        return this.getConfiguration().desc == null || ClassFiles.hasUtf8(reader, this.getConfiguration().desc);
+    }
+
     @Override
     public void visit(final int version, final int access, final String name, final String signature, final String superName, final String[] interfaces) {
         this.klassType = new ObjectType(name);
@@ -47,9 +72,7 @@ public class FieldNameMapper extends AbstractMapper<FieldNameMapperConfig> {
                 }
             }
             if (map) {
-                this.ctx().mappings().getOrCreateClassMapping(this.klassType.getClassName())
-                        .getOrCreateFieldMapping(name, descriptor)
-                        .setDeobfuscatedName(this.getConfiguration().name);
+                this.writer().mapField(this.klassType.getClassName(), name, descriptor, this.getConfiguration().name);
             }
         }
 
@@ -0,0 +1,225 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package org.cadixdev.survey.mapper;
+
+import org.cadixdev.bombe.jar.JarClassEntry;
+import org.cadixdev.survey.util.AtomicFiles;
+import org.cadixdev.survey.util.Digests;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UTFDataFormatException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipException;
+
+/**
+ * A sidecar cache of the mappings that {@link AbstractMapper#isIncremental()
+ * incremental} mappers produced for each class of a jar, keyed by the hash
+ * of the class - so a later run over a new build of the jar need only visit
+ * the classes that changed, and replay the writes made for the rest.
+ * <p>
+ * The cache is only used should it have been written with the same
+ * fingerprint, which must change whenever anything but the classes
+ * themselves (the configuration, or the input mappings) does.
+ *
+ * @author Jamie Mansfield
+ * @since 0.2.0
+ */
+public class MapperCache {
+
+    private static final int MAGIC = 0x53564D43; // SVMC
+    private static final int VERSION = 1;
+
+    /**
+     * Reads the cache at the given path, for a run over the given classes.
+     * Should the cache not exist, not be readable as a cache, or have been
+     * written with another fingerprint, every class is treated as changed.
+     *
+     * @param path The path to the cache
+     * @param fingerprint The fingerprint of the run
+     * @param classes The classes of the run
+     * @return The cache
+     * @throws IOException Should an I/O issue occur
+     */
+    public static MapperCache read(final Path path, final String fingerprint, final List<JarClassEntry> classes)
+            throws IOException {
+        final MapperCache cache = new MapperCache(path, fingerprint);
+
+        final Map<String, byte[]> hashes = new HashMap<>(classes.size());
+        for (final JarClassEntry entry : classes) {
+            hashes.put(entry.getName(), Digests.sha256(entry.getContents()));
+        }
+        cache.hashes.putAll(hashes);
+
+        if (Files.notExists(path)) return cache;
+        try (final DataInputStream in = new DataInputStream(new GZIPInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != MAGIC) return cache;
+            if (in.readInt() != VERSION) return cache;
+            if (!in.readUTF().equals(fingerprint)) return cache;
+
+            final Map<String, Map<String, List<MappingWriter.Write>>> previous = new HashMap<>();
+
+            final int size = in.readInt();
+            for (int i = 0; i < size; i++) {
+                final String klass = in.readUTF();
+                final byte[] hash = new byte[in.readUnsignedByte()];
+                in.readFully(hash);
+
+                final int mappers = in.readInt();
+                final Map<String, List<MappingWriter.Write>> writes = new HashMap<>(mappers);
+                for (int j = 0; j < mappers; j++) {
+                    final String mapper = in.readUTF();
+                    final List<MappingWriter.Write> list = new ArrayList<>();
+                    final int count = in.readInt();
+                    for (int k = 0; k < count; k++) {
+                        final int flags = in.readUnsignedByte();
+                        list.add(new MappingWriter.Write(
+                                in.readUTF(),
+                                (flags & 1) != 0 ? in.readUTF() : null,
+                                (flags & 1) != 0 ? in.readUTF() : null,
+                                (flags & 2) != 0 ? in.readUTF() : null,
+                                (flags & 4) != 0
+                        ));
+                    }
+                    writes.put(mapper, list);
+                }
+
+                // Only the classes that haven't changed are of use
+                if (Arrays.equals(hash, hashes.get(klass))) {
+                    previous.put(klass, writes);
+                }
+            }
+
+            // Only a cache that was read in full is used
+            cache.previous.putAll(previous);
+        }
+        catch (final ZipException | EOFException | UTFDataFormatException ex) {
+            // Foreign, corrupt, or truncated - all of which are a miss
+        }
+        return cache;
+    }
+
+    private final Path path;
+    private final String fingerprint;
+    private final Map<String, byte[]> hashes = new HashMap<>();
+    private final Map<String, Map<String, List<MappingWriter.Write>>> previous = new HashMap<>();
+    private final Map<String, Map<String, List<MappingWriter.Write>>> next = new ConcurrentHashMap<>();
+
+    private MapperCache(final Path path, final String fingerprint) {
+        this.path = path;
+        this.fingerprint = fingerprint;
+    }
+
+    /**
+     * Establishes whether the given class is unchanged since the cache was
+     * written, in which case its writes can be replayed.
+     *
+     * @param klass The name of the class
+     * @return {@code true} if the class is unchanged;
+     *         {@code false} otherwise
+     */
+    public boolean isUnchanged(final String klass) {
+        return this.previous.containsKey(klass);
+    }
+
+    /**
+     * Gets the number of classes that are unchanged.
+     *
+     * @return The number of unchanged classes
+     */
+    public int getUnchanged() {
+        return this.previous.size();
+    }
+
+    /**
+     * Replays the writes the given mapper made for the given, unchanged,
+     * class - and keeps them for the next run.
+     *
+     * @param klass The name of the class
+     * @param mapper The id of the mapper
+     * @param writer The writer to replay through
+     */
+    public void replay(final String klass, final String mapper, final MappingWriter writer) {
+        final List<MappingWriter.Write> writes = this.previous.get(klass).get(mapper);
+        if (writes == null) return;
+        writer.replay(writes);
+        this.put(klass, mapper, writes);
+    }
+
+    /**
+     * Keeps the writes the given mapper made for the given class, for the
+     * next run.
+     *
+     * @param klass The name of the class
+     * @param mapper The id of the mapper
+     * @param writes The writes
+     */
+    public void put(final String klass, final String mapper, final List<MappingWriter.Write> writes) {
+        if (writes.isEmpty()) return;
+        this.next.computeIfAbsent(klass, k -> new ConcurrentHashMap<>()).put(mapper, writes);
+    }
+
+    /**
+     * Writes the writes kept for the next run, along with the hash of
+     * every class of this run.
+     *
+     * @throws IOException Should an I/O issue occur
+     */
+    public void write() throws IOException {
+        final List<String> classes = new ArrayList<>(this.hashes.keySet());
+        Collections.sort(classes);
+
+        AtomicFiles.write(this.path, temp -> {
+            try (final DataOutputStream out = new DataOutputStream(new GZIPOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeUTF(this.fingerprint);
+                out.writeInt(classes.size());
+                for (final String klass : classes) {
+                    out.writeUTF(klass);
+                    final byte[] hash = this.hashes.get(klass);
+                    out.writeByte(hash.length);
+                    out.write(hash);
+
+                    // Classes are recorded even should no mapper write anything,
+                    // so they're still known to be unchanged
+                    final Map<String, List<MappingWriter.Write>> writes =
+                            this.next.getOrDefault(klass, Collections.emptyMap());
+                    out.writeInt(writes.size());
+                    for (final Map.Entry<String, List<MappingWriter.Write>> mapper : writes.entrySet()) {
+                        out.writeUTF(mapper.getKey());
+                        out.writeInt(mapper.getValue().size());
+                        for (final MappingWriter.Write write : mapper.getValue()) {
+                            out.writeByte((write.getName() != null ? 1 : 0) |
+                                    (write.getDeobfuscatedName() != null ? 2 : 0) |
+                                    (write.isIfAbsent() ? 4 : 0));
+                            out.writeUTF(write.getOwner());
+                            if (write.getName() != null) {
+                                out.writeUTF(write.getName());
+                                out.writeUTF(write.getDescriptor());
+                            }
+                            if (write.getDeobfuscatedName() != null) out.writeUTF(write.getDeobfuscatedName());
+                        }
+                    }
+                }
+            }
+        });
+    }
+
+}
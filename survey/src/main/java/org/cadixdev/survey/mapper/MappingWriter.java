@@ -0,0 +1,299 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package org.cadixdev.survey.mapper;
+
+import org.cadixdev.lorenz.MappingSet;
+import org.cadixdev.lorenz.model.ClassMapping;
+import org.cadixdev.lorenz.model.FieldMapping;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * A concurrency-safe layer for writing de-obfuscation mappings into a
+ * {@link MappingSet}, allowing mappers to run on many threads at once.
+ * <p>
+ * Writes are guarded by striped locks, keyed by the top-level class of
+ * the mapping being written - so two classes only contend when they share
+ * a stripe. The {@link MappingSet} itself is only touched while holding a
+ * global lock, which is taken after (and never before) a stripe.
+ * <p>
+ * The writes made on a thread can be {@link #_record(List) recorded}, so
+ * they can be {@link #replay(List) replayed} - onto the same mappings, in
+ * a later run - without visiting the class that produced them again.
+ *
+ * @author Jamie Mansfield
+ * @since 0.2.0
+ */
+public class MappingWriter {
+
+    private static final int STRIPES = 64;
+
+    private final MappingSet mappings;
+    private final Object global = new Object();
+    private final Object[] stripes = new Object[STRIPES];
+    private final ThreadLocal<List<Write>> journal = new ThreadLocal<>();
+
+    public MappingWriter(final MappingSet mappings) {
+        this.mappings = mappings;
+        for (int i = 0; i < STRIPES; i++) {
+            this.stripes[i] = new Object();
+        }
+    }
+
+    /**
+     * Gets the mapping set being written to.
+     *
+     * @return The mappings
+     */
+    public MappingSet mappings() {
+        return this.mappings;
+    }
+
+    /**
+     * Ensures that a mapping exists for the given class.
+     *
+     * @param klass The obfuscated name of the class
+     */
+    public void createClass(final String klass) {
+        synchronized (this.stripe(klass)) {
+            this.getClassMapping(klass);
+        }
+        this.record(klass, null, null, null, false);
+    }
+
+    /**
+     * Establishes whether the given class has a de-obfuscated name. A
+     * mapping is created for the class, should one not exist - just as
+     * it would be were the class mapped.
+     *
+     * @param klass The obfuscated name of the class
+     * @return {@code true} if the class has a de-obfuscated name;
+     *         {@code false} otherwise
+     */
+    public boolean isClassMapped(final String klass) {
+        this.record(klass, null, null, null, false);
+        synchronized (this.stripe(klass)) {
+            return this.getClassMapping(klass).hasDeobfuscatedName();
+        }
+    }
+
+    /**
+     * Sets the de-obfuscated name of the given class.
+     *
+     * @param klass The obfuscated name of the class
+     * @param deobf The de-obfuscated name
+     */
+    public void mapClass(final String klass, final String deobf) {
+        synchronized (this.stripe(klass)) {
+            this.getClassMapping(klass).setDeobfuscatedName(deobf);
+        }
+        this.record(klass, null, null, deobf, false);
+    }
+
+    /**
+     * Sets the de-obfuscated name of the given class, if it doesn't already
+     * have one. The name is only computed when it is needed.
+     *
+     * @param klass The obfuscated name of the class
+     * @param deobf The de-obfuscated name
+     * @return {@code true} if the class was mapped;
+     *         {@code false} otherwise
+     */
+    public boolean mapClassIfAbsent(final String klass, final Supplier<String> deobf) {
+        final String name;
+        synchronized (this.stripe(klass)) {
+            final ClassMapping<?, ?> mapping = this.getClassMapping(klass);
+            name = mapping.hasDeobfuscatedName() ? null : deobf.get();
+            if (name != null) mapping.setDeobfuscatedName(name);
+        }
+        this.record(klass, null, null, name, true);
+        return name != null;
+    }
+
+    /**
+     * Establishes whether the given field has a de-obfuscated name. A
+     * mapping is created for the field, should one not exist - just as
+     * it would be were the field mapped.
+     *
+     * @param owner The obfuscated name of the owning class
+     * @param name The obfuscated name of the field
+     * @param descriptor The descriptor of the field
+     * @return {@code true} if the field has a de-obfuscated name;
+     *         {@code false} otherwise
+     */
+    public boolean isFieldMapped(final String owner, final String name, final String descriptor) {
+        this.record(owner, name, descriptor, null, false);
+        synchronized (this.stripe(owner)) {
+            return this.getClassMapping(owner).getOrCreateFieldMapping(name, descriptor).hasDeobfuscatedName();
+        }
+    }
+
+    /**
+     * Sets the de-obfuscated name of the given field.
+     *
+     * @param owner The obfuscated name of the owning class
+     * @param name The obfuscated name of the field
+     * @param descriptor The descriptor of the field
+     * @param deobf The de-obfuscated name
+     */
+    public void mapField(final String owner, final String name, final String descriptor, final String deobf) {
+        synchronized (this.stripe(owner)) {
+            this.getClassMapping(owner).getOrCreateFieldMapping(name, descriptor)
+                    .setDeobfuscatedName(deobf);
+        }
+        this.record(owner, name, descriptor, deobf, false);
+    }
+
+    /**
+     * Sets the de-obfuscated name of the given field, if it doesn't already
+     * have one. The name is only computed when it is needed.
+     *
+     * @param owner The obfuscated name of the owning class
+     * @param name The obfuscated name of the field
+     * @param descriptor The descriptor of the field
+     * @param deobf The de-obfuscated name
+     * @return {@code true} if the field was mapped;
+     *         {@code false} otherwise
+     */
+    public boolean mapFieldIfAbsent(final String owner, final String name, final String descriptor,
+                                    final Supplier<String> deobf) {
+        final String mapped;
+        synchronized (this.stripe(owner)) {
+            final FieldMapping mapping = this.getClassMapping(owner).getOrCreateFieldMapping(name, descriptor);
+            mapped = mapping.hasDeobfuscatedName() ? null : deobf.get();
+            if (mapped != null) mapping.setDeobfuscatedName(mapped);
+        }
+        this.record(owner, name, descriptor, mapped, true);
+        return mapped != null;
+    }
+
+    /**
+     * Replays the given writes, as they were made.
+     *
+     * @param writes The writes
+     */
+    public void replay(final List<Write> writes) {
+        for (final Write write : writes) {
+            if (write.name == null) {
+                if (write.deobf == null) {
+                    this.createClass(write.owner);
+                }
+                else if (write.ifAbsent) {
+                    this.mapClassIfAbsent(write.owner, () -> write.deobf);
+                }
+                else {
+                    this.mapClass(write.owner, write.deobf);
+                }
+            }
+            else {
+                if (write.deobf == null) {
+                    this.isFieldMapped(write.owner, write.name, write.descriptor);
+                }
+                else if (write.ifAbsent) {
+                    this.mapFieldIfAbsent(write.owner, write.name, write.descriptor, () -> write.deobf);
+                }
+                else {
+                    this.mapField(write.owner, write.name, write.descriptor, write.deobf);
+                }
+            }
+        }
+    }
+
+    /**
+     * Sets the list that writes made on the current thread are recorded
+     * to.
+     *
+     * @param writes The list to record to, or {@code null} to stop
+     *               recording
+     */
+    public final void _record(final List<Write> writes) {
+        if (writes == null) {
+            this.journal.remove();
+        }
+        else {
+            this.journal.set(writes);
+        }
+    }
+
+    private void record(final String owner, final String name, final String descriptor, final String deobf,
+                        final boolean ifAbsent) {
+        final List<Write> writes = this.journal.get();
+        if (writes != null) writes.add(new Write(owner, name, descriptor, deobf, ifAbsent));
+    }
+
+    /**
+     * A write made through a mapping writer.
+     */
+    public static final class Write {
+
+        private final String owner;
+        private final String name;
+        private final String descriptor;
+        private final String deobf;
+        private final boolean ifAbsent;
+
+        /**
+         * Creates a write.
+         *
+         * @param owner The obfuscated name of the class
+         * @param name The obfuscated name of the field, or {@code null} for
+         *             a write to the class itself
+         * @param descriptor The descriptor of the field, or {@code null}
+         * @param deobf The de-obfuscated name, or {@code null} should the
+         *              mapping only have been created
+         * @param ifAbsent Whether the name was only set as there was none
+         */
+        public Write(final String owner, final String name, final String descriptor, final String deobf,
+                     final boolean ifAbsent) {
+            this.owner = owner;
+            this.name = name;
+            this.descriptor = descriptor;
+            this.deobf = deobf;
+            this.ifAbsent = ifAbsent;
+        }
+
+        public String getOwner() {
+            return this.owner;
+        }
+
+        public String getName() {
+            return this.name;
+        }
+
+        public String getDescriptor() {
+            return this.descriptor;
+        }
+
+        public String getDeobfuscatedName() {
+            return this.deobf;
+        }
+
+        public boolean isIfAbsent() {
+            return this.ifAbsent;
+        }
+
+    }
+
+    private ClassMapping<?, ?> getClassMapping(final String klass) {
+        synchronized (this.global) {
+            return this.mappings.getOrCreateClassMapping(klass);
+        }
+    }
+
+    private Object stripe(final String klass) {
+        // Hash the top-level class name, without creating a substring
+        int hash = 0;
+        for (int i = 0; i < klass.length(); i++) {
+            final char c = klass.charAt(i);
+            if (c == '$') break;
+            hash = 31 * hash + c;
+        }
+        return this.stripes[(hash & 0x7FFFFFFF) % STRIPES];
+    }
+
+}
@@ -0,0 +1,69 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package org.cadixdev.survey.mapper;
+
+import org.objectweb.asm.ClassReader;
+
+import java.util.Collection;
+
+/**
+ * The parts of a class, beyond its header, fields and method declarations,
+ * that a mapper needs to visit. Those parts no mapper needs are skipped by
+ * the {@link ClassReader}.
+ *
+ * @author Jamie Mansfield
+ * @since 0.2.0
+ */
+public enum ReadRequirement {
+
+    /**
+     * The bodies of methods.
+     */
+    CODE(ClassReader.SKIP_CODE),
+
+    /**
+     * Debug information, such as line numbers and local variables.
+     */
+    DEBUG(ClassReader.SKIP_DEBUG),
+
+    /**
+     * Stack map frames.
+     */
+    FRAMES(ClassReader.SKIP_FRAMES),
+    ;
+
+    /**
+     * Gets the {@link ClassReader} parsing options that skip everything
+     * not in the given requirements.
+     *
+     * @param requirements The read requirements
+     * @return The parsing options
+     */
+    public static int getParsingOptions(final Collection<ReadRequirement> requirements) {
+        int options = 0;
+        for (final ReadRequirement requirement : values()) {
+            if (!requirements.contains(requirement)) options |= requirement.skipFlag;
+        }
+        return options;
+    }
+
+    private final int skipFlag;
+
+    ReadRequirement(final int skipFlag) {
+        this.skipFlag = skipFlag;
+    }
+
+    /**
+     * Gets the {@link ClassReader} flag that skips this part of the class.
+     *
+     * @return The skip flag
+     */
+    public int getSkipFlag() {
+        return this.skipFlag;
+    }
+
+}
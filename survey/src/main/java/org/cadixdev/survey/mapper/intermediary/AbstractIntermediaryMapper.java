@@ -6,11 +6,23 @@
 
 package org.cadixdev.survey.mapper.intermediary;
 
+import org.cadixdev.bombe.jar.JarClassEntry;
 import org.cadixdev.survey.mapper.AbstractMapper;
 import org.cadixdev.survey.context.SurveyContext;
+import org.objectweb.asm.ClassReader;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
 
 /**
  * An intermediary mapper, that produces version-agnostic mappings.
+ * <p>
+ * Ids are allocated when the mapper is {@link #prepare(List) prepared}, from
+ * the order of the jar, so the members can be named in any order. The mapper
+ * is only prepared once the mappers before it have run, so - as when ids
+ * were counted while visiting - members they name don't take an id.
  *
  * @param <C> The type of the configuration
  * @author Jamie Mansfield
@@ -19,15 +31,100 @@ import org.cadixdev.survey.context.SurveyContext;
 public abstract class AbstractIntermediaryMapper<C extends AbstractIntermediaryMapper.Config>
         extends AbstractMapper<C> {
 
+    private IntermediaryLedger ledger;
+
     public AbstractIntermediaryMapper(final SurveyContext ctx, final C configuration) {
         super(ctx, configuration);
     }
 
+    /**
+     * Gets the ledger of ids, allocated by the mapper.
+     *
+     * @return The ledger
+     */
+    public final IntermediaryLedger ledger() {
+        if (this.ledger == null) {
+            // The mapper is being used without being prepared, so ids are
+            // given in visit order.
+            this.ledger = new IntermediaryLedger();
+        }
+        return this.ledger;
+    }
+
+    @Override
+    public boolean isOrderIndependent() {
+        return true;
+    }
+
+    @Override
+    public boolean isPreparedAfterPrecedingMappers() {
+        // Members named by the preceding mappers aren't given ids
+        return true;
+    }
+
+    @Override
+    public boolean isIncremental() {
+        // Without a ledger, ids depend on every class of the jar
+        return this.getConfiguration().getLedger() != null;
+    }
+
+    @Override
+    public void prepare(final List<JarClassEntry> classes) {
+        final Path path = this.getConfiguration().getLedger();
+        try {
+            this.ledger = path != null && Files.exists(path) ?
+                    IntermediaryLedger.read(path) :
+                    new IntermediaryLedger();
+        }
+        catch (final IOException ex) {
+            throw new RuntimeException("Failed to read intermediary ledger!", ex);
+        }
+
+        for (final JarClassEntry entry : classes) {
+            if (this.ctx().blacklisted(entry.getName())) continue;
+            this.allocate(new ClassReader(entry.getContents()), this.ledger);
+        }
+
+        if (path != null) {
+            try {
+                this.ledger.write(path);
+            }
+            catch (final IOException ex) {
+                throw new RuntimeException("Failed to write intermediary ledger!", ex);
+            }
+        }
+    }
+
+    /**
+     * Allocates ids for the members of the given class, that require them.
+     *
+     * @param klass The class
+     * @param ledger The ledger to allocate from
+     */
+    protected abstract void allocate(final ClassReader klass, final IntermediaryLedger ledger);
+
+    @Override
+    public AbstractMapper<C> fork() {
+        final AbstractIntermediaryMapper<C> fork = (AbstractIntermediaryMapper<C>) super.fork();
+        fork.ledger = this.ledger;
+        return fork;
+    }
+
     /**
      * The intermediary mapper configuration.
      */
     public static abstract class Config {
 
+        private final Path ledger;
+
+        protected Config(final Path ledger) {
+            this.ledger = ledger;
+        }
+
+        protected Config() {
+            this(null);
+        }
+
         /**
          * Gets the format used for the member names.
          *
@@ -35,6 +132,15 @@ public abstract class AbstractIntermediaryMapper<C extends AbstractIntermediaryM
          */
         public abstract String getFormat();
 
+        /**
+         * Gets the path of the ledger used to persist ids between runs.
+         *
+         * @return The ledger path, or {@code null} if ids aren't persisted
+         */
+        public Path getLedger() {
+            return this.ledger;
+        }
+
         /**
          * Creates the member name, from the configured format, with the id
          * and obfuscated name.
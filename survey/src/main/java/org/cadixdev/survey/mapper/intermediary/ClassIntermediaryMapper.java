@@ -6,8 +6,13 @@
 
 package org.cadixdev.survey.mapper.intermediary;
 
-import org.cadixdev.lorenz.model.ClassMapping;
 import org.cadixdev.survey.context.SurveyContext;
+import org.cadixdev.survey.mapper.ReadRequirement;
+import org.objectweb.asm.ClassReader;
+
+import java.nio.file.Path;
+import java.util.EnumSet;
+import java.util.Set;
 
 /**
  * The class intermediary mapper.
@@ -17,25 +22,37 @@ import org.cadixdev.survey.context.SurveyContext;
  */
 public class ClassIntermediaryMapper extends AbstractIntermediaryMapper<ClassIntermediaryMapper.Config> {
 
-    private int count = 0;
-
     public ClassIntermediaryMapper(final SurveyContext ctx, final ClassIntermediaryMapper.Config configuration) {
         super(ctx, configuration);
     }
 
+    @Override
+    protected void allocate(final ClassReader klass, final IntermediaryLedger ledger) {
+        final String name = klass.getClassName();
+        if (!this.writer().isClassMapped(name)) {
+            ledger.allocate(name);
+        }
+    }
+
+    @Override
+    public Set<ReadRequirement> getReadRequirements() {
+        // Only the header is visited
+        return EnumSet.noneOf(ReadRequirement.class);
+    }
+
     @Override
     public void visit(final int version, final int access, final String name, final String signature, final String superName, final String[] interfaces) {
-        final ClassMapping<?, ?> klass = this.ctx().mappings().getOrCreateClassMapping(name);
-        if (!klass.hasDeobfuscatedName()) {
+        this.writer().mapClassIfAbsent(name, () -> {
+            final int id = this.ledger().allocate(name);
             if (name.contains("$")) {
                 final String innerName = name.substring(name.lastIndexOf('$') + 1);
-                klass.setDeobfuscatedName(this.getConfiguration().getMemberName(++this.count, innerName));
+                return this.getConfiguration().getMemberName(id, innerName);
             }
             else {
-                klass.setDeobfuscatedName(this.getConfiguration().getPackageName() +
-                        this.getConfiguration().getMemberName(++this.count, name));
+                return this.getConfiguration().getPackageName() +
+                        this.getConfiguration().getMemberName(id, name);
             }
-        }
+        });
 
         super.visit(version, access, name, signature, superName, interfaces);
     }
@@ -48,11 +65,16 @@ public class ClassIntermediaryMapper extends AbstractIntermediaryMapper<ClassInt
         private final String format;
         private final String packageName;
 
-        public Config(final String format, final String packageName) {
+        public Config(final String format, final String packageName, final Path ledger) {
+            super(ledger);
             this.format = format;
             this.packageName = packageName;
         }
 
+        public Config(final String format, final String packageName) {
+            this(format, packageName, null);
+        }
+
         @Override
         public String getFormat() {
             return this.format;
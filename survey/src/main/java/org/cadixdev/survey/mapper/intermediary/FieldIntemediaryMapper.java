@@ -6,11 +6,18 @@
 
 package org.cadixdev.survey.mapper.intermediary;
 
-import org.cadixdev.lorenz.model.ClassMapping;
-import org.cadixdev.lorenz.model.FieldMapping;
+import static org.objectweb.asm.Opcodes.ASM6;
+
 import org.cadixdev.survey.context.SurveyContext;
+import org.cadixdev.survey.mapper.ReadRequirement;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
 import org.objectweb.asm.FieldVisitor;
 
+import java.nio.file.Path;
+import java.util.EnumSet;
+import java.util.Set;
+
 /**
  * The field intermediary mapper.
  *
@@ -19,26 +26,44 @@ import org.objectweb.asm.FieldVisitor;
  */
 public class FieldIntemediaryMapper extends AbstractIntermediaryMapper<FieldIntemediaryMapper.Config> {
 
-    private int count = 0;
-    private ClassMapping<?, ?> klass;
+    private String klass;
 
     public FieldIntemediaryMapper(final SurveyContext ctx, final Config configuration) {
         super(ctx, configuration);
     }
 
+    @Override
+    protected void allocate(final ClassReader klass, final IntermediaryLedger ledger) {
+        final String owner = klass.getClassName();
+        klass.accept(new ClassVisitor(ASM6) {
+            @Override
+            public FieldVisitor visitField(final int access, final String name, final String descriptor,
+                                           final String signature, final Object value) {
+                if (!FieldIntemediaryMapper.this.writer().isFieldMapped(owner, name, descriptor)) {
+                    ledger.allocate(key(owner, name, descriptor));
+                }
+                return null;
+            }
+        }, ClassReader.SKIP_CODE | ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+    }
+
+    @Override
+    public Set<ReadRequirement> getReadRequirements() {
+        return EnumSet.noneOf(ReadRequirement.class);
+    }
+
     @Override
     public void visit(final int version, final int access, final String name, final String signature, final String superName, final String[] interfaces) {
-        this.klass = this.ctx().mappings().getOrCreateClassMapping(name);
+        this.klass = name;
+        this.writer().createClass(name);
 
         super.visit(version, access, name, signature, superName, interfaces);
     }
 
     @Override
     public FieldVisitor visitField(final int access, final String name, final String descriptor, final String signature, final Object value) {
-        final FieldMapping fieldMapping = this.klass.getOrCreateFieldMapping(name, descriptor);
-        if (!fieldMapping.hasDeobfuscatedName()) {
-            fieldMapping.setDeobfuscatedName(this.getConfiguration().getMemberName(++this.count, name));
-        }
+        this.writer().mapFieldIfAbsent(this.klass, name, descriptor,
+                () -> this.getConfiguration().getMemberName(this.ledger().allocate(key(this.klass, name, descriptor)), name));
         return super.visitField(access, name, descriptor, signature, value);
     }
 
@@ -49,6 +74,10 @@ public class FieldIntemediaryMapper extends AbstractIntermediaryMapper<FieldInte
         super.visitEnd();
     }
 
+    private static String key(final String owner, final String name, final String descriptor) {
+        return owner + '.' + name + ':' + descriptor;
+    }
+
     /**
      * The field intermediary mapper configuration.
      */
@@ -56,10 +85,15 @@ public class FieldIntemediaryMapper extends AbstractIntermediaryMapper<FieldInte
 
         private final String format;
 
-        public Config(final String format) {
+        public Config(final String format, final Path ledger) {
+            super(ledger);
             this.format = format;
         }
 
+        public Config(final String format) {
+            this(format, null);
+        }
+
         @Override
         public String getFormat() {
             return this.format;
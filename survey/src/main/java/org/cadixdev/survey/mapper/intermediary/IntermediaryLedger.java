@@ -0,0 +1,115 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package org.cadixdev.survey.mapper.intermediary;
+
+import org.cadixdev.survey.util.AtomicFiles;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * A ledger of the ids given to members by an intermediary mapper.
+ * <p>
+ * Ids are allocated up front, from a stable ordering of the jar, so that
+ * the members can then be named in any order (or on many threads) while
+ * still producing the same mappings. A ledger can be persisted, so ids
+ * remain stable between runs - and across runs over subsets of a jar.
+ *
+ * @author Jamie Mansfield
+ * @since 0.2.0
+ */
+public class IntermediaryLedger {
+
+    private static final int MAGIC = 0x5356494C; // SVIL
+    private static final int VERSION = 1;
+
+    /**
+     * Reads a ledger from the given path.
+     *
+     * @param path The path to the ledger
+     * @return The ledger
+     * @throws IOException Should an I/O issue occur
+     */
+    public static IntermediaryLedger read(final Path path) throws IOException {
+        try (final DataInputStream in = new DataInputStream(new GZIPInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != MAGIC) throw new IOException("Not an intermediary ledger!");
+            if (in.readInt() != VERSION) throw new IOException("Unsupported intermediary ledger version!");
+
+            final IntermediaryLedger ledger = new IntermediaryLedger();
+            ledger.last = in.readInt();
+            final int size = in.readInt();
+            for (int i = 0; i < size; i++) {
+                ledger.ids.put(in.readUTF(), in.readInt());
+            }
+            return ledger;
+        }
+    }
+
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    private int last = 0;
+
+    /**
+     * Gets the id of the given key, allocating the next id should it not
+     * already have one.
+     *
+     * @param key The key
+     * @return The id
+     */
+    public int allocate(final String key) {
+        final Integer id = this.ids.get(key);
+        if (id != null) return id;
+
+        synchronized (this) {
+            return this.ids.computeIfAbsent(key, k -> ++this.last);
+        }
+    }
+
+    /**
+     * Gets the number of ids in the ledger.
+     *
+     * @return The size
+     */
+    public int size() {
+        return this.ids.size();
+    }
+
+    /**
+     * Writes the ledger to the given path, ordered by id. The ledger is
+     * written atomically, so a run that is killed part-way through never
+     * loses the ids already allocated.
+     *
+     * @param path The path to write to
+     * @throws IOException Should an I/O issue occur
+     */
+    public synchronized void write(final Path path) throws IOException {
+        final List<Map.Entry<String, Integer>> entries = new ArrayList<>(this.ids.entrySet());
+        entries.sort(Map.Entry.comparingByValue());
+
+        AtomicFiles.write(path, temp -> {
+            try (final DataOutputStream out = new DataOutputStream(new GZIPOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(this.last);
+                out.writeInt(entries.size());
+                for (final Map.Entry<String, Integer> entry : entries) {
+                    out.writeUTF(entry.getKey());
+                    out.writeInt(entry.getValue());
+                }
+            }
+        });
+    }
+
+}
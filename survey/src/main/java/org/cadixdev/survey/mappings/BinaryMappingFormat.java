@@ -0,0 +1,108 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package org.cadixdev.survey.mappings;
+
+import org.cadixdev.lorenz.MappingSet;
+import org.cadixdev.lorenz.io.MappingFormat;
+import org.cadixdev.lorenz.io.MappingsReader;
+import org.cadixdev.lorenz.io.MappingsWriter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.Optional;
+
+/**
+ * A compact binary mapping format, designed to be quick to load.
+ * <p>
+ * Files consist of a table of (de-duplicated) strings, a table of the
+ * top-level classes - sorted by obfuscated name, with the offset of each
+ * class' record - and the class records themselves, with their members
+ * sorted. Files are memory-mapped when read from a path, and with
+ * {@link #open(Path)} classes are only read when they are looked up.
+ *
+ * @author Jamie Mansfield
+ * @since 0.2.0
+ */
+public final class BinaryMappingFormat implements MappingFormat {
+
+    /**
+     * The identifier of the format, as used on the command line.
+     */
+    public static final String ID = "binary";
+
+    public static final BinaryMappingFormat INSTANCE = new BinaryMappingFormat();
+
+    /**
+     * Opens the mappings at the given path, as a {@link LazyMappingSet}.
+     *
+     * @param path The path to the mappings
+     * @return The mappings
+     * @throws IOException Should an I/O issue occur
+     */
+    public static LazyMappingSet open(final Path path) throws IOException {
+        return new LazyMappingSet(BinaryMappings.map(path));
+    }
+
+    private BinaryMappingFormat() {
+    }
+
+    @Override
+    public MappingSet read(final MappingSet mappings, final Path path) throws IOException {
+        read(BinaryMappings.map(path), mappings);
+        return mappings;
+    }
+
+    private static void read(final BinaryMappings source, final MappingSet mappings) {
+        for (int i = 0; i < source.size(); i++) {
+            source.read(i, mappings.getOrCreateTopLevelClassMapping(source.getClassName(i)));
+        }
+    }
+
+    @Override
+    public MappingsReader createReader(final InputStream stream) throws IOException {
+        return new MappingsReader() {
+            @Override
+            public MappingSet read(final MappingSet mappings) {
+                // Streams can't be mapped, so are read onto the heap
+                try {
+                    final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                    final byte[] buffer = new byte[8192];
+                    int read;
+                    while ((read = stream.read(buffer)) != -1) {
+                        bytes.write(buffer, 0, read);
+                    }
+                    BinaryMappingFormat.read(new BinaryMappings(ByteBuffer.wrap(bytes.toByteArray())), mappings);
+                }
+                catch (final IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+                return mappings;
+            }
+
+            @Override
+            public void close() throws IOException {
+                stream.close();
+            }
+        };
+    }
+
+    @Override
+    public MappingsWriter createWriter(final OutputStream stream) {
+        return new BinaryMappingsWriter(stream);
+    }
+
+    @Override
+    public Optional<String> getStandardFileExtension() {
+        return Optional.of("smb");
+    }
+
+}
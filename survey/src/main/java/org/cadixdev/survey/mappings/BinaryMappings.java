@@ -0,0 +1,231 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package org.cadixdev.survey.mappings;
+
+import org.cadixdev.lorenz.model.ClassMapping;
+import org.cadixdev.lorenz.model.MethodMapping;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A read-only view of mappings in the {@link BinaryMappingFormat binary
+ * mapping format}, from which individual classes can be materialised.
+ * <p>
+ * Only absolute reads are made against the buffer, so a view can be
+ * safely shared between threads.
+ *
+ * @author Jamie Mansfield
+ * @since 0.2.0
+ */
+final class BinaryMappings {
+
+    static final int MAGIC = 0x53564D42; // SVMB
+    static final int VERSION = 1;
+
+    static final int HEADER_SIZE = 16;
+    static final int NO_STRING = -1;
+
+    /**
+     * Maps the given file into memory.
+     *
+     * @param path The path to the mappings
+     * @return The mappings
+     * @throws IOException Should an I/O issue occur
+     */
+    static BinaryMappings map(final Path path) throws IOException {
+        try (final FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return new BinaryMappings(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    private final ByteBuffer buffer;
+    private final int stringCount;
+    private final int classCount;
+    private final int strings;
+    private final int classes;
+    private final int stringData;
+    private final int records;
+
+    BinaryMappings(final ByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        if (buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a binary mappings file!");
+        }
+        if (buffer.getInt(4) != VERSION) throw new IOException("Unsupported binary mappings version!");
+
+        this.stringCount = buffer.getInt(8);
+        this.classCount = buffer.getInt(12);
+        this.strings = HEADER_SIZE;
+        this.classes = this.strings + 4 * (this.stringCount + 1);
+        this.stringData = this.classes + 8 * this.classCount;
+        this.records = this.stringData + buffer.getInt(this.strings + 4 * this.stringCount);
+        if (this.records > buffer.limit()) throw new IOException("Truncated binary mappings file!");
+    }
+
+    /**
+     * Gets the number of top-level classes in the mappings.
+     *
+     * @return The number of classes
+     */
+    int size() {
+        return this.classCount;
+    }
+
+    /**
+     * Gets the obfuscated name of the top-level class at the given index.
+     *
+     * @param index The index of the class
+     * @return The obfuscated name
+     */
+    String getClassName(final int index) {
+        return this.getString(this.buffer.getInt(this.classes + 8 * index));
+    }
+
+    /**
+     * Finds the index of the given top-level class, by a binary search of
+     * the (sorted) class table.
+     *
+     * @param name The obfuscated name of the class
+     * @return The index of the class, or {@code -1} should it not be present
+     */
+    int indexOf(final String name) {
+        int low = 0;
+        int high = this.classCount - 1;
+        while (low <= high) {
+            final int mid = (low + high) >>> 1;
+            final int cmp = this.compare(this.buffer.getInt(this.classes + 8 * mid), name);
+            if (cmp < 0) {
+                low = mid + 1;
+            }
+            else if (cmp > 0) {
+                high = mid - 1;
+            }
+            else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Reads the top-level class at the given index into the given mapping.
+     *
+     * @param index The index of the class
+     * @param mapping The mapping to read into
+     */
+    void read(final int index, final ClassMapping<?, ?> mapping) {
+        this.readClass(this.records + this.buffer.getInt(this.classes + 8 * index + 4), mapping);
+    }
+
+    private int readClass(int offset, final ClassMapping<?, ?> mapping) {
+        // The obfuscated name is known by whoever created the mapping
+        offset += 4;
+        mapping.setDeobfuscatedName(this.getString(this.buffer.getInt(offset)));
+        offset += 4;
+
+        final int fields = this.buffer.getInt(offset);
+        offset += 4;
+        for (int i = 0; i < fields; i++) {
+            final String obf = this.getString(this.buffer.getInt(offset));
+            final String deobf = this.getString(this.buffer.getInt(offset + 4));
+            final int type = this.buffer.getInt(offset + 8);
+            offset += 12;
+
+            if (type == NO_STRING) {
+                mapping.getOrCreateFieldMapping(obf).setDeobfuscatedName(deobf);
+            }
+            else {
+                mapping.getOrCreateFieldMapping(obf, this.getString(type)).setDeobfuscatedName(deobf);
+            }
+        }
+
+        final int methods = this.buffer.getInt(offset);
+        offset += 4;
+        for (int i = 0; i < methods; i++) {
+            final String obf = this.getString(this.buffer.getInt(offset));
+            final String deobf = this.getString(this.buffer.getInt(offset + 4));
+            final String desc = this.getString(this.buffer.getInt(offset + 8));
+            final int params = this.buffer.getInt(offset + 12);
+            offset += 16;
+
+            final MethodMapping method = mapping.getOrCreateMethodMapping(obf, desc).setDeobfuscatedName(deobf);
+            for (int j = 0; j < params; j++) {
+                method.getOrCreateParameterMapping(this.buffer.getInt(offset))
+                        .setDeobfuscatedName(this.getString(this.buffer.getInt(offset + 4)));
+                offset += 8;
+            }
+        }
+
+        final int inners = this.buffer.getInt(offset);
+        offset += 4;
+        for (int i = 0; i < inners; i++) {
+            final String obf = this.getString(this.buffer.getInt(offset));
+            offset = this.readClass(offset, mapping.getOrCreateInnerClassMapping(obf));
+        }
+
+        return offset;
+    }
+
+    private String getString(final int index) {
+        final int start = this.buffer.getInt(this.strings + 4 * index);
+        final int end = this.buffer.getInt(this.strings + 4 * (index + 1));
+
+        final byte[] bytes = new byte[end - start];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = this.buffer.get(this.stringData + start + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Compares the string at the given index with the given string, by
+     * code point - without decoding the stored string to a {@link String}.
+     */
+    private int compare(final int index, final String name) {
+        int pos = this.stringData + this.buffer.getInt(this.strings + 4 * index);
+        final int end = this.stringData + this.buffer.getInt(this.strings + 4 * (index + 1));
+
+        int i = 0;
+        while (pos < end && i < name.length()) {
+            // Decode the next code point of the stored (UTF-8) string
+            final int b = this.buffer.get(pos) & 0xFF;
+            final int stored;
+            if (b < 0x80) {
+                stored = b;
+                pos += 1;
+            }
+            else if (b < 0xE0) {
+                stored = ((b & 0x1F) << 6) | (this.buffer.get(pos + 1) & 0x3F);
+                pos += 2;
+            }
+            else if (b < 0xF0) {
+                stored = ((b & 0x0F) << 12) | ((this.buffer.get(pos + 1) & 0x3F) << 6)
+                        | (this.buffer.get(pos + 2) & 0x3F);
+                pos += 3;
+            }
+            else {
+                stored = ((b & 0x07) << 18) | ((this.buffer.get(pos + 1) & 0x3F) << 12)
+                        | ((this.buffer.get(pos + 2) & 0x3F) << 6) | (this.buffer.get(pos + 3) & 0x3F);
+                pos += 4;
+            }
+
+            final int cp = name.codePointAt(i);
+            if (stored != cp) return Integer.compare(stored, cp);
+            i += Character.charCount(cp);
+        }
+
+        if (pos < end) return 1;
+        if (i < name.length()) return -1;
+        return 0;
+    }
+
+}
@@ -0,0 +1,162 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package org.cadixdev.survey.mappings;
+
+import org.cadixdev.lorenz.MappingSet;
+import org.cadixdev.lorenz.io.MappingsWriter;
+import org.cadixdev.lorenz.model.ClassMapping;
+import org.cadixdev.lorenz.model.FieldMapping;
+import org.cadixdev.lorenz.model.InnerClassMapping;
+import org.cadixdev.lorenz.model.MethodMapping;
+import org.cadixdev.lorenz.model.MethodParameterMapping;
+import org.cadixdev.lorenz.model.TopLevelClassMapping;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A {@link MappingsWriter} for the {@link BinaryMappingFormat binary
+ * mapping format}.
+ *
+ * @author Jamie Mansfield
+ * @since 0.2.0
+ */
+class BinaryMappingsWriter extends MappingsWriter {
+
+    /**
+     * Orders strings by code point, which is the order of their UTF-8
+     * encoding - and so the order that {@link BinaryMappings} searches in.
+     */
+    static final Comparator<String> CODE_POINT_ORDER = (a, b) -> {
+        int i = 0;
+        int j = 0;
+        while (i < a.length() && j < b.length()) {
+            final int x = a.codePointAt(i);
+            final int y = b.codePointAt(j);
+            if (x != y) return Integer.compare(x, y);
+            i += Character.charCount(x);
+            j += Character.charCount(y);
+        }
+        return Boolean.compare(i < a.length(), j < b.length());
+    };
+
+    private static final Comparator<FieldMapping> FIELD_ORDER = Comparator
+            .comparing(FieldMapping::getObfuscatedName, CODE_POINT_ORDER)
+            .thenComparing(field -> field.getSignature().getType().map(Object::toString).orElse(""), CODE_POINT_ORDER);
+    private static final Comparator<MethodMapping> METHOD_ORDER = Comparator
+            .comparing(MethodMapping::getObfuscatedName, CODE_POINT_ORDER)
+            .thenComparing(MethodMapping::getObfuscatedDescriptor, CODE_POINT_ORDER);
+    private static final Comparator<ClassMapping<?, ?>> CLASS_ORDER = Comparator
+            .comparing(ClassMapping::getObfuscatedName, CODE_POINT_ORDER);
+
+    private final OutputStream stream;
+    private final Map<String, Integer> strings = new LinkedHashMap<>();
+
+    BinaryMappingsWriter(final OutputStream stream) {
+        this.stream = stream;
+    }
+
+    @Override
+    public void write(final MappingSet mappings) throws IOException {
+        final List<TopLevelClassMapping> classes = new ArrayList<>(mappings.getTopLevelClassMappings());
+        classes.sort(CLASS_ORDER);
+
+        // Write the class records first, as doing so builds the string table
+        final ByteArrayOutputStream records = new ByteArrayOutputStream();
+        final DataOutputStream recordsOut = new DataOutputStream(records);
+        final int[] classTable = new int[classes.size() * 2];
+        for (int i = 0; i < classes.size(); i++) {
+            final TopLevelClassMapping klass = classes.get(i);
+            classTable[i * 2] = this.string(klass.getObfuscatedName());
+            classTable[i * 2 + 1] = recordsOut.size();
+            this.writeClass(recordsOut, klass);
+        }
+
+        final DataOutputStream out = new DataOutputStream(this.stream);
+        out.writeInt(BinaryMappings.MAGIC);
+        out.writeInt(BinaryMappings.VERSION);
+        out.writeInt(this.strings.size());
+        out.writeInt(classes.size());
+
+        // String offsets, and then the class table
+        final List<byte[]> encoded = new ArrayList<>(this.strings.size());
+        int offset = 0;
+        for (final String string : this.strings.keySet()) {
+            final byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+            encoded.add(bytes);
+            out.writeInt(offset);
+            offset += bytes.length;
+        }
+        out.writeInt(offset);
+        for (final int value : classTable) {
+            out.writeInt(value);
+        }
+
+        // String data, and then the class records
+        for (final byte[] bytes : encoded) {
+            out.write(bytes);
+        }
+        records.writeTo(out);
+        out.flush();
+    }
+
+    private void writeClass(final DataOutputStream out, final ClassMapping<?, ?> klass) throws IOException {
+        out.writeInt(this.string(klass.getObfuscatedName()));
+        out.writeInt(this.string(klass.getDeobfuscatedName()));
+
+        final List<FieldMapping> fields = new ArrayList<>(klass.getFieldMappings());
+        fields.sort(FIELD_ORDER);
+        out.writeInt(fields.size());
+        for (final FieldMapping field : fields) {
+            out.writeInt(this.string(field.getObfuscatedName()));
+            out.writeInt(this.string(field.getDeobfuscatedName()));
+            out.writeInt(field.getSignature().getType()
+                    .map(type -> this.string(type.toString()))
+                    .orElse(BinaryMappings.NO_STRING));
+        }
+
+        final List<MethodMapping> methods = new ArrayList<>(klass.getMethodMappings());
+        methods.sort(METHOD_ORDER);
+        out.writeInt(methods.size());
+        for (final MethodMapping method : methods) {
+            out.writeInt(this.string(method.getObfuscatedName()));
+            out.writeInt(this.string(method.getDeobfuscatedName()));
+            out.writeInt(this.string(method.getObfuscatedDescriptor()));
+
+            out.writeInt(method.getParameterMappings().size());
+            for (final MethodParameterMapping param : method.getParameterMappings()) {
+                out.writeInt(param.getIndex());
+                out.writeInt(this.string(param.getDeobfuscatedName()));
+            }
+        }
+
+        final List<InnerClassMapping> inners = new ArrayList<>(klass.getInnerClassMappings());
+        inners.sort(CLASS_ORDER);
+        out.writeInt(inners.size());
+        for (final InnerClassMapping inner : inners) {
+            this.writeClass(out, inner);
+        }
+    }
+
+    private int string(final String string) {
+        return this.strings.computeIfAbsent(string, s -> this.strings.size());
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.stream.close();
+    }
+
+}
@@ -0,0 +1,157 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package org.cadixdev.survey.mappings;
+
+import org.cadixdev.lorenz.MappingSet;
+import org.cadixdev.lorenz.io.MappingFormat;
+import org.cadixdev.lorenz.io.MappingFormats;
+import org.cadixdev.lorenz.io.MappingsReader;
+import org.cadixdev.lorenz.model.TopLevelClassMapping;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Utilities for reading only the mappings a jar needs, as given by a
+ * {@link JarClassIndex}.
+ * <p>
+ * The line-based formats (SRG, CSRG, and TSRG) are filtered line-by-line
+ * before being parsed, so the mappings of irrelevant classes are never
+ * created. Binary mappings are read lazily, so are only read as needed
+ * anyway. Any other format is read in full, and the relevant classes
+ * copied out.
+ *
+ * @author Jamie Mansfield
+ * @since 0.2.0
+ */
+public final class FilteredMappings {
+
+    /**
+     * Reads the mappings, of the given format, needed by a jar.
+     *
+     * @param format The mapping format
+     * @param path The path to the mappings
+     * @param index The index of the classes needed
+     * @return The mappings
+     * @throws IOException Should an I/O issue occur
+     */
+    public static MappingSet read(final MappingFormat format, final Path path, final JarClassIndex index)
+            throws IOException {
+        if (format instanceof BinaryMappingFormat) {
+            return BinaryMappingFormat.open(path);
+        }
+
+        final LineFilter filter = getLineFilter(format);
+        if (filter != null) {
+            final ByteArrayOutputStream filtered = new ByteArrayOutputStream();
+            try (final BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8);
+                 final Writer writer = new BufferedWriter(new OutputStreamWriter(filtered, StandardCharsets.UTF_8))) {
+                // Whether the members (in TSRG, the indented lines) following
+                // the last class line are to be kept
+                boolean keepMembers = false;
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    final boolean keep = filter.keep(line, index, keepMembers);
+                    if (keep) {
+                        writer.write(line);
+                        writer.write('\n');
+                    }
+                    if (!line.isEmpty() && !Character.isWhitespace(line.charAt(0))) {
+                        keepMembers = keep;
+                    }
+                }
+            }
+
+            try (final MappingsReader reader = format.createReader(new ByteArrayInputStream(filtered.toByteArray()))) {
+                return reader.read(MappingSet.create());
+            }
+        }
+
+        final MappingSet all = format.read(MappingSet.create(), path);
+        final MappingSet mappings = MappingSet.create();
+        for (final TopLevelClassMapping klass : all.getTopLevelClassMappings()) {
+            if (index.contains(klass.getObfuscatedName())) {
+                MappingCopier.copy(klass, mappings);
+            }
+        }
+        return mappings;
+    }
+
+    private static LineFilter getLineFilter(final MappingFormat format) {
+        if (format == MappingFormats.SRG) return FilteredMappings::keepSrg;
+        if (format == MappingFormats.CSRG) return FilteredMappings::keepCsrg;
+        if (format == MappingFormats.TSRG) return FilteredMappings::keepTsrg;
+        return null;
+    }
+
+    private static boolean keepSrg(final String line, final JarClassIndex index, final boolean keepMembers) {
+        // CL: a b
+        // FD: a/b c/d
+        // MD: a/b (I)V c/d (I)V
+        if (line.startsWith("CL:")) {
+            return index.contains(getToken(line, 3));
+        }
+        if (line.startsWith("FD:") || line.startsWith("MD:")) {
+            return index.contains(getOwner(getToken(line, 3)));
+        }
+        // Packages, comments, and anything unknown are kept
+        return true;
+    }
+
+    private static boolean keepCsrg(final String line, final JarClassIndex index, final boolean keepMembers) {
+        // a b
+        // a b c
+        // a b (I)V c
+        final String klass = getToken(line, 0);
+        if (klass.isEmpty() || klass.startsWith("#") || klass.endsWith("/")) return true;
+        return index.contains(klass);
+    }
+
+    private static boolean keepTsrg(final String line, final JarClassIndex index, final boolean keepMembers) {
+        // a b
+        //     b c
+        //     c (I)V d
+        if (line.isEmpty()) return false;
+        if (Character.isWhitespace(line.charAt(0))) return keepMembers;
+
+        final String klass = getToken(line, 0);
+        if (klass.startsWith("#") || klass.endsWith("/")) return true;
+        return index.contains(klass);
+    }
+
+    private static String getToken(final String line, final int from) {
+        int start = from;
+        while (start < line.length() && Character.isWhitespace(line.charAt(start))) start++;
+        int end = start;
+        while (end < line.length() && !Character.isWhitespace(line.charAt(end))) end++;
+        return line.substring(start, end);
+    }
+
+    private static String getOwner(final String member) {
+        final int index = member.lastIndexOf('/');
+        return index == -1 ? member : member.substring(0, index);
+    }
+
+    private FilteredMappings() {
+    }
+
+    @FunctionalInterface
+    private interface LineFilter {
+
+        boolean keep(final String line, final JarClassIndex index, final boolean keepMembers);
+
+    }
+
+}
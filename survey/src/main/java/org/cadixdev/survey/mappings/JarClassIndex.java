@@ -0,0 +1,106 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package org.cadixdev.survey.mappings;
+
+import static org.cadixdev.atlas.jar.JarVisitOption.IGNORE_MANIFESTS;
+import static org.cadixdev.atlas.jar.JarVisitOption.IGNORE_RESOURCES;
+import static org.cadixdev.atlas.jar.JarVisitOption.IGNORE_SERVICE_PROVIDER_CONFIGURATIONS;
+
+import org.cadixdev.atlas.jar.JarFile;
+import org.cadixdev.survey.jar.MappedJar;
+import org.cadixdev.survey.util.ClassFiles;
+import org.objectweb.asm.ClassReader;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * An index of the top-level classes that a jar needs mappings for - being
+ * its own classes, and every class they reference (which includes their
+ * supertypes). Inner classes are covered by their top-level class.
+ * <p>
+ * Supertypes are only known as far as the jar declares them, so should a
+ * class outside of the jar inherit members from yet another class, that
+ * class is not included.
+ *
+ * @author Jamie Mansfield
+ * @since 0.2.0
+ */
+public final class JarClassIndex {
+
+    /**
+     * Indexes the classes of the given jar.
+     *
+     * @param jar The jar
+     * @return The index
+     * @throws IOException Should an I/O issue occur
+     */
+    public static JarClassIndex of(final JarFile jar) throws IOException {
+        final Set<String> classes = new HashSet<>();
+        jar.walk(IGNORE_MANIFESTS, IGNORE_SERVICE_PROVIDER_CONFIGURATIONS, IGNORE_RESOURCES)
+                .map(jar::getClass)
+                .forEach(entry -> index(classes, new ClassReader(entry.getContents())));
+        return new JarClassIndex(classes);
+    }
+
+    /**
+     * Indexes the classes of the given jar.
+     *
+     * @param jar The jar
+     * @return The index
+     * @throws IOException Should an I/O issue occur
+     */
+    public static JarClassIndex of(final MappedJar jar) throws IOException {
+        final Set<String> classes = new HashSet<>();
+        for (final MappedJar.Entry entry : jar.getEntries()) {
+            if (entry.isClass()) index(classes, new ClassReader(jar.getContents(entry)));
+        }
+        return new JarClassIndex(classes);
+    }
+
+    private static void index(final Set<String> classes, final ClassReader reader) {
+        classes.add(getTopLevel(reader.getClassName()));
+        ClassFiles.anyReferencedClass(reader, klass -> {
+            classes.add(getTopLevel(klass));
+            return false;
+        });
+    }
+
+    private static String getTopLevel(final String klass) {
+        final int inner = klass.indexOf('$');
+        return inner == -1 ? klass : klass.substring(0, inner);
+    }
+
+    private final Set<String> classes;
+
+    private JarClassIndex(final Set<String> classes) {
+        this.classes = classes;
+    }
+
+    /**
+     * Establishes whether the jar needs mappings for the given class.
+     *
+     * @param klass The obfuscated name of the class
+     * @return {@code true} if the class is needed;
+     *         {@code false} otherwise
+     */
+    public boolean contains(final String klass) {
+        return this.classes.contains(getTopLevel(klass));
+    }
+
+    /**
+     * Gets the top-level classes needed by the jar.
+     *
+     * @return The classes
+     */
+    public Set<String> getClasses() {
+        return Collections.unmodifiableSet(this.classes);
+    }
+
+}
@@ -0,0 +1,84 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package org.cadixdev.survey.mappings;
+
+import org.cadixdev.lorenz.MappingSet;
+import org.cadixdev.lorenz.model.TopLevelClassMapping;
+
+import java.util.Collection;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * A {@link MappingSet} backed by {@link BinaryMappingFormat binary mappings},
+ * which only materialises a top-level class (and its members and inner
+ * classes) when it is first looked up.
+ * <p>
+ * Asking for every top-level class - as is done when writing the mappings -
+ * will materialise all of them.
+ *
+ * @author Jamie Mansfield
+ * @since 0.2.0
+ * @see BinaryMappingFormat#open(java.nio.file.Path)
+ */
+public class LazyMappingSet extends MappingSet {
+
+    private final BinaryMappings source;
+    private final AtomicIntegerArray loaded;
+
+    LazyMappingSet(final BinaryMappings source) {
+        this.source = source;
+        this.loaded = new AtomicIntegerArray(source.size());
+    }
+
+    @Override
+    public Optional<TopLevelClassMapping> getTopLevelClassMapping(final String obfuscatedName) {
+        this.load(obfuscatedName);
+        return super.getTopLevelClassMapping(obfuscatedName);
+    }
+
+    @Override
+    public TopLevelClassMapping getOrCreateTopLevelClassMapping(final String obfuscatedName) {
+        this.load(obfuscatedName);
+        return super.getOrCreateTopLevelClassMapping(obfuscatedName);
+    }
+
+    @Override
+    public boolean hasTopLevelClassMapping(final String obfuscatedName) {
+        this.load(obfuscatedName);
+        return super.hasTopLevelClassMapping(obfuscatedName);
+    }
+
+    @Override
+    public Collection<TopLevelClassMapping> getTopLevelClassMappings() {
+        for (int i = 0; i < this.source.size(); i++) {
+            this.load(i, this.source.getClassName(i));
+        }
+        return super.getTopLevelClassMappings();
+    }
+
+    private void load(final String name) {
+        final int index = this.source.indexOf(name);
+        if (index != -1) this.load(index, name);
+    }
+
+    private void load(final int index, final String name) {
+        if (this.loaded.get(index) != 0) return;
+
+        // Classes are materialised under a lock, and only marked as loaded
+        // once complete - so no thread can see a partially read class.
+        // The mapping is created directly, as getOrCreateTopLevelClassMapping
+        // looks it up through getTopLevelClassMapping - which would load it
+        // again.
+        synchronized (this) {
+            if (this.loaded.get(index) != 0) return;
+            this.source.read(index, super.createTopLevelClassMapping(name, name));
+            this.loaded.set(index, 1);
+        }
+    }
+
+}
@@ -0,0 +1,73 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package org.cadixdev.survey.mappings;
+
+import org.cadixdev.lorenz.MappingSet;
+import org.cadixdev.lorenz.model.ClassMapping;
+import org.cadixdev.lorenz.model.FieldMapping;
+import org.cadixdev.lorenz.model.InnerClassMapping;
+import org.cadixdev.lorenz.model.MethodMapping;
+import org.cadixdev.lorenz.model.MethodParameterMapping;
+import org.cadixdev.lorenz.model.TopLevelClassMapping;
+
+/**
+ * Utilities for copying mappings between {@link MappingSet}s.
+ *
+ * @author Jamie Mansfield
+ * @since 0.2.0
+ */
+public final class MappingCopier {
+
+    /**
+     * Copies the given top-level class, and everything within it, into the
+     * given mapping set.
+     *
+     * @param klass The class to copy
+     * @param mappings The mapping set to copy into
+     * @return The copied class
+     */
+    public static TopLevelClassMapping copy(final TopLevelClassMapping klass, final MappingSet mappings) {
+        final TopLevelClassMapping copy = mappings.getOrCreateTopLevelClassMapping(klass.getObfuscatedName());
+        copy(klass, copy);
+        return copy;
+    }
+
+    /**
+     * Copies the de-obfuscated name, members, and inner classes of the given
+     * class into another class mapping.
+     *
+     * @param from The class to copy from
+     * @param to The class to copy into
+     */
+    public static void copy(final ClassMapping<?, ?> from, final ClassMapping<?, ?> to) {
+        to.setDeobfuscatedName(from.getDeobfuscatedName());
+
+        for (final FieldMapping field : from.getFieldMappings()) {
+            final FieldMapping copy = field.getSignature().getType().isPresent() ?
+                    to.getOrCreateFieldMapping(field.getObfuscatedName(), field.getSignature().getType().get().toString()) :
+                    to.getOrCreateFieldMapping(field.getObfuscatedName());
+            copy.setDeobfuscatedName(field.getDeobfuscatedName());
+        }
+
+        for (final MethodMapping method : from.getMethodMappings()) {
+            final MethodMapping copy = to.getOrCreateMethodMapping(method.getObfuscatedName(), method.getObfuscatedDescriptor())
+                    .setDeobfuscatedName(method.getDeobfuscatedName());
+            for (final MethodParameterMapping param : method.getParameterMappings()) {
+                copy.getOrCreateParameterMapping(param.getIndex())
+                        .setDeobfuscatedName(param.getDeobfuscatedName());
+            }
+        }
+
+        for (final InnerClassMapping inner : from.getInnerClassMappings()) {
+            copy(inner, to.getOrCreateInnerClassMapping(inner.getObfuscatedName()));
+        }
+    }
+
+    private MappingCopier() {
+    }
+
+}
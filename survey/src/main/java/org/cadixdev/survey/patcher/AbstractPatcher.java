@@ -6,6 +6,7 @@
 
 package org.cadixdev.survey.patcher;
 
+import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.ClassVisitor;
 import org.cadixdev.survey.context.SurveyContext;
 
@@ -45,6 +46,22 @@ public abstract class AbstractPatcher<C> {
         return this.configuration;
     }
 
+    /**
+     * Establishes whether the patcher could modify the given class. This
+     * should be a cheap check - of the class header, or a scan of the
+     * constant pool - as classes that no patcher applies to are copied
+     * through unchanged, without being visited.
+     * <p>
+     * By default, patchers are applicable to every class.
+     *
+     * @param reader The class reader
+     * @return {@code true} if the patcher could modify the class;
+     *         {@code false} otherwise
+     */
+    public boolean isApplicable(final ClassReader reader) {
+        return true;
+    }
+
     /**
      * Creates a {@link ClassVisitor} to modify the class.
      *
@@ -14,6 +14,8 @@ import static org.objectweb.asm.Opcodes.PUTFIELD;
 import static org.objectweb.asm.Opcodes.RETURN;
 
 import org.cadixdev.survey.context.SurveyContext;
+import org.cadixdev.survey.util.ClassFiles;
+import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.ClassVisitor;
 import org.objectweb.asm.FieldVisitor;
 import org.objectweb.asm.MethodVisitor;
@@ -29,6 +31,14 @@ public class InnerClassInitPatcher extends AbstractPatcher<Void> {
         super(ctx, null);
     }
 
+    @Override
+    public boolean isApplicable(final ClassReader reader) {
+        // Only non-static inner classes, without an <init>, are patched
+        return (reader.getAccess() & ACC_STATIC) == 0
+                && ClassFiles.hasUtf8(reader, "InnerClasses")
+                && !ClassFiles.declaresMethod(reader, "<init>");
+    }
+
     @Override
     public ClassVisitor createVisitor(final ClassVisitor parent) {
         return new Visitor(parent);
@@ -15,6 +15,8 @@ import org.objectweb.asm.ClassWriter;
 
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
 
 /**
  * An implementation of {@link JarEntryTransformer} for patching classes,
@@ -38,10 +40,17 @@ public class JarEntryPatcherTransformer implements JarEntryTransformer {
     @Override
     public JarClassEntry transform(final JarClassEntry entry) {
         final ClassReader reader = new ClassReader(entry.getContents());
+        final List<AbstractPatcher<?>> patchers = this.patchers.stream()
+                .filter(patcher -> patcher.isApplicable(reader))
+                .collect(Collectors.toList());
+
+        // Copy untouched classes through as-is
+        if (patchers.isEmpty()) return entry;
+
         final ClassWriter writer = new ClassWriter(reader, 0);
 
         ClassVisitor lastVisitor = writer;
-        for (final AbstractPatcher<?> patcher : this.patchers) {
+        for (final AbstractPatcher<?> patcher : patchers) {
             lastVisitor = patcher.createVisitor(lastVisitor);
         }
         reader.accept(lastVisitor, 0);
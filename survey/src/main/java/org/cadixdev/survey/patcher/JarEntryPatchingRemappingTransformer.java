@@ -0,0 +1,125 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package org.cadixdev.survey.patcher;
+
+import org.cadixdev.bombe.asm.jar.JarEntryRemappingTransformer;
+import org.cadixdev.bombe.jar.JarClassEntry;
+import org.cadixdev.survey.Survey;
+import org.cadixdev.survey.remapper.FrozenMappings;
+import org.cadixdev.survey.remapper.RemappingFilter;
+import org.cadixdev.survey.util.ClassFiles;
+import org.cadixdev.survey.util.Digests;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.commons.ClassRemapper;
+import org.objectweb.asm.commons.Remapper;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+/**
+ * An implementation of {@link JarEntryRemappingTransformer} that also
+ * patches classes, using the patchers from a {@link Survey} instance.
+ * <p>
+ * The patchers' visitors are chained straight into the remapping visitor,
+ * so each class is only read and written once. Classes that neither the
+ * patchers nor the remapper would change are copied through as-is.
+ *
+ * @author Jamie Mansfield
+ * @since 0.2.0
+ */
+public class JarEntryPatchingRemappingTransformer extends JarEntryRemappingTransformer {
+
+    private final Collection<AbstractPatcher<?>> patchers;
+    private final Remapper remapper;
+    private final RemappingFilter filter;
+
+    public JarEntryPatchingRemappingTransformer(final Collection<AbstractPatcher<?>> patchers,
+                                                final Remapper remapper,
+                                                final RemappingFilter filter) {
+        super(remapper);
+        this.patchers = patchers;
+        this.remapper = remapper;
+        this.filter = filter;
+    }
+
+    /**
+     * Computes the key the transformed class can be cached under, from
+     * everything it depends on - its contents, the patchers that apply to
+     * it, and the mappings of every class it references.
+     *
+     * @param entry The class entry
+     * @param mappings The mappings the remapper was frozen from
+     * @return The key, or {@code null} should the class be copied through
+     *         as-is
+     * @see org.cadixdev.survey.jar.TransformCache
+     */
+    public String getCacheKey(final JarClassEntry entry, final FrozenMappings mappings) {
+        final ClassReader reader = new ClassReader(entry.getContents());
+        final List<AbstractPatcher<?>> patchers = this.patchers.stream()
+                .filter(patcher -> patcher.isApplicable(reader))
+                .collect(Collectors.toList());
+        final boolean remap = this.filter.isApplicable(reader);
+        if (patchers.isEmpty() && !remap) return null;
+
+        final MessageDigest digest = Digests.sha256();
+        digest.update(entry.getContents());
+        for (final AbstractPatcher<?> patcher : patchers) {
+            digest.update(patcher.getClass().getName().getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+        }
+
+        if (remap) {
+            // Every lookup the remapper makes is of a class in the constant pool
+            final Set<String> classes = new TreeSet<>();
+            ClassFiles.anyReferencedClass(reader, klass -> {
+                classes.add(klass);
+                return false;
+            });
+            for (final String klass : classes) {
+                digest.update(klass.getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+                mappings.fingerprint(klass, digest);
+            }
+        }
+
+        return Digests.hex(digest.digest());
+    }
+
+    @Override
+    public JarClassEntry transform(final JarClassEntry entry) {
+        final ClassReader reader = new ClassReader(entry.getContents());
+        final List<AbstractPatcher<?>> patchers = this.patchers.stream()
+                .filter(patcher -> patcher.isApplicable(reader))
+                .collect(Collectors.toList());
+        final boolean remap = this.filter.isApplicable(reader);
+
+        // Copy untouched classes through as-is
+        if (patchers.isEmpty() && !remap) return entry;
+
+        final ClassWriter writer = new ClassWriter(reader, 0);
+
+        // Patch the class, then remap it
+        ClassVisitor lastVisitor = remap ? new ClassRemapper(writer, this.remapper) : writer;
+        for (final AbstractPatcher<?> patcher : patchers) {
+            lastVisitor = patcher.createVisitor(lastVisitor);
+        }
+        reader.accept(lastVisitor, 0);
+
+        if (!remap) return new JarClassEntry(entry.getName(), entry.getTime(), writer.toByteArray());
+
+        final String name = entry.getName().substring(0, entry.getName().length() - ".class".length());
+        return new JarClassEntry(this.remapper.map(name) + ".class", entry.getTime(), writer.toByteArray());
+    }
+
+}
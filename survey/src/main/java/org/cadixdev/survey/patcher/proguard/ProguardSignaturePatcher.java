@@ -10,7 +10,9 @@ import static org.objectweb.asm.Opcodes.ASM6;
 
 import org.cadixdev.survey.context.SurveyContext;
 import org.cadixdev.survey.patcher.AbstractPatcher;
+import org.cadixdev.survey.util.ClassFiles;
 import org.cadixdev.survey.util.SimpleSignatureVisitor;
+import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.ClassVisitor;
 import org.objectweb.asm.MethodVisitor;
 import org.objectweb.asm.signature.SignatureReader;
@@ -37,6 +39,25 @@ public class ProguardSignaturePatcher extends AbstractPatcher<Void> {
         super(ctx, null);
     }
 
+    @Override
+    public boolean isApplicable(final ClassReader reader) {
+        // Only signatures with an inner class type (following a '.'), that
+        // was given a name with a '$', could need patching
+        return ClassFiles.hasUtf8(reader, "Signature") && ClassFiles.anyUtf8(reader, (r, offset, length) -> {
+            boolean inner = false;
+            for (int i = offset; i < offset + length; i++) {
+                final int c = r.readByte(i);
+                if (c == '.') {
+                    inner = true;
+                }
+                else if (c == '$' && inner) {
+                    return true;
+                }
+            }
+            return false;
+        });
+    }
+
     @Override
     public ClassVisitor createVisitor(final ClassVisitor parent) {
         return new ClassVisitor(ASM6, parent) {
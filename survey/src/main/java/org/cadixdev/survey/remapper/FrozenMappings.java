@@ -0,0 +1,350 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package org.cadixdev.survey.remapper;
+
+import org.cadixdev.lorenz.MappingSet;
+import org.cadixdev.lorenz.model.ClassMapping;
+import org.cadixdev.lorenz.model.FieldMapping;
+import org.cadixdev.lorenz.model.InnerClassMapping;
+import org.cadixdev.lorenz.model.MethodMapping;
+import org.cadixdev.lorenz.model.TopLevelClassMapping;
+import org.cadixdev.survey.hierarchy.ClassHierarchy;
+import org.cadixdev.survey.util.Digests;
+import org.objectweb.asm.Opcodes;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An immutable, flattened view of a {@link MappingSet}, for remapping.
+ * <p>
+ * Classes are keyed by their obfuscated name, and members by their owner,
+ * name, and descriptor. For the classes given when freezing - typically
+ * those of the jar being remapped - the members they inherit are resolved
+ * up front, so looking up a member never walks the class hierarchy. As on
+ * the JVM, private members aren't inherited, nor are package-private members
+ * outside of their package. As
+ * nothing changes once frozen, lookups are lock-free.
+ * <p>
+ * Changes made to the mapping set after it is frozen are not seen.
+ *
+ * @author Jamie Mansfield
+ * @since 0.2.0
+ * @see FrozenRemapper
+ */
+public final class FrozenMappings {
+
+    /**
+     * Freezes the given mappings.
+     *
+     * @param mappings The mappings
+     * @param hierarchy The class hierarchy, to resolve inherited members with
+     * @param classes The classes to resolve inherited members for
+     * @return The frozen mappings
+     */
+    public static FrozenMappings freeze(final MappingSet mappings, final ClassHierarchy hierarchy,
+                                        final Collection<String> classes) {
+        final Builder builder = new Builder();
+        for (final TopLevelClassMapping klass : mappings.getTopLevelClassMappings()) {
+            builder.addClass(klass, klass.getObfuscatedName(), klass.getDeobfuscatedName());
+        }
+        for (final String klass : classes) {
+            builder.resolve(klass, hierarchy);
+        }
+        return builder.build();
+    }
+
+    private final FrozenTable classes;
+    private final FrozenTable fields;
+    private final FrozenTable methods;
+    private volatile Map<String, byte[]> members;
+
+    private FrozenMappings(final FrozenTable classes, final FrozenTable fields, final FrozenTable methods) {
+        this.classes = classes;
+        this.fields = fields;
+        this.methods = methods;
+    }
+
+    /**
+     * Gets the de-obfuscated name of the given class.
+     *
+     * @param klass The obfuscated name of the class
+     * @return The de-obfuscated name, or {@code null} should the class
+     *         not be mapped
+     */
+    public String mapClass(final String klass) {
+        final String mapped = this.classes.get(klass, null, null);
+        if (mapped != null) return mapped;
+
+        // Inner classes of mapped classes are mapped themselves, even without
+        // a mapping of their own
+        final int inner = klass.lastIndexOf('$');
+        if (inner == -1) return null;
+
+        final String parent = this.mapClass(klass.substring(0, inner));
+        return parent == null ? null : parent + klass.substring(inner);
+    }
+
+    /**
+     * Gets the de-obfuscated name of the given field.
+     *
+     * @param owner The obfuscated name of the owning class
+     * @param name The obfuscated name of the field
+     * @param desc The descriptor of the field
+     * @return The de-obfuscated name, or {@code null} should the field
+     *         not be mapped
+     */
+    public String mapField(final String owner, final String name, final String desc) {
+        final String mapped = this.fields.get(owner, name, desc);
+        if (mapped != null) return mapped;
+
+        // Not all formats record the types of fields
+        return this.fields.get(owner, name, null);
+    }
+
+    /**
+     * Gets the de-obfuscated name of the given method.
+     *
+     * @param owner The obfuscated name of the owning class
+     * @param name The obfuscated name of the method
+     * @param desc The descriptor of the method
+     * @return The de-obfuscated name, or {@code null} should the method
+     *         not be mapped
+     */
+    public String mapMethod(final String owner, final String name, final String desc) {
+        return this.methods.get(owner, name, desc);
+    }
+
+    /**
+     * Adds everything about the given class that remapping a reference to
+     * it depends on - its de-obfuscated name, and those of its members
+     * (including inherited members) - to the given digest.
+     *
+     * @param klass The obfuscated name of the class
+     * @param digest The digest to update
+     */
+    public void fingerprint(final String klass, final MessageDigest digest) {
+        final String mapped = this.mapClass(klass);
+        if (mapped != null) digest.update(mapped.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+
+        final byte[] members = this.members().get(klass);
+        if (members != null) digest.update(members);
+    }
+
+    private Map<String, byte[]> members() {
+        Map<String, byte[]> members = this.members;
+        if (members != null) return members;
+
+        synchronized (this) {
+            if (this.members != null) return this.members;
+
+            // Hash the members of each class once, in a stable order, rather than
+            // for every class that references it
+            final Map<String, List<String>> lines = new HashMap<>();
+            this.fields.forEach((owner, name, desc, deobf) -> {
+                lines.computeIfAbsent(owner, k -> new ArrayList<>()).add("F " + name + ' ' + desc + ' ' + deobf);
+            });
+            this.methods.forEach((owner, name, desc, deobf) -> {
+                lines.computeIfAbsent(owner, k -> new ArrayList<>()).add("M " + name + ' ' + desc + ' ' + deobf);
+            });
+
+            final MessageDigest digest = Digests.sha256();
+            members = new HashMap<>(lines.size());
+            for (final Map.Entry<String, List<String>> owner : lines.entrySet()) {
+                Collections.sort(owner.getValue());
+                for (final String line : owner.getValue()) {
+                    digest.update(line.getBytes(StandardCharsets.UTF_8));
+                    digest.update((byte) '\n');
+                }
+                members.put(owner.getKey(), digest.digest());
+            }
+            return this.members = members;
+        }
+    }
+
+    /**
+     * Gets the number of mapped classes and members, including inherited
+     * members.
+     *
+     * @return The size
+     */
+    public int size() {
+        return this.classes.size() + this.fields.size() + this.methods.size();
+    }
+
+    private static final class Member {
+
+        private final String owner;
+        private final String name;
+        private final String desc;
+        private final String deobf;
+
+        Member(final String owner, final String name, final String desc, final String deobf) {
+            this.owner = owner;
+            this.name = name;
+            this.desc = desc;
+            this.deobf = deobf;
+        }
+
+        boolean isMapped() {
+            return !this.name.equals(this.deobf);
+        }
+
+    }
+
+    private static final class Builder {
+
+        private final Map<String, String> classes = new HashMap<>();
+        private final Map<String, Map<String, Member>> fields = new HashMap<>();
+        private final Map<String, Map<String, Member>> methods = new HashMap<>();
+
+        void addClass(final ClassMapping<?, ?> klass, final String obf, final String deobf) {
+            if (!obf.equals(deobf)) this.classes.put(obf, deobf);
+
+            this.addMembers(obf, klass);
+
+            for (final InnerClassMapping inner : klass.getInnerClassMappings()) {
+                this.addClass(inner, obf + '$' + inner.getObfuscatedName(), deobf + '$' + inner.getDeobfuscatedName());
+            }
+        }
+
+        private void addMembers(final String owner, final ClassMapping<?, ?> klass) {
+            for (final FieldMapping field : klass.getFieldMappings()) {
+                final String desc = field.getSignature().getType().map(Object::toString).orElse(null);
+                members(this.fields, owner).putIfAbsent(
+                        field.getObfuscatedName() + ':' + desc,
+                        new Member(owner, field.getObfuscatedName(), desc, field.getDeobfuscatedName())
+                );
+            }
+            for (final MethodMapping method : klass.getMethodMappings()) {
+                members(this.methods, owner).putIfAbsent(
+                        method.getObfuscatedName() + method.getObfuscatedDescriptor(),
+                        new Member(owner, method.getObfuscatedName(), method.getObfuscatedDescriptor(),
+                                method.getDeobfuscatedName())
+                );
+            }
+        }
+
+        void resolve(final String klass, final ClassHierarchy hierarchy) {
+            // Name inner classes of mapped classes up front
+            if (!this.classes.containsKey(klass)) {
+                final String mapped = this.mapClass(klass);
+                if (mapped != null) this.classes.put(klass, mapped);
+            }
+
+            // Members are inherited from the nearest parent to declare them,
+            // and never override those the class declares itself
+            final Set<String> visited = new HashSet<>();
+            this.inherit(klass, klass, hierarchy, visited);
+        }
+
+        private void inherit(final String klass, final String child, final ClassHierarchy hierarchy,
+                             final Set<String> visited) {
+            final String superName = hierarchy.getSuperName(child);
+            if (superName != null) {
+                this.inheritFrom(klass, superName, hierarchy, visited);
+            }
+            for (final String parent : hierarchy.getInterfaces(child)) {
+                this.inheritFrom(klass, parent, hierarchy, visited);
+            }
+        }
+
+        private void inheritFrom(final String klass, final String parent, final ClassHierarchy hierarchy,
+                                 final Set<String> visited) {
+            if (!visited.add(parent)) return;
+
+            this.inheritMembers(this.fields, klass, parent, hierarchy, false);
+            this.inheritMembers(this.methods, klass, parent, hierarchy, true);
+            this.inherit(klass, parent, hierarchy, visited);
+        }
+
+        private void inheritMembers(final Map<String, Map<String, Member>> members, final String klass,
+                                    final String parent, final ClassHierarchy hierarchy, final boolean methods) {
+            final Map<String, Member> inherited = members.get(parent);
+            if (inherited == null) return;
+
+            final Map<String, Member> own = members(members, klass);
+            for (final Map.Entry<String, Member> member : inherited.entrySet()) {
+                // The parent may have already inherited the member itself, so its
+                // access is that of the class that declares it
+                final Member value = member.getValue();
+                final int access = methods ?
+                        hierarchy.getMethodAccess(value.owner, value.name, value.desc) :
+                        hierarchy.getFieldAccess(value.owner, value.name, value.desc);
+                if (!canInherit(klass, value.owner, access)) continue;
+
+                own.putIfAbsent(member.getKey(), value);
+            }
+        }
+
+        private static boolean canInherit(final String klass, final String owner, final int access) {
+            // Members of unknown access are inherited, as they always were
+            if (access == -1) return true;
+            if ((access & Opcodes.ACC_PRIVATE) != 0) return false;
+            if ((access & (Opcodes.ACC_PUBLIC | Opcodes.ACC_PROTECTED)) != 0) return true;
+            return getPackage(klass).equals(getPackage(owner));
+        }
+
+        private static String getPackage(final String klass) {
+            final int index = klass.lastIndexOf('/');
+            return index == -1 ? "" : klass.substring(0, index);
+        }
+
+        private String mapClass(final String klass) {
+            final String mapped = this.classes.get(klass);
+            if (mapped != null) return mapped;
+
+            final int inner = klass.lastIndexOf('$');
+            if (inner == -1) return null;
+
+            final String parent = this.mapClass(klass.substring(0, inner));
+            return parent == null ? null : parent + klass.substring(inner);
+        }
+
+        private static Map<String, Member> members(final Map<String, Map<String, Member>> members,
+                                                   final String owner) {
+            return members.computeIfAbsent(owner, k -> new LinkedHashMap<>());
+        }
+
+        FrozenMappings build() {
+            final FrozenTable classes = new FrozenTable(this.classes.size());
+            this.classes.forEach((obf, deobf) -> classes.putIfAbsent(obf, null, null, deobf));
+            return new FrozenMappings(classes, freeze(this.fields), freeze(this.methods));
+        }
+
+        private static FrozenTable freeze(final Map<String, Map<String, Member>> members) {
+            int count = 0;
+            for (final Map<String, Member> owned : members.values()) {
+                for (final Member member : owned.values()) {
+                    if (member.isMapped()) count++;
+                }
+            }
+
+            // Unmapped members are only needed while resolving, to stop a
+            // class inheriting a mapping for a member it declares itself
+            final FrozenTable table = new FrozenTable(count);
+            members.forEach((owner, owned) -> {
+                for (final Member member : owned.values()) {
+                    if (member.isMapped()) table.putIfAbsent(owner, member.name, member.desc, member.deobf);
+                }
+            });
+            return table;
+        }
+
+    }
+
+}
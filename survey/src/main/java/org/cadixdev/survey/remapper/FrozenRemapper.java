@@ -0,0 +1,44 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package org.cadixdev.survey.remapper;
+
+import org.objectweb.asm.commons.Remapper;
+
+/**
+ * A remapper backed by {@link FrozenMappings}, which - having no mutable
+ * state - can be shared between any number of threads.
+ *
+ * @author Jamie Mansfield
+ * @since 0.2.0
+ */
+public class FrozenRemapper extends Remapper {
+
+    private final FrozenMappings mappings;
+
+    public FrozenRemapper(final FrozenMappings mappings) {
+        this.mappings = mappings;
+    }
+
+    @Override
+    public String map(final String internalName) {
+        final String mapped = this.mappings.mapClass(internalName);
+        return mapped != null ? mapped : internalName;
+    }
+
+    @Override
+    public String mapFieldName(final String owner, final String name, final String descriptor) {
+        final String mapped = this.mappings.mapField(owner, name, descriptor);
+        return mapped != null ? mapped : name;
+    }
+
+    @Override
+    public String mapMethodName(final String owner, final String name, final String descriptor) {
+        final String mapped = this.mappings.mapMethod(owner, name, descriptor);
+        return mapped != null ? mapped : name;
+    }
+
+}
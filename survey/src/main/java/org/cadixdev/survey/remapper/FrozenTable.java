@@ -0,0 +1,107 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package org.cadixdev.survey.remapper;
+
+/**
+ * An open-addressing hash table, keyed by an owner, name, and descriptor
+ * (the latter two of which may be {@code null}) - so lookups needn't
+ * allocate a composite key.
+ * <p>
+ * A table is only written to while it is being built, so once published
+ * (through a final field) it can be read from any number of threads
+ * without locking.
+ *
+ * @author Jamie Mansfield
+ * @since 0.2.0
+ */
+final class FrozenTable {
+
+    private final String[] owners;
+    private final String[] names;
+    private final String[] descs;
+    private final String[] values;
+    private final int mask;
+    private int size;
+
+    FrozenTable(final int expected) {
+        // Keep the table at most half full
+        int capacity = 2;
+        while (capacity < expected * 2) capacity <<= 1;
+
+        this.owners = new String[capacity];
+        this.names = new String[capacity];
+        this.descs = new String[capacity];
+        this.values = new String[capacity];
+        this.mask = capacity - 1;
+    }
+
+    private static int hash(final String owner, final String name, final String desc) {
+        int hash = owner.hashCode();
+        if (name != null) hash = 31 * hash + name.hashCode();
+        if (desc != null) hash = 31 * hash + desc.hashCode();
+        return hash ^ (hash >>> 16);
+    }
+
+    private static boolean equals(final String a, final String b) {
+        return a == null ? b == null : a.equals(b);
+    }
+
+    /**
+     * Puts the given value into the table, should there not already be a
+     * value for the key. This must only be called while the table is
+     * being built.
+     */
+    void putIfAbsent(final String owner, final String name, final String desc, final String value) {
+        int i = hash(owner, name, desc) & this.mask;
+        while (this.owners[i] != null) {
+            if (this.owners[i].equals(owner) && equals(this.names[i], name) && equals(this.descs[i], desc)) return;
+            i = (i + 1) & this.mask;
+        }
+
+        this.owners[i] = owner;
+        this.names[i] = name;
+        this.descs[i] = desc;
+        this.values[i] = value;
+        this.size++;
+    }
+
+    String get(final String owner, final String name, final String desc) {
+        int i = hash(owner, name, desc) & this.mask;
+        String candidate;
+        while ((candidate = this.owners[i]) != null) {
+            if (candidate.equals(owner) && equals(this.names[i], name) && equals(this.descs[i], desc)) {
+                return this.values[i];
+            }
+            i = (i + 1) & this.mask;
+        }
+        return null;
+    }
+
+    int size() {
+        return this.size;
+    }
+
+    /**
+     * Visits every entry of the table, in no particular order.
+     */
+    void forEach(final Visitor visitor) {
+        for (int i = 0; i < this.owners.length; i++) {
+            if (this.owners[i] != null) visitor.visit(this.owners[i], this.names[i], this.descs[i], this.values[i]);
+        }
+    }
+
+    /**
+     * A visitor of the entries of a table.
+     */
+    @FunctionalInterface
+    interface Visitor {
+
+        void visit(final String owner, final String name, final String desc, final String value);
+
+    }
+
+}
@@ -0,0 +1,68 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package org.cadixdev.survey.remapper;
+
+import org.cadixdev.lorenz.MappingSet;
+import org.cadixdev.survey.hierarchy.ClassHierarchy;
+import org.cadixdev.survey.util.ClassFiles;
+import org.objectweb.asm.ClassReader;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A cheap check of whether remapping a class, with a {@link MappingSet},
+ * could change it - allowing untouched classes to be copied through as-is.
+ * <p>
+ * A class could be changed should it reference (by its constant pool) a
+ * class, or a class descending from a class, that has mappings. As this
+ * only considers top-level classes, it errs on the side of remapping.
+ *
+ * @author Jamie Mansfield
+ * @since 0.2.0
+ */
+public class RemappingFilter {
+
+    private final MappingSet mappings;
+    private final ClassHierarchy hierarchy;
+    private final Map<String, Boolean> mapped = new ConcurrentHashMap<>();
+
+    public RemappingFilter(final MappingSet mappings, final ClassHierarchy hierarchy) {
+        this.mappings = mappings;
+        this.hierarchy = hierarchy;
+    }
+
+    /**
+     * Establishes whether remapping the given class could change it.
+     *
+     * @param reader The class reader
+     * @return {@code true} if the class needs remapping;
+     *         {@code false} otherwise
+     */
+    public boolean isApplicable(final ClassReader reader) {
+        return ClassFiles.anyReferencedClass(reader, this::isMapped);
+    }
+
+    private boolean isMapped(final String klass) {
+        final Boolean cached = this.mapped.get(klass);
+        if (cached != null) return cached;
+
+        final int inner = klass.indexOf('$');
+        final String topLevel = inner == -1 ? klass : klass.substring(0, inner);
+
+        boolean mapped = this.mappings.getTopLevelClassMapping(topLevel).isPresent();
+        if (!mapped) {
+            final String superName = this.hierarchy.getSuperName(klass);
+            mapped = (superName != null && this.isMapped(superName)) ||
+                    this.hierarchy.getInterfaces(klass).stream().anyMatch(this::isMapped);
+        }
+
+        this.mapped.put(klass, mapped);
+        return mapped;
+    }
+
+}
@@ -0,0 +1,71 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package org.cadixdev.survey.util;
+
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Utilities for writing files that may be read concurrently - such as those
+ * of caches shared between processes.
+ *
+ * @author Jamie Mansfield
+ * @since 0.2.0
+ */
+public final class AtomicFiles {
+
+    /**
+     * Writes a file by writing a temporary file beside it, and then moving
+     * that into place - so a partially written file is never read. The
+     * directory of the file is created, should it not exist.
+     *
+     * @param path The path to write to
+     * @param writer The writer, given the path of the temporary file
+     * @throws IOException Should an I/O issue occur
+     */
+    public static void write(final Path path, final Writer writer) throws IOException {
+        final Path directory = path.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+
+        final Path temp = Files.createTempFile(directory, "survey", ".tmp");
+        try {
+            writer.write(temp);
+            try {
+                Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            }
+            catch (final AtomicMoveNotSupportedException ex) {
+                Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Writes the contents of a file.
+     */
+    @FunctionalInterface
+    public interface Writer {
+
+        /**
+         * Writes the contents of the file to the given path.
+         *
+         * @param path The path to write to
+         * @throws IOException Should an I/O issue occur
+         */
+        void write(final Path path) throws IOException;
+
+    }
+
+    private AtomicFiles() {
+    }
+
+}
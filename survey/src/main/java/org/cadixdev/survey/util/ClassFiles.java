@@ -0,0 +1,274 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package org.cadixdev.survey.util;
+
+import org.objectweb.asm.ClassReader;
+
+import java.util.function.Predicate;
+
+/**
+ * Utilities for cheaply inspecting a class file - its header and constant
+ * pool - without having ASM visit it.
+ *
+ * @author Jamie Mansfield
+ * @since 0.2.0
+ */
+public final class ClassFiles {
+
+    public static final int CONSTANT_UTF8 = 1;
+    public static final int CONSTANT_CLASS = 7;
+
+    /**
+     * Gets the tag of the given constant pool entry.
+     *
+     * @param reader The class reader
+     * @param index The index of the entry
+     * @return The tag, or {@code 0} should there be no entry at the index
+     */
+    public static int getTag(final ClassReader reader, final int index) {
+        final int offset = reader.getItem(index);
+        if (offset == 0) return 0;
+        return reader.readByte(offset - 1);
+    }
+
+    /**
+     * Establishes whether any UTF8 entry of the constant pool matches the
+     * given matcher.
+     *
+     * @param reader The class reader
+     * @param matcher The matcher
+     * @return {@code true} if an entry matches;
+     *         {@code false} otherwise
+     */
+    public static boolean anyUtf8(final ClassReader reader, final Utf8Matcher matcher) {
+        for (int i = 1; i < reader.getItemCount(); i++) {
+            if (getTag(reader, i) != CONSTANT_UTF8) continue;
+
+            final int offset = reader.getItem(i);
+            if (matcher.matches(reader, offset + 2, reader.readUnsignedShort(offset))) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Gets the index of the UTF8 entry, of the constant pool, with the
+     * given value.
+     *
+     * @param reader The class reader
+     * @param value The value
+     * @return The index, or {@code -1} should there be no such entry
+     */
+    public static int indexOfUtf8(final ClassReader reader, final String value) {
+        for (int i = 1; i < reader.getItemCount(); i++) {
+            if (getTag(reader, i) != CONSTANT_UTF8) continue;
+
+            final int offset = reader.getItem(i);
+            if (equals(reader, offset + 2, reader.readUnsignedShort(offset), value)) return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Establishes whether the constant pool has a UTF8 entry with the given
+     * value.
+     *
+     * @param reader The class reader
+     * @param value The value
+     * @return {@code true} if there is such an entry;
+     *         {@code false} otherwise
+     */
+    public static boolean hasUtf8(final ClassReader reader, final String value) {
+        return indexOfUtf8(reader, value) != -1;
+    }
+
+    /**
+     * Reads the UTF8 entry, of the constant pool, at the given index.
+     *
+     * @param reader The class reader
+     * @param index The index of the entry
+     * @return The value
+     */
+    public static String readUtf8(final ClassReader reader, final int index) {
+        final int offset = reader.getItem(index);
+        return decode(reader, offset + 2, reader.readUnsignedShort(offset));
+    }
+
+    /**
+     * Establishes whether the class declares a method of the given name,
+     * by walking the fields and methods tables.
+     *
+     * @param reader The class reader
+     * @param name The name of the method
+     * @return {@code true} if the class declares such a method;
+     *         {@code false} otherwise
+     */
+    public static boolean declaresMethod(final ClassReader reader, final String name) {
+        final int nameIndex = indexOfUtf8(reader, name);
+        if (nameIndex == -1) return false;
+
+        // Skip access, this and super - then the interfaces
+        int offset = reader.header + 6;
+        offset += 2 + 2 * reader.readUnsignedShort(offset);
+
+        // Skip the fields
+        int count = reader.readUnsignedShort(offset);
+        offset += 2;
+        for (int i = 0; i < count; i++) {
+            offset = skipMember(reader, offset);
+        }
+
+        // Check the methods
+        count = reader.readUnsignedShort(offset);
+        offset += 2;
+        for (int i = 0; i < count; i++) {
+            if (reader.readUnsignedShort(offset + 2) == nameIndex) return true;
+            offset = skipMember(reader, offset);
+        }
+        return false;
+    }
+
+    /**
+     * Establishes whether any class referenced by the constant pool matches
+     * the given predicate. This includes the class itself, its parents, the
+     * owners of any members it references (by their class constants), and
+     * any class named within a descriptor or signature.
+     * <p>
+     * Array classes aren't tested themselves, though their element types
+     * are - as they appear in descriptors.
+     *
+     * @param reader The class reader
+     * @param predicate The predicate, given internal class names
+     * @return {@code true} if a referenced class matches;
+     *         {@code false} otherwise
+     */
+    public static boolean anyReferencedClass(final ClassReader reader, final Predicate<String> predicate) {
+        for (int i = 1; i < reader.getItemCount(); i++) {
+            final int tag = getTag(reader, i);
+
+            if (tag == CONSTANT_CLASS) {
+                final String name = readUtf8(reader, reader.readUnsignedShort(reader.getItem(i)));
+                if (name.charAt(0) != '[' && predicate.test(name)) return true;
+            }
+            else if (tag == CONSTANT_UTF8) {
+                final int offset = reader.getItem(i);
+                if (anyDescribedClass(reader, offset + 2, reader.readUnsignedShort(offset), predicate)) return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean anyDescribedClass(final ClassReader reader, final int offset, final int length,
+                                             final Predicate<String> predicate) {
+        final int end = offset + length;
+        for (int i = offset; i < end; i++) {
+            if (reader.readByte(i) != 'L') continue;
+
+            // Find the end of the class name
+            int j = i + 1;
+            while (j < end) {
+                final int c = reader.readByte(j);
+                if (c == ';' || c == '<' || c == '.') break;
+                j++;
+            }
+            if (j == end) return false;
+
+            if (j > i + 1 && predicate.test(decode(reader, i + 1, j - i - 1))) return true;
+            i = j;
+        }
+        return false;
+    }
+
+    /**
+     * Decodes the modified UTF-8 string, of the given length in bytes, at
+     * the given offset.
+     *
+     * @param reader The class reader
+     * @param offset The offset of the first byte
+     * @param length The length, in bytes
+     * @return The string
+     */
+    public static String decode(final ClassReader reader, final int offset, final int length) {
+        final char[] chars = new char[length];
+        final int end = offset + length;
+        int count = 0;
+        for (int i = offset; i < end; count++) {
+            final int c = reader.readByte(i++);
+            if ((c & 0x80) == 0) {
+                chars[count] = (char) c;
+            }
+            else if ((c & 0xE0) == 0xC0) {
+                chars[count] = (char) (((c & 0x1F) << 6) | (reader.readByte(i++) & 0x3F));
+            }
+            else {
+                chars[count] = (char) (((c & 0x0F) << 12) | ((reader.readByte(i++) & 0x3F) << 6)
+                        | (reader.readByte(i++) & 0x3F));
+            }
+        }
+        return new String(chars, 0, count);
+    }
+
+    private static boolean equals(final ClassReader reader, final int offset, final int length, final String value) {
+        // A string can't have more characters than its encoding has bytes
+        if (value.length() > length) return false;
+
+        final int end = offset + length;
+        int count = 0;
+        for (int i = offset; i < end; count++) {
+            final int c = reader.readByte(i++);
+            final char decoded;
+            if ((c & 0x80) == 0) {
+                decoded = (char) c;
+            }
+            else if ((c & 0xE0) == 0xC0) {
+                decoded = (char) (((c & 0x1F) << 6) | (reader.readByte(i++) & 0x3F));
+            }
+            else {
+                decoded = (char) (((c & 0x0F) << 12) | ((reader.readByte(i++) & 0x3F) << 6)
+                        | (reader.readByte(i++) & 0x3F));
+            }
+            if (count >= value.length() || value.charAt(count) != decoded) return false;
+        }
+        return count == value.length();
+    }
+
+    private static int skipMember(final ClassReader reader, int offset) {
+        // Skip access, name and descriptor - then the attributes
+        offset += 6;
+        final int attributes = reader.readUnsignedShort(offset);
+        offset += 2;
+        for (int i = 0; i < attributes; i++) {
+            offset += 6 + reader.readInt(offset + 2);
+        }
+        return offset;
+    }
+
+    private ClassFiles() {
+    }
+
+    /**
+     * A matcher for the raw bytes of a UTF8 constant pool entry.
+     * <p>
+     * As modified UTF-8 never uses bytes below {@code 0x80} within a
+     * multi-byte character, ASCII characters can be matched byte-for-byte.
+     */
+    @FunctionalInterface
+    public interface Utf8Matcher {
+
+        /**
+         * Establishes whether the given entry matches.
+         *
+         * @param reader The class reader
+         * @param offset The offset of the entry's first byte
+         * @param length The length of the entry, in bytes
+         * @return {@code true} if the entry matches;
+         *         {@code false} otherwise
+         */
+        boolean matches(final ClassReader reader, final int offset, final int length);
+
+    }
+
+}
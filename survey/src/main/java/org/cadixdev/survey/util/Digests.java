@@ -0,0 +1,86 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package org.cadixdev.survey.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Utilities for the SHA-256 hashes that Survey keys its caches by.
+ *
+ * @author Jamie Mansfield
+ * @since 0.2.0
+ */
+public final class Digests {
+
+    /**
+     * Creates a SHA-256 digest.
+     *
+     * @return The digest
+     */
+    public static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        }
+        catch (final NoSuchAlgorithmException ex) {
+            // Every Java platform is required to support SHA-256
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * Computes the SHA-256 hash of the given bytes.
+     *
+     * @param bytes The bytes
+     * @return The hash
+     */
+    public static byte[] sha256(final byte[] bytes) {
+        return sha256().digest(bytes);
+    }
+
+    /**
+     * Computes the SHA-256 hash of the given file.
+     *
+     * @param path The path to the file
+     * @return The hash, in hexadecimal
+     * @throws IOException Should an I/O issue occur
+     */
+    public static String sha256(final Path path) throws IOException {
+        final MessageDigest digest = sha256();
+        try (final InputStream in = Files.newInputStream(path)) {
+            final byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        return hex(digest.digest());
+    }
+
+    /**
+     * Formats the given hash in hexadecimal.
+     *
+     * @param hash The hash
+     * @return The hash, in hexadecimal
+     */
+    public static String hex(final byte[] hash) {
+        final StringBuilder hex = new StringBuilder(hash.length * 2);
+        for (final byte b : hash) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16));
+            hex.append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+    private Digests() {
+    }
+
+}
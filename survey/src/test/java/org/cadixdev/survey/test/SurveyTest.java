@@ -0,0 +1,360 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package org.cadixdev.survey.test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.cadixdev.atlas.jar.JarFile;
+import org.cadixdev.lorenz.MappingSet;
+import org.cadixdev.lorenz.model.ClassMapping;
+import org.cadixdev.lorenz.model.FieldMapping;
+import org.cadixdev.survey.Survey;
+import org.cadixdev.survey.SurveyStats;
+import org.cadixdev.survey.context.SurveyContext;
+import org.cadixdev.survey.generator.JarGenerator;
+import org.cadixdev.survey.hierarchy.ClassHierarchyIndex;
+import org.cadixdev.survey.jar.MappedJar;
+import org.cadixdev.survey.jar.TransformCache;
+import org.cadixdev.survey.mapper.AbstractMapper;
+import org.cadixdev.survey.mapper.EnumConstantsMapper;
+import org.cadixdev.survey.mapper.FieldNameMapper;
+import org.cadixdev.survey.mapper.config.EnumConstantsMapperConfig;
+import org.cadixdev.survey.mapper.config.FieldNameMapperConfig;
+import org.cadixdev.survey.mapper.intermediary.ClassIntermediaryMapper;
+import org.cadixdev.survey.mapper.intermediary.FieldIntemediaryMapper;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.objectweb.asm.FieldVisitor;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.function.BiFunction;
+import java.util.stream.Stream;
+import java.util.zip.ZipFile;
+
+final class SurveyTest {
+
+    private static Path jar;
+    private static String expected;
+
+    @BeforeAll
+    static void generate() throws IOException {
+        jar = new JarGenerator(0).classes(2000).packages(8).innerClassDepth(2).writeTemporary();
+        expected = map(new Survey());
+    }
+
+    @Test
+    void intermediaryIdsMatchCounting() throws IOException {
+        // Ids are as they were when counted while visiting, after the mappers
+        // before them had run
+        final Survey counting = configure(new Survey(), CountingClassMapper::new, CountingFieldMapper::new);
+        try (final JarFile input = new JarFile(jar)) {
+            counting.map(input);
+        }
+        assertEquals(dump(counting.mappings()), expected);
+    }
+
+    @Test
+    void fusedMatchesSerial() throws IOException {
+        assertEquals(expected, map(new Survey().fused(true)));
+    }
+
+    @Test
+    void parallelMatchesSerial() throws IOException {
+        assertEquals(expected, map(new Survey().threads(4)));
+    }
+
+    @Test
+    void parallelRunMatchesSerial() throws IOException {
+        final Path serial = Files.createTempFile("survey", ".jar");
+        final Path parallel = Files.createTempFile("survey", ".jar");
+        try {
+            configure(new Survey()).run(jar, serial, true);
+            configure(new Survey().threads(4)).run(jar, parallel, true);
+            assertArrayEquals(Files.readAllBytes(serial), Files.readAllBytes(parallel));
+        }
+        finally {
+            Files.delete(serial);
+            Files.delete(parallel);
+        }
+    }
+
+    @Test
+    void batchMatchesSingle() throws IOException {
+        final Path single = Files.createTempFile("survey", ".jar");
+        final Path batch = Files.createTempFile("survey", ".jar");
+        try {
+            configure(new Survey()).run(jar, single, true);
+            configure(new Survey().threads(2)).run(Collections.singletonMap(jar, batch), true);
+            assertArrayEquals(Files.readAllBytes(single), Files.readAllBytes(batch));
+        }
+        finally {
+            Files.delete(single);
+            Files.delete(batch);
+        }
+    }
+
+    @Test
+    void batchRemapsEveryJar() throws IOException {
+        final Path other = new JarGenerator(1).classes(200).writeTemporary();
+        final Path first = Files.createTempFile("survey", ".jar");
+        final Path second = Files.createTempFile("survey", ".jar");
+        try {
+            final Map<Path, Path> jars = new LinkedHashMap<>();
+            jars.put(jar, first);
+            jars.put(other, second);
+            configure(new Survey().threads(2)).run(jars, true);
+
+            for (final Path output : jars.values()) {
+                try (final ZipFile zip = new ZipFile(output.toFile())) {
+                    assertTrue(zip.stream()
+                            .filter(entry -> entry.getName().endsWith(".class"))
+                            .allMatch(entry -> entry.getName().startsWith("net/")));
+                }
+            }
+        }
+        finally {
+            Files.delete(other);
+            Files.delete(first);
+            Files.delete(second);
+        }
+    }
+
+    @Test
+    void hierarchyIsScopedToTheJar() throws IOException {
+        final Path other = new JarGenerator(1).classes(50).packages(2).writeTemporary();
+        final Path output = Files.createTempFile("survey", ".jar");
+        try (final MappedJar first = MappedJar.open(jar); final MappedJar second = MappedJar.open(other)) {
+            final Survey survey = configure(new Survey());
+            survey.map(first);
+            assertEquals(ClassHierarchyIndex.of(first).getClasses(), survey.hierarchy().getClasses());
+
+            // Reusing the survey for another jar doesn't reuse the first's hierarchy
+            survey.run(second, output, false);
+            assertEquals(ClassHierarchyIndex.of(second).getClasses(), survey.hierarchy().getClasses());
+        }
+        finally {
+            Files.delete(other);
+            Files.delete(output);
+        }
+    }
+
+    @Test
+    void incrementalMatchesFull() throws IOException {
+        final Path other = new JarGenerator(1).classes(2000).packages(8).innerClassDepth(2).writeTemporary();
+        final Path cache = Files.createTempFile("survey", ".cache");
+        Files.delete(cache);
+        try {
+            assertEquals(expected, map(new Survey().incremental(cache, "test")));
+            assertTrue(Files.exists(cache));
+
+            // Every class is unchanged
+            assertEquals(expected, map(new Survey().incremental(cache, "test")));
+            assertEquals(expected, map(new Survey().threads(4).incremental(cache, "test")));
+
+            // Another build of the jar
+            assertEquals(map(new Survey(), other), map(new Survey().fused(true).incremental(cache, "test"), other));
+        }
+        finally {
+            Files.delete(other);
+            Files.deleteIfExists(cache);
+        }
+    }
+
+    @Test
+    void unreadableIncrementalCacheIsAMiss() throws IOException {
+        final Path cache = Files.createTempFile("survey", ".cache");
+        try {
+            // Foreign
+            Files.write(cache, "not a cache".getBytes(StandardCharsets.UTF_8));
+            assertEquals(expected, map(new Survey().incremental(cache, "test")));
+
+            // Truncated
+            final byte[] written = Files.readAllBytes(cache);
+            Files.write(cache, Arrays.copyOf(written, written.length / 2));
+            assertEquals(expected, map(new Survey().incremental(cache, "test")));
+        }
+        finally {
+            Files.deleteIfExists(cache);
+        }
+    }
+
+    @Test
+    void transformCacheMatchesUncached() throws IOException {
+        final Path cache = Files.createTempDirectory("survey");
+        final Path uncached = Files.createTempFile("survey", ".jar");
+        final Path cold = Files.createTempFile("survey", ".jar");
+        final Path warm = Files.createTempFile("survey", ".jar");
+        try {
+            configure(new Survey()).run(jar, uncached, true);
+            configure(new Survey().transformCache(new TransformCache(cache, Long.MAX_VALUE, "test")))
+                    .run(jar, cold, true);
+            final long entries = count(cache);
+            configure(new Survey().threads(4).transformCache(new TransformCache(cache, Long.MAX_VALUE, "test")))
+                    .run(jar, warm, true);
+
+            // Every class was written from the cache
+            assertTrue(entries > 0);
+            assertEquals(entries, count(cache));
+            assertArrayEquals(Files.readAllBytes(uncached), Files.readAllBytes(cold));
+            assertArrayEquals(Files.readAllBytes(uncached), Files.readAllBytes(warm));
+
+            new TransformCache(cache, 0, "test").trim();
+            assertEquals(0, count(cache));
+        }
+        finally {
+            try (final Stream<Path> paths = Files.walk(cache)) {
+                for (final Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                    Files.delete(path);
+                }
+            }
+            Files.delete(uncached);
+            Files.delete(cold);
+            Files.delete(warm);
+        }
+    }
+
+    @Test
+    void statsRecordEachMapper() throws IOException {
+        final SurveyStats stats = new SurveyStats();
+        assertEquals(expected, map(new Survey().stats(stats)));
+
+        final List<String> mappers = new ArrayList<>();
+        for (final SurveyStats.Phase phase : stats.getPhases()) {
+            assertTrue(phase.getWallTime() >= 0);
+            if (phase.getName().equals("map")) mappers.addAll(phase.getMappers());
+        }
+        assertEquals(Arrays.asList("enum_constants", "loggers", "class_intermediary", "field_intermediary"), mappers);
+
+        // Only the loggers mapper has a blacklist
+        assertTrue(stats.getClasses() > 0);
+        assertTrue(stats.getBlacklisted().get("loggers") > 0);
+        assertEquals(0L, (long) stats.getBlacklisted().get("enum_constants"));
+    }
+
+    private static long count(final Path directory) throws IOException {
+        try (final Stream<Path> paths = Files.walk(directory)) {
+            return paths.filter(Files::isRegularFile).count();
+        }
+    }
+
+    private static String map(final Survey survey) throws IOException {
+        return map(survey, jar);
+    }
+
+    private static String map(final Survey survey, final Path jar) throws IOException {
+        try (final JarFile input = new JarFile(jar)) {
+            configure(survey).map(input);
+        }
+        return dump(survey.mappings());
+    }
+
+    private static Survey configure(final Survey survey) {
+        return configure(survey, ClassIntermediaryMapper::new, FieldIntemediaryMapper::new);
+    }
+
+    private static Survey configure(final Survey survey,
+            final BiFunction<SurveyContext, ClassIntermediaryMapper.Config, AbstractMapper<ClassIntermediaryMapper.Config>> classes,
+            final BiFunction<SurveyContext, FieldIntemediaryMapper.Config, AbstractMapper<FieldIntemediaryMapper.Config>> fields) {
+        final FieldNameMapperConfig loggers = new FieldNameMapperConfig();
+        loggers.desc = JarGenerator.LOGGER;
+        loggers.name = "LOGGER";
+
+        survey.context("no_a").blacklist("a/").build();
+        survey.mapper("enum_constants", EnumConstantsMapper::new, survey, new EnumConstantsMapperConfig())
+                .mapper("loggers", FieldNameMapper::new, "no_a", loggers)
+                .mapper("class_intermediary", classes, survey,
+                        new ClassIntermediaryMapper.Config("C_{id}_{obf}", "net/"))
+                .mapper("field_intermediary", fields, survey,
+                        new FieldIntemediaryMapper.Config("field_{id}_{obf}"));
+        return survey;
+    }
+
+    private static String dump(final MappingSet mappings) {
+        final Collection<String> lines = new TreeSet<>();
+        mappings.getTopLevelClassMappings().forEach(klass -> dump(klass, lines));
+        return String.join("\n", lines);
+    }
+
+    private static void dump(final ClassMapping<?, ?> klass, final Collection<String> lines) {
+        lines.add(klass.getFullObfuscatedName() + " -> " + klass.getFullDeobfuscatedName());
+        for (final FieldMapping field : klass.getFieldMappings()) {
+            lines.add(klass.getFullObfuscatedName() + "." + field.getObfuscatedName() + " -> " + field.getDeobfuscatedName());
+        }
+        klass.getInnerClassMappings().forEach(inner -> dump(inner, lines));
+    }
+
+    /**
+     * Names classes as the class intermediary mapper once did, counting them
+     * as they're visited.
+     */
+    private static final class CountingClassMapper extends AbstractMapper<ClassIntermediaryMapper.Config> {
+
+        private int count = 0;
+
+        CountingClassMapper(final SurveyContext ctx, final ClassIntermediaryMapper.Config config) {
+            super(ctx, config);
+        }
+
+        @Override
+        public void visit(final int version, final int access, final String name, final String signature,
+                          final String superName, final String[] interfaces) {
+            this.writer().mapClassIfAbsent(name, () -> {
+                if (name.contains("$")) {
+                    return this.getConfiguration().getMemberName(++this.count, name.substring(name.lastIndexOf('$') + 1));
+                }
+                return this.getConfiguration().getPackageName() + this.getConfiguration().getMemberName(++this.count, name);
+            });
+            super.visit(version, access, name, signature, superName, interfaces);
+        }
+
+    }
+
+    /**
+     * Names fields as the field intermediary mapper once did, counting them
+     * as they're visited.
+     */
+    private static final class CountingFieldMapper extends AbstractMapper<FieldIntemediaryMapper.Config> {
+
+        private int count = 0;
+        private String klass;
+
+        CountingFieldMapper(final SurveyContext ctx, final FieldIntemediaryMapper.Config config) {
+            super(ctx, config);
+        }
+
+        @Override
+        public void visit(final int version, final int access, final String name, final String signature,
+                          final String superName, final String[] interfaces) {
+            this.klass = name;
+            super.visit(version, access, name, signature, superName, interfaces);
+        }
+
+        @Override
+        public FieldVisitor visitField(final int access, final String name, final String descriptor,
+                                       final String signature, final Object value) {
+            this.writer().mapFieldIfAbsent(this.klass, name, descriptor,
+                    () -> this.getConfiguration().getMemberName(++this.count, name));
+            return super.visitField(access, name, descriptor, signature, value);
+        }
+
+    }
+
+}
@@ -0,0 +1,40 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package org.cadixdev.survey.test.context;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.cadixdev.survey.context.Blacklist;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+final class BlacklistTest {
+
+    @Test
+    void matchesPrefixes() {
+        final Blacklist blacklist = Blacklist.compile(Arrays.asList("com/google/", "org/apache/commons", "a"));
+        assertTrue(blacklist.matches("com/google/gson/Gson"));
+        assertTrue(blacklist.matches("org/apache/commons/io/IOUtils"));
+        assertTrue(blacklist.matches("org/apache/commonsx/Foo"));
+        assertTrue(blacklist.matches("a"));
+        assertTrue(blacklist.matches("abc"));
+        assertFalse(blacklist.matches("com/google"));
+        assertFalse(blacklist.matches("org/apache/Foo"));
+        assertFalse(blacklist.matches("b"));
+        assertFalse(blacklist.matches(""));
+    }
+
+    @Test
+    void emptyPrefixMatchesEverything() {
+        assertTrue(Blacklist.compile(Collections.singletonList("")).matches("anything"));
+        assertFalse(Blacklist.EMPTY.matches("anything"));
+    }
+
+}
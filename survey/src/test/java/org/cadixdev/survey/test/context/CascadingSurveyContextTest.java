@@ -0,0 +1,76 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package org.cadixdev.survey.test.context;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.cadixdev.lorenz.MappingSet;
+import org.cadixdev.survey.context.Blacklist;
+import org.cadixdev.survey.context.CascadingSurveyContext;
+import org.cadixdev.survey.context.SimpleSurveyContext;
+import org.cadixdev.survey.context.SurveyContext;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+final class CascadingSurveyContextTest {
+
+    private static final MappingSet MAPPINGS = MappingSet.create();
+
+    @Test
+    void flattensNestedContexts() {
+        final CascadingSurveyContext parent = new CascadingSurveyContext(MAPPINGS)
+                .install(new SimpleSurveyContext(MAPPINGS, Collections.singletonList("com/google/")));
+        final CascadingSurveyContext child = new CascadingSurveyContext(MAPPINGS)
+                .install(new SimpleSurveyContext(MAPPINGS, Arrays.asList("org/apache/", "a/b/Foo")))
+                .install(parent);
+
+        final Blacklist blacklist = child.getBlacklist();
+        assertNotNull(blacklist);
+        assertEquals(3, blacklist.getPrefixes().size());
+
+        // Twice over, so the memoised packages are used
+        for (int i = 0; i < 2; i++) {
+            assertTrue(child.blacklisted("com/google/gson/Gson"));
+            assertTrue(child.blacklisted("org/apache/Foo"));
+            assertTrue(child.blacklisted("a/b/Foo"));
+            assertTrue(child.blacklisted("a/b/FooBar"));
+            assertFalse(child.blacklisted("a/b/Bar"));
+            assertFalse(child.blacklisted("a/c/Foo"));
+            assertFalse(child.blacklisted("Foo"));
+        }
+    }
+
+    @Test
+    void keepsOtherContexts() {
+        final SurveyContext other = new SurveyContext() {
+            @Override
+            public MappingSet mappings() {
+                return MAPPINGS;
+            }
+
+            @Override
+            public boolean blacklisted(final String klass) {
+                return klass.endsWith("Test");
+            }
+        };
+        final CascadingSurveyContext ctx = new CascadingSurveyContext(MAPPINGS)
+                .install(new SimpleSurveyContext(MAPPINGS, Collections.singletonList("com/google/")))
+                .install(other);
+
+        assertNull(ctx.getBlacklist());
+        assertTrue(ctx.blacklisted("com/google/gson/Gson"));
+        assertTrue(ctx.blacklisted("a/b/FooTest"));
+        assertFalse(ctx.blacklisted("a/b/Foo"));
+    }
+
+}
@@ -0,0 +1,99 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package org.cadixdev.survey.test.hierarchy;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.cadixdev.atlas.jar.JarFile;
+import org.cadixdev.survey.generator.JarGenerator;
+import org.cadixdev.survey.hierarchy.ClassHierarchyCache;
+import org.cadixdev.survey.hierarchy.ClassHierarchyIndex;
+import org.junit.jupiter.api.Test;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Opcodes;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+final class ClassHierarchyIndexTest {
+
+    @Test
+    void cachesByJarHash() throws IOException {
+        final JarGenerator generator = new JarGenerator(0).classes(100).packages(4).innerClassDepth(2);
+        final Path jar = generator.writeTemporary();
+        final Path cacheDir = Files.createTempDirectory("survey");
+        try {
+            final ClassHierarchyIndex index;
+            try (final JarFile jarFile = new JarFile(jar)) {
+                index = ClassHierarchyIndex.of(jarFile);
+            }
+            for (int i = 0; i < 100; i++) {
+                assertTrue(index.contains(generator.getClassName(i)));
+                assertTrue(index.getSuperName(generator.getClassName(i)) != null);
+            }
+            assertFalse(index.contains("java/lang/Object"));
+
+            final ClassHierarchyCache cache = new ClassHierarchyCache(cacheDir);
+            assertFalse(cache.load(jar).isPresent());
+            cache.save(jar, index);
+
+            final Optional<ClassHierarchyIndex> cached = new ClassHierarchyCache(cacheDir).load(jar);
+            assertTrue(cached.isPresent());
+            assertEquals(index.getClasses(), cached.get().getClasses());
+            for (final String klass : index.getClasses()) {
+                assertEquals(index.getSuperName(klass), cached.get().getSuperName(klass));
+                assertEquals(index.getInterfaces(klass), cached.get().getInterfaces(klass));
+            }
+        }
+        finally {
+            Files.delete(jar);
+            try (final Stream<Path> files = Files.walk(cacheDir)) {
+                files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+            }
+        }
+    }
+
+    @Test
+    void recordsRestrictedMembers() throws IOException {
+        final ClassWriter writer = new ClassWriter(0);
+        writer.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC, "a/b", null, "java/lang/Object", null);
+        writer.visitField(Opcodes.ACC_PRIVATE, "a", "I", null, null).visitEnd();
+        writer.visitField(0, "b", "J", null, null).visitEnd();
+        writer.visitField(Opcodes.ACC_PROTECTED, "c", "I", null, null).visitEnd();
+        writer.visitMethod(Opcodes.ACC_PRIVATE, "a", "()V", null, null).visitEnd();
+        writer.visitMethod(Opcodes.ACC_PUBLIC, "b", "()V", null, null).visitEnd();
+        writer.visitEnd();
+
+        final ClassHierarchyIndex index = new ClassHierarchyIndex();
+        index.add(new ClassReader(writer.toByteArray()));
+
+        final Path path = Files.createTempFile("survey", ".hierarchy");
+        try {
+            index.write(path);
+            for (final ClassHierarchyIndex read : new ClassHierarchyIndex[] { index, ClassHierarchyIndex.read(path) }) {
+                assertEquals(Opcodes.ACC_PRIVATE, read.getFieldAccess("a/b", "a", "I"));
+                assertEquals(Opcodes.ACC_PRIVATE, read.getFieldAccess("a/b", "a", null));
+                assertEquals(0, read.getFieldAccess("a/b", "b", "J"));
+                assertEquals(Opcodes.ACC_PUBLIC, read.getFieldAccess("a/b", "c", "I"));
+                assertEquals(Opcodes.ACC_PRIVATE, read.getMethodAccess("a/b", "a", "()V"));
+                assertEquals(Opcodes.ACC_PUBLIC, read.getMethodAccess("a/b", "b", "()V"));
+                assertEquals(-1, read.getMethodAccess("a/c", "a", "()V"));
+            }
+        }
+        finally {
+            Files.delete(path);
+        }
+    }
+
+}
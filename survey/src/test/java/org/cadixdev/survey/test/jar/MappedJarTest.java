@@ -0,0 +1,264 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package org.cadixdev.survey.test.jar;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.cadixdev.bombe.jar.JarClassEntry;
+import org.cadixdev.bombe.jar.JarEntryTransformer;
+import org.cadixdev.survey.jar.JarRewriter;
+import org.cadixdev.survey.jar.MappedJar;
+import org.cadixdev.survey.jar.TransformCache;
+import org.junit.jupiter.api.Test;
+import org.objectweb.asm.commons.SimpleRemapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+final class MappedJarTest {
+
+    private static final byte[] TEXT = repeat("Survey maps jars. ", 200);
+
+    @Test
+    void readsStoredAndDeflatedEntries() throws IOException {
+        final Path path = Files.createTempFile("survey", ".jar");
+        try {
+            try (final ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(path))) {
+                put(out, "a/", null, false);
+                put(out, "a/deflated.txt", TEXT, false);
+                put(out, "a/stored.txt", TEXT, true);
+                put(out, "a/empty.txt", new byte[0], false);
+            }
+
+            try (final MappedJar jar = MappedJar.open(path);
+                 final ZipFile zip = new ZipFile(path.toFile())) {
+                assertEquals(4, jar.getEntries().size());
+                assertTrue(jar.getEntries().get(0).isDirectory());
+                assertEquals("a/deflated.txt", jar.getEntries().get(1).getName());
+                assertNull(jar.getEntry("a/missing.txt"));
+
+                for (final MappedJar.Entry entry : jar.getEntries()) {
+                    assertEquals(zip.getEntry(entry.getName()).getTime(), entry.getTime());
+                    assertEquals(zip.getEntry(entry.getName()).getCrc(), entry.getCrc());
+                    assertArrayEquals(read(zip, entry.getName()), jar.getContents(entry));
+                }
+
+                // The contents are kept, until released
+                final MappedJar.Entry deflated = jar.getEntry("a/deflated.txt");
+                assertSame(jar.getContents(deflated), jar.getContents(deflated));
+                jar.release(deflated);
+                assertArrayEquals(TEXT, jar.getContents(deflated));
+            }
+        }
+        finally {
+            Files.delete(path);
+        }
+    }
+
+    @Test
+    void readsZip64() throws IOException {
+        // Zip64 is used once there are too many entries for the end record
+        final int count = 0x10000 + 16;
+        final Path path = Files.createTempFile("survey", ".jar");
+        final Path output = Files.createTempFile("survey", ".jar");
+        try {
+            try (final ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(path))) {
+                for (int i = 0; i < count; i++) {
+                    put(out, "entry" + i, Integer.toString(i).getBytes(StandardCharsets.UTF_8), false);
+                }
+            }
+
+            try (final MappedJar jar = MappedJar.open(path)) {
+                assertEquals(count, jar.getEntries().size());
+                assertEquals("65551", new String(jar.getContents(jar.getEntry("entry65551")), StandardCharsets.UTF_8));
+
+                new JarRewriter(new JarEntryTransformer() {}, new SimpleRemapper(new HashMap<>())).rewrite(jar, output);
+            }
+
+            try (final ZipFile zip = new ZipFile(output.toFile())) {
+                assertEquals(count, zip.size());
+                assertEquals("65551", new String(read(zip, "entry65551"), StandardCharsets.UTF_8));
+            }
+        }
+        finally {
+            Files.delete(path);
+            Files.delete(output);
+        }
+    }
+
+    @Test
+    void rewritesManifestAndServices() throws IOException {
+        final Path input = Files.createTempFile("survey", ".jar");
+        final Path output = Files.createTempFile("survey", ".jar");
+        try {
+            try (final ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(input))) {
+                put(out, "META-INF/MANIFEST.MF", "Manifest-Version: 1.0\r\nMain-Class: a.A\r\n\r\n".getBytes(StandardCharsets.UTF_8), false);
+                put(out, "META-INF/services/a.I", "# Providers\na.B # the only one\n".getBytes(StandardCharsets.UTF_8), false);
+                put(out, "a/", null, false);
+                put(out, "a/resource.txt", TEXT, false);
+                put(out, "a/stored.txt", TEXT, true);
+            }
+
+            final Map<String, String> mappings = new HashMap<>();
+            mappings.put("a/A", "net/Main");
+            mappings.put("a/B", "net/Provider");
+            mappings.put("a/I", "net/Service");
+            try (final MappedJar jar = MappedJar.open(input)) {
+                new JarRewriter(new JarEntryTransformer() {}, new SimpleRemapper(mappings)).rewrite(jar, output);
+            }
+
+            try (final ZipFile zip = new ZipFile(output.toFile())) {
+                assertTrue(new String(read(zip, "META-INF/MANIFEST.MF"), StandardCharsets.UTF_8).contains("Main-Class: net.Main"));
+                assertEquals("# Providers\nnet.Provider # the only one\n",
+                        new String(read(zip, "META-INF/services/net.Service"), StandardCharsets.UTF_8));
+                assertArrayEquals(TEXT, read(zip, "a/resource.txt"));
+                assertArrayEquals(TEXT, read(zip, "a/stored.txt"));
+                assertTrue(zip.getEntry("a/").isDirectory());
+
+                // Unchanged entries are copied as they were
+                try (final ZipFile original = new ZipFile(input.toFile())) {
+                    for (final String name : new String[] { "a/", "a/resource.txt", "a/stored.txt" }) {
+                        assertEquals(original.getEntry(name).getMethod(), zip.getEntry(name).getMethod());
+                        assertEquals(original.getEntry(name).getCompressedSize(), zip.getEntry(name).getCompressedSize());
+                        assertEquals(original.getEntry(name).getCrc(), zip.getEntry(name).getCrc());
+                        assertEquals(original.getEntry(name).getTime(), zip.getEntry(name).getTime());
+                    }
+                }
+            }
+        }
+        finally {
+            Files.delete(input);
+            Files.delete(output);
+        }
+    }
+
+    @Test
+    void failedRewriteLeavesNoJar() throws IOException {
+        final Path input = Files.createTempFile("survey", ".jar");
+        final Path directory = Files.createTempDirectory("survey");
+        try {
+            try (final ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(input))) {
+                for (int i = 0; i < 64; i++) {
+                    put(out, "a/resource" + i + ".txt", TEXT, false);
+                }
+                put(out, "a/A.class", TEXT, false);
+            }
+
+            final JarEntryTransformer failing = new JarEntryTransformer() {
+                @Override
+                public JarClassEntry transform(final JarClassEntry entry) {
+                    throw new IllegalStateException("Failed to transform " + entry.getName());
+                }
+            };
+            try (final MappedJar jar = MappedJar.open(input)) {
+                for (final int threads : new int[] { 1, 4 }) {
+                    final JarRewriter rewriter = new JarRewriter(failing, new SimpleRemapper(new HashMap<>()))
+                            .threads(threads);
+                    assertThrows(IllegalStateException.class, () -> rewriter.rewrite(jar, directory.resolve("out.jar")));
+
+                    // Neither the output, nor the partially written jar, is left behind
+                    try (final Stream<Path> files = Files.list(directory)) {
+                        assertEquals(0, files.count());
+                    }
+                }
+            }
+        }
+        finally {
+            Files.delete(input);
+            Files.delete(directory);
+        }
+    }
+
+    @Test
+    void unwritableTransformCacheIsSkipped() throws IOException {
+        final Path input = Files.createTempFile("survey", ".jar");
+        final Path output = Files.createTempFile("survey", ".jar");
+        // A file, where the cache's directory should be
+        final Path cache = Files.createTempFile("survey", ".cache");
+        try {
+            try (final ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(input))) {
+                put(out, "a/A.class", TEXT, false);
+                put(out, "a/B.class", TEXT, false);
+            }
+
+            final JarEntryTransformer transformer = new JarEntryTransformer() {
+                @Override
+                public JarClassEntry transform(final JarClassEntry entry) {
+                    return new JarClassEntry(entry.getName(), entry.getTime(), entry.getContents().clone());
+                }
+            };
+            try (final MappedJar jar = MappedJar.open(input)) {
+                new JarRewriter(transformer, new SimpleRemapper(new HashMap<>()))
+                        .cache(new TransformCache(cache, Long.MAX_VALUE, ""), entry -> entry.getName())
+                        .rewrite(jar, output);
+            }
+
+            try (final ZipFile zip = new ZipFile(output.toFile())) {
+                assertArrayEquals(TEXT, read(zip, "a/A.class"));
+                assertArrayEquals(TEXT, read(zip, "a/B.class"));
+            }
+        }
+        finally {
+            Files.delete(input);
+            Files.delete(output);
+            Files.delete(cache);
+        }
+    }
+
+    private static void put(final ZipOutputStream out, final String name, final byte[] contents,
+                            final boolean stored) throws IOException {
+        final ZipEntry entry = new ZipEntry(name);
+        entry.setTime(1_500_000_000_000L);
+        if (stored) {
+            final CRC32 crc = new CRC32();
+            crc.update(contents);
+            entry.setMethod(ZipEntry.STORED);
+            entry.setSize(contents.length);
+            entry.setCrc(crc.getValue());
+        }
+        out.putNextEntry(entry);
+        if (contents != null) out.write(contents);
+        out.closeEntry();
+    }
+
+    private static byte[] read(final ZipFile zip, final String name) throws IOException {
+        try (final InputStream in = zip.getInputStream(zip.getEntry(name))) {
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            final byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            return out.toByteArray();
+        }
+    }
+
+    private static byte[] repeat(final String text, final int times) {
+        final StringBuilder builder = new StringBuilder(text.length() * times);
+        for (int i = 0; i < times; i++) {
+            builder.append(text);
+        }
+        return builder.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+}
@@ -0,0 +1,80 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package org.cadixdev.survey.test.mappings;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.cadixdev.lorenz.MappingSet;
+import org.cadixdev.lorenz.model.ClassMapping;
+import org.cadixdev.lorenz.model.TopLevelClassMapping;
+import org.cadixdev.survey.mappings.BinaryMappingFormat;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+final class BinaryMappingFormatTest {
+
+    private static final String[] CLASSES = { "a", "b", "ab", "z", "\uffff", "\u00e9", "\ud83d\ude00", "net/minecraft/Foo" };
+
+    private static Path write() throws IOException {
+        final MappingSet mappings = MappingSet.create();
+        for (int i = 0; i < CLASSES.length; i++) {
+            final ClassMapping<?, ?> klass = mappings.getOrCreateTopLevelClassMapping(CLASSES[i])
+                    .setDeobfuscatedName("Class" + i);
+            klass.getOrCreateFieldMapping("b", "I").setDeobfuscatedName("count");
+            klass.getOrCreateFieldMapping("a").setDeobfuscatedName("name");
+            klass.getOrCreateMethodMapping("c", "(I)V").setDeobfuscatedName("run")
+                    .getOrCreateParameterMapping(0).setDeobfuscatedName("times");
+            klass.getOrCreateInnerClassMapping("d").setDeobfuscatedName("Inner")
+                    .getOrCreateInnerClassMapping("e").setDeobfuscatedName("Deeper");
+        }
+
+        final Path path = Files.createTempFile("survey", ".smb");
+        BinaryMappingFormat.INSTANCE.write(mappings, path);
+        return path;
+    }
+
+    @Test
+    void lazilyLooksUpClasses() throws IOException {
+        final Path path = write();
+        try {
+            final MappingSet mappings = BinaryMappingFormat.open(path);
+            for (int i = CLASSES.length - 1; i >= 0; i--) {
+                final TopLevelClassMapping klass = mappings.getTopLevelClassMapping(CLASSES[i]).get();
+                assertEquals("Class" + i, klass.getDeobfuscatedName());
+                assertEquals("name", klass.getFieldMapping("a").get().getDeobfuscatedName());
+                assertEquals("times", klass.getMethodMapping("c", "(I)V").get()
+                        .getOrCreateParameterMapping(0).getDeobfuscatedName());
+            }
+            assertEquals("Deeper", mappings.getClassMapping("b$d$e").get().getDeobfuscatedName());
+            assertFalse(mappings.getTopLevelClassMapping("c").isPresent());
+            assertFalse(mappings.hasTopLevelClassMapping("aa"));
+            assertTrue(mappings.hasTopLevelClassMapping("ab"));
+        }
+        finally {
+            Files.delete(path);
+        }
+    }
+
+    @Test
+    void eagerlyReadsEverything() throws IOException {
+        final Path path = write();
+        try {
+            final MappingSet mappings = BinaryMappingFormat.INSTANCE.read(path);
+            assertEquals(CLASSES.length, mappings.getTopLevelClassMappings().size());
+            assertEquals(CLASSES.length, BinaryMappingFormat.open(path).getTopLevelClassMappings().size());
+        }
+        finally {
+            Files.delete(path);
+        }
+    }
+
+}
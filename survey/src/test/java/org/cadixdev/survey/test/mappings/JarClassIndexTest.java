@@ -0,0 +1,66 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package org.cadixdev.survey.test.mappings;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.cadixdev.atlas.jar.JarFile;
+import org.cadixdev.lorenz.MappingSet;
+import org.cadixdev.lorenz.model.TopLevelClassMapping;
+import org.cadixdev.survey.generator.JarGenerator;
+import org.cadixdev.survey.mappings.JarClassIndex;
+import org.cadixdev.survey.mappings.MappingCopier;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+final class JarClassIndexTest {
+
+    @Test
+    void indexesClassesAndReferences() throws IOException {
+        final JarGenerator generator = new JarGenerator(0).classes(100).packages(4).innerClassDepth(2);
+        final Path path = generator.writeTemporary();
+        try (final JarFile jar = new JarFile(path)) {
+            final JarClassIndex index = JarClassIndex.of(jar);
+            for (int i = 0; i < 100; i++) {
+                assertTrue(index.contains(generator.getClassName(i)));
+                assertTrue(index.contains(generator.getClassName(i) + "$a"));
+            }
+            assertTrue(index.contains("java/lang/Object"));
+            assertTrue(index.contains("java/util/logging/Logger"));
+            assertFalse(index.contains("not/in/the/Jar"));
+        }
+        finally {
+            Files.delete(path);
+        }
+    }
+
+    @Test
+    void copiesMappings() {
+        final MappingSet mappings = MappingSet.create();
+        final TopLevelClassMapping klass = mappings.getOrCreateTopLevelClassMapping("a").setDeobfuscatedName("Demo");
+        klass.getOrCreateFieldMapping("b", "I").setDeobfuscatedName("count");
+        klass.getOrCreateMethodMapping("c", "(I)V").setDeobfuscatedName("run")
+                .getOrCreateParameterMapping(0).setDeobfuscatedName("times");
+        klass.getOrCreateInnerClassMapping("d").setDeobfuscatedName("Inner");
+
+        final MappingSet copy = MappingSet.create();
+        MappingCopier.copy(klass, copy);
+
+        final TopLevelClassMapping copied = copy.getTopLevelClassMapping("a").get();
+        assertEquals("Demo", copied.getDeobfuscatedName());
+        assertEquals("count", copied.getFieldMapping("b").get().getDeobfuscatedName());
+        assertEquals("times", copied.getMethodMapping("c", "(I)V").get()
+                .getOrCreateParameterMapping(0).getDeobfuscatedName());
+        assertEquals("Inner", copy.getClassMapping("a$d").get().getDeobfuscatedName());
+    }
+
+}
@@ -0,0 +1,55 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package org.cadixdev.survey.test.patcher;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.cadixdev.survey.generator.JarGenerator;
+import org.cadixdev.survey.patcher.AbstractPatcher;
+import org.cadixdev.survey.patcher.InnerClassInitPatcher;
+import org.cadixdev.survey.patcher.proguard.ProguardSignaturePatcher;
+import org.junit.jupiter.api.Test;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassWriter;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+final class PatcherApplicabilityTest {
+
+    /**
+     * Patchers may claim to be applicable to classes they don't change, but
+     * must never claim not to be applicable to a class they would change.
+     */
+    @Test
+    void inapplicablePatchersChangeNothing() {
+        final List<AbstractPatcher<?>> patchers = Arrays.asList(
+                new InnerClassInitPatcher(null),
+                new ProguardSignaturePatcher(null)
+        );
+        final Map<String, byte[]> classes = new JarGenerator(0).classes(2000).innerClassDepth(2).generate();
+
+        int skipped = 0;
+        for (final byte[] bytes : classes.values()) {
+            final ClassReader reader = new ClassReader(bytes);
+            for (final AbstractPatcher<?> patcher : patchers) {
+                if (patcher.isApplicable(reader)) continue;
+                skipped++;
+
+                final ClassWriter unpatched = new ClassWriter(0);
+                reader.accept(unpatched, 0);
+                final ClassWriter patched = new ClassWriter(0);
+                reader.accept(patcher.createVisitor(patched), 0);
+                assertArrayEquals(unpatched.toByteArray(), patched.toByteArray());
+            }
+        }
+        assertTrue(skipped > 0);
+    }
+
+}
@@ -7,9 +7,14 @@
 package org.cadixdev.survey.test.patcher.proguard;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import org.cadixdev.survey.patcher.proguard.ProguardSignaturePatcher;
 import org.junit.jupiter.api.Test;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Opcodes;
 
 final class ProguardSignaturePatcherTest {
 
@@ -22,4 +27,21 @@ final class ProguardSignaturePatcherTest {
         assertEquals(GOOD, ProguardSignaturePatcher.Patcher.patch(GOOD));
     }
 
+    @Test
+    void applicable() {
+        final ProguardSignaturePatcher patcher = new ProguardSignaturePatcher(null);
+        assertTrue(patcher.isApplicable(createClass(BAD)));
+        assertFalse(patcher.isApplicable(createClass(GOOD)));
+        assertFalse(patcher.isApplicable(createClass(null)));
+    }
+
+    private static ClassReader createClass(final String signature) {
+        final ClassWriter writer = new ClassWriter(0);
+        writer.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC, "zt$b", null, "java/lang/Object", null);
+        writer.visitMethod(Opcodes.ACC_PUBLIC | Opcodes.ACC_ABSTRACT, "a", "(Ljava/lang/Object;)Lzt$a;", signature, null)
+                .visitEnd();
+        writer.visitEnd();
+        return new ClassReader(writer.toByteArray());
+    }
+
 }
@@ -0,0 +1,110 @@
+/*
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package org.cadixdev.survey.test.remapper;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.cadixdev.lorenz.MappingSet;
+import org.cadixdev.lorenz.model.TopLevelClassMapping;
+import org.cadixdev.survey.hierarchy.ClassHierarchyIndex;
+import org.cadixdev.survey.remapper.FrozenMappings;
+import org.cadixdev.survey.remapper.FrozenRemapper;
+import org.junit.jupiter.api.Test;
+import org.objectweb.asm.Opcodes;
+
+import java.util.Arrays;
+
+final class FrozenRemapperTest {
+
+    @Test
+    void remapsClassesAndMembers() {
+        final MappingSet mappings = MappingSet.create();
+        final TopLevelClassMapping klass = mappings.getOrCreateTopLevelClassMapping("a").setDeobfuscatedName("net/Demo");
+        klass.getOrCreateFieldMapping("b", "I").setDeobfuscatedName("count");
+        klass.getOrCreateFieldMapping("c").setDeobfuscatedName("name");
+        klass.getOrCreateMethodMapping("d", "(I)V").setDeobfuscatedName("run");
+        klass.getOrCreateInnerClassMapping("e").setDeobfuscatedName("Inner");
+        mappings.getOrCreateTopLevelClassMapping("f");
+
+        final FrozenRemapper remapper = new FrozenRemapper(FrozenMappings.freeze(
+                mappings, new ClassHierarchyIndex(), Arrays.asList("a", "a$e", "a$e$g", "f")
+        ));
+
+        assertEquals("net/Demo", remapper.map("a"));
+        assertEquals("net/Demo$Inner", remapper.map("a$e"));
+        assertEquals("net/Demo$Inner$g", remapper.map("a$e$g"));
+        assertEquals("net/Demo$h", remapper.map("a$h"));
+        assertEquals("f", remapper.map("f"));
+        assertEquals("[Lnet/Demo;", remapper.mapDesc("[La;"));
+
+        assertEquals("count", remapper.mapFieldName("a", "b", "I"));
+        assertEquals("b", remapper.mapFieldName("a", "b", "J"));
+        assertEquals("name", remapper.mapFieldName("a", "c", "Ljava/lang/String;"));
+        assertEquals("run", remapper.mapMethodName("a", "d", "(I)V"));
+        assertEquals("d", remapper.mapMethodName("a", "d", "()V"));
+        assertEquals("d", remapper.mapMethodName("f", "d", "(I)V"));
+    }
+
+    @Test
+    void resolvesInheritedMembers() {
+        final MappingSet mappings = MappingSet.create();
+        mappings.getOrCreateTopLevelClassMapping("base").getOrCreateMethodMapping("a", "()V").setDeobfuscatedName("tick");
+        mappings.getOrCreateTopLevelClassMapping("base").getOrCreateMethodMapping("c", "()V").setDeobfuscatedName("hidden");
+        mappings.getOrCreateTopLevelClassMapping("iface").getOrCreateMethodMapping("a", "()V").setDeobfuscatedName("shadowed");
+        mappings.getOrCreateTopLevelClassMapping("iface").getOrCreateMethodMapping("b", "()V").setDeobfuscatedName("run");
+        mappings.getOrCreateTopLevelClassMapping("mid").getOrCreateMethodMapping("c", "()V");
+
+        final ClassHierarchyIndex hierarchy = new ClassHierarchyIndex();
+        hierarchy.add("base", "java/lang/Object", new String[0]);
+        hierarchy.add("mid", "base", new String[0]);
+        hierarchy.add("child", "mid", new String[] { "iface" });
+
+        final FrozenRemapper remapper = new FrozenRemapper(FrozenMappings.freeze(
+                mappings, hierarchy, hierarchy.getClasses()
+        ));
+
+        // The super class is nearer than the interface
+        assertEquals("tick", remapper.mapMethodName("child", "a", "()V"));
+        assertEquals("run", remapper.mapMethodName("child", "b", "()V"));
+        // Members declared by a class are never overridden by inherited ones
+        assertEquals("c", remapper.mapMethodName("child", "c", "()V"));
+        assertEquals("tick", remapper.mapMethodName("mid", "a", "()V"));
+    }
+
+    @Test
+    void onlyInheritsAccessibleMembers() {
+        final MappingSet mappings = MappingSet.create();
+        final TopLevelClassMapping base = mappings.getOrCreateTopLevelClassMapping("p/base");
+        base.getOrCreateMethodMapping("a", "()V").setDeobfuscatedName("secret");
+        base.getOrCreateMethodMapping("b", "()V").setDeobfuscatedName("local");
+        base.getOrCreateMethodMapping("c", "()V").setDeobfuscatedName("shared");
+        base.getOrCreateFieldMapping("d", "I").setDeobfuscatedName("hidden");
+
+        final ClassHierarchyIndex hierarchy = new ClassHierarchyIndex();
+        hierarchy.add("p/base", "java/lang/Object", new String[0]);
+        hierarchy.addMember("p/base", "a", "()V", Opcodes.ACC_PRIVATE);
+        hierarchy.addMember("p/base", "b", "()V", 0);
+        hierarchy.addMember("p/base", "c", "()V", Opcodes.ACC_PUBLIC);
+        hierarchy.addMember("p/base", "d", "I", Opcodes.ACC_PRIVATE);
+        hierarchy.add("p/child", "p/base", new String[0]);
+        hierarchy.add("q/other", "p/child", new String[0]);
+
+        final FrozenRemapper remapper = new FrozenRemapper(FrozenMappings.freeze(
+                mappings, hierarchy, hierarchy.getClasses()
+        ));
+
+        // Private members are never inherited
+        assertEquals("a", remapper.mapMethodName("p/child", "a", "()V"));
+        assertEquals("d", remapper.mapFieldName("p/child", "d", "I"));
+        assertEquals("secret", remapper.mapMethodName("p/base", "a", "()V"));
+        // Package-private members only within their package
+        assertEquals("local", remapper.mapMethodName("p/child", "b", "()V"));
+        assertEquals("b", remapper.mapMethodName("q/other", "b", "()V"));
+        assertEquals("shared", remapper.mapMethodName("q/other", "c", "()V"));
+    }
+
+}